@@ -0,0 +1,35 @@
+package com.aline.cardbenchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the card benchmarks with the GC profiler and writes results as JSON so runs
+ * can be diffed between releases. Regular JMH command line options override the defaults.
+ *
+ * <pre>
+ * java -jar card-benchmarks/target/benchmarks.jar [jmh options]
+ * </pre>
+ */
+public class BenchmarkRunner {
+
+    private static final String DEFAULT_RESULT_FILE = "card-benchmarks/target/jmh-result.json";
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        ChainedOptionsBuilder options = new OptionsBuilder()
+                .parent(commandLine)
+                .include(BenchmarkRunner.class.getPackage().getName() + ".*")
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result(System.getProperty("jmh.result", DEFAULT_RESULT_FILE));
+        new Runner(options.build()).run();
+    }
+
+}
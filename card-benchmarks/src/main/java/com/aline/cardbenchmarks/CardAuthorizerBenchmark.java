@@ -0,0 +1,112 @@
+package com.aline.cardbenchmarks;
+
+import com.aline.cardmicroservice.authorization.CardAuthorizer;
+import com.aline.cardmicroservice.authorization.MemberAuthorization;
+import com.aline.cardmicroservice.authorization.MemberAuthorizationCache;
+import com.aline.cardmicroservice.config.AuthorizationCacheProperties;
+import com.aline.core.dto.request.CreateDebitCardRequest;
+import com.aline.core.model.Member;
+import com.aline.core.model.account.Account;
+import com.aline.core.model.card.Card;
+import com.aline.core.model.user.MemberUser;
+import com.aline.core.model.user.UserRole;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Authorization checks for a MEMBER caller whose authorization facts are already cached.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class CardAuthorizerBenchmark {
+
+    @Param({"1", "10", "100"})
+    public int accounts;
+
+    private CardAuthorizer authorizer;
+    private Card card;
+    private CreateDebitCardRequest createDebitCardRequest;
+    private Long memberId;
+
+    @Setup
+    public void setUp() {
+        Member member = CardFixtures.member(1L, "000000001", accounts);
+        MemberUser user = new MemberUser();
+        user.setMember(member);
+        MemberAuthorizationCache cache = new MemberAuthorizationCache(new AuthorizationCacheProperties(), new SimpleMeterRegistry());
+        cache.get(FixedUserCardAuthorizer.PRINCIPAL, principal -> new MemberAuthorization(
+                member.getId(),
+                member.getMembershipId(),
+                member.getAccounts().stream().map(Account::getAccountNumber).collect(Collectors.toSet())));
+        authorizer = new FixedUserCardAuthorizer(cache, user);
+        card = CardFixtures.card(member);
+        memberId = member.getId();
+        createDebitCardRequest = new CreateDebitCardRequest();
+        createDebitCardRequest.setMembershipId(member.getMembershipId());
+        createDebitCardRequest.setAccountNumber(String.format("%010d", accounts - 1));
+    }
+
+    @Benchmark
+    public boolean canAccess() {
+        return authorizer.canAccess(card);
+    }
+
+    @Benchmark
+    public boolean canAccessByMemberId() {
+        return authorizer.canAccessByMemberId(memberId);
+    }
+
+    @Benchmark
+    public boolean canAccessByCreateDebitCardRequest() {
+        return authorizer.canAccessByCreateDebitCardRequest(createDebitCardRequest);
+    }
+
+    /**
+     * Answers as an authenticated member without a security context.
+     */
+    static class FixedUserCardAuthorizer extends CardAuthorizer {
+
+        static final String PRINCIPAL = "member";
+
+        private final MemberUser user;
+
+        FixedUserCardAuthorizer(MemberAuthorizationCache cache, MemberUser user) {
+            super(cache, null);
+            this.user = user;
+        }
+
+        @Override
+        protected String getPrincipalName() {
+            return PRINCIPAL;
+        }
+
+        @Override
+        public UserRole getRole() {
+            return UserRole.MEMBER;
+        }
+
+        @Override
+        public MemberUser getUser() {
+            return user;
+        }
+
+    }
+
+}
@@ -0,0 +1,86 @@
+package com.aline.cardbenchmarks;
+
+import com.aline.cardmicroservice.mapper.CardResponseMapper;
+import com.aline.cardmicroservice.metrics.CardMetrics;
+import com.aline.cardmicroservice.service.CardEmailService;
+import com.aline.core.config.AppConfig;
+import com.aline.core.model.card.Card;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Variable building for card emails, plus the two formatting steps it is made of
+ * so their cost can be compared with cheaper equivalents.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class CardEmailServiceBenchmark {
+
+    private static final DateTimeFormatter EXPIRATION_FORMAT = DateTimeFormatter.ofPattern("MM/yy");
+
+    private CardEmailService cardEmailService;
+    private Card card;
+    private LocalDate expirationDate;
+
+    @Setup
+    public void setUp() {
+        AppConfig appConfig = new AppConfig();
+        appConfig.setMemberDashboard("https://member.example.com");
+        appConfig.setLandingPortal("https://www.example.com");
+        // Only the variable building is measured, so delivery dependencies are left out
+        cardEmailService = new CardEmailService(null, appConfig, new CardResponseMapper(), null, null, null, new CardMetrics(new SimpleMeterRegistry()), null);
+        card = CardFixtures.card(CardFixtures.member(1L, "000000001", 1));
+        expirationDate = card.getExpirationDate();
+    }
+
+    @Benchmark
+    public Map<String, String> buildVariables() {
+        return cardEmailService.buildVariables(card);
+    }
+
+    @Benchmark
+    public String formatCardNumberRegex() {
+        return CardFixtures.CARD_NUMBER.replaceAll("\\d{4}(?!$)", "$0 ");
+    }
+
+    @Benchmark
+    public String formatCardNumberLoop() {
+        String cardNumber = CardFixtures.CARD_NUMBER;
+        StringBuilder builder = new StringBuilder(cardNumber.length() + cardNumber.length() / 4);
+        for (int i = 0; i < cardNumber.length(); i++) {
+            if (i > 0 && i % 4 == 0)
+                builder.append(' ');
+            builder.append(cardNumber.charAt(i));
+        }
+        return builder.toString();
+    }
+
+    @Benchmark
+    public String formatExpirationOfPattern() {
+        return expirationDate.format(DateTimeFormatter.ofPattern("MM/yy"));
+    }
+
+    @Benchmark
+    public String formatExpirationConstant() {
+        return expirationDate.format(EXPIRATION_FORMAT);
+    }
+
+}
@@ -0,0 +1,69 @@
+package com.aline.cardbenchmarks;
+
+import com.aline.core.model.Applicant;
+import com.aline.core.model.Member;
+import com.aline.core.model.account.Account;
+import com.aline.core.model.account.AccountStatus;
+import com.aline.core.model.account.CheckingAccount;
+import com.aline.core.model.card.Card;
+import com.aline.core.model.card.CardIssuer;
+import com.aline.core.model.card.CardStatus;
+import com.aline.core.model.card.CardType;
+
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Detached card object graphs shared by the benchmarks.
+ */
+final class CardFixtures {
+
+    static final String CARD_NUMBER = "4539343576281337";
+
+    private CardFixtures() {}
+
+    static Member member(long id, String membershipId, int accounts) {
+        Applicant applicant = new Applicant();
+        applicant.setFirstName("Jane");
+        applicant.setLastName("Member");
+        applicant.setEmail("jane.member@example.com");
+        applicant.setSocialSecurity("123-45-6789");
+        applicant.setDateOfBirth(LocalDate.of(1990, 1, 1));
+
+        Member member = new Member();
+        member.setId(id);
+        member.setMembershipId(membershipId);
+        member.setApplicant(applicant);
+
+        Set<Account> memberAccounts = new HashSet<>();
+        for (int i = 0; i < accounts; i++) {
+            CheckingAccount account = new CheckingAccount();
+            account.setId((long) i);
+            account.setAccountNumber(String.format("%010d", i));
+            account.setStatus(AccountStatus.ACTIVE);
+            memberAccounts.add(account);
+        }
+        member.setAccounts(memberAccounts);
+        return member;
+    }
+
+    static Card card(Member member) {
+        CardIssuer issuer = new CardIssuer();
+        issuer.setIssuerName("VISA");
+        issuer.setCardNumberLength(16);
+
+        Card card = new Card();
+        card.setId(1L);
+        card.setCardNumber(CARD_NUMBER);
+        card.setSecurityCode("123");
+        card.setExpirationDate(LocalDate.of(2030, 1, 1));
+        card.setCardStatus(CardStatus.INACTIVE);
+        card.setCardType(CardType.DEBIT);
+        card.setCardHolder(member);
+        card.setAccount(member.getAccounts().iterator().next());
+        card.setCardIssuer(issuer);
+        return card;
+    }
+
+}
@@ -0,0 +1,84 @@
+package com.aline.cardbenchmarks;
+
+import com.aline.cardmicroservice.mapper.CardResponseMapper;
+import com.aline.core.dto.response.CardResponse;
+import com.aline.core.dto.response.CreateDebitCardResponse;
+import com.aline.core.model.card.Card;
+import com.aline.core.util.CardUtility;
+import com.aline.core.util.RandomNumberGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Maps an issued card the way issuance did with ModelMapper and with the
+ * reflection-free mapper. The issued variants include the card holder name
+ * the card email needs, which used to be a second ModelMapper mapping.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class CardResponseMapperBenchmark {
+
+    private CardUtility cardUtility;
+    private CardResponseMapper mapper;
+    private Card card;
+
+    @Setup
+    public void setUp() {
+        cardUtility = new CardUtility(new RandomNumberGenerator());
+        mapper = new CardResponseMapper();
+        card = CardFixtures.card(CardFixtures.member(1L, "000000001", 1));
+    }
+
+    @Benchmark
+    public CreateDebitCardResponse createDebitCardResponseModelMapper() {
+        return modelMapperResponse();
+    }
+
+    @Benchmark
+    public CreateDebitCardResponse createDebitCardResponseMapper() {
+        return mapper.toCreateDebitCardResponse(card);
+    }
+
+    @Benchmark
+    public void issuedModelMapper(Blackhole blackhole) {
+        blackhole.consume(modelMapperResponse());
+        blackhole.consume(cardUtility.mapToResponse(card).getCardHolder());
+    }
+
+    @Benchmark
+    public void issuedMapper(Blackhole blackhole) {
+        blackhole.consume(mapper.toCreateDebitCardResponse(card));
+        blackhole.consume(mapper.cardHolderName(card.getCardHolder()));
+    }
+
+    /**
+     * The mapping CardService did before the mapper.
+     */
+    private CreateDebitCardResponse modelMapperResponse() {
+        CardResponse cardResponse = cardUtility.mapToResponse(card);
+        return CreateDebitCardResponse.builder()
+                .cardNumber(card.getCardNumber())
+                .securityCode(card.getSecurityCode())
+                .expirationDate(card.getExpirationDate())
+                .cardHolder(cardResponse.getCardHolder())
+                .cardHolderId(card.getCardHolder().getMembershipId())
+                .accountNumber(card.getAccount().getAccountNumber())
+                .build();
+    }
+
+}
@@ -0,0 +1,52 @@
+package com.aline.cardbenchmarks;
+
+import com.aline.core.dto.response.CardResponse;
+import com.aline.core.model.card.Card;
+import com.aline.core.util.CardUtility;
+import com.aline.core.util.RandomNumberGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class CardUtilityBenchmark {
+
+    private CardUtility cardUtility;
+    private Card card;
+
+    @Setup
+    public void setUp() {
+        cardUtility = new CardUtility(new RandomNumberGenerator());
+        card = CardFixtures.card(CardFixtures.member(1L, "000000001", 1));
+    }
+
+    @Benchmark
+    public boolean validateCardNumber() {
+        return cardUtility.validateCardNumber(CardFixtures.CARD_NUMBER);
+    }
+
+    @Benchmark
+    public String generateCardNumber() {
+        return cardUtility.generateCardNumber("412345", 16);
+    }
+
+    @Benchmark
+    public CardResponse mapToResponse() {
+        return cardUtility.mapToResponse(card);
+    }
+
+}
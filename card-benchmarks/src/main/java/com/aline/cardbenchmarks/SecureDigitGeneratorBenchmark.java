@@ -0,0 +1,100 @@
+package com.aline.cardbenchmarks;
+
+import com.aline.cardmicroservice.util.SecureDigitGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.security.SecureRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Security code generation from one shared SecureRandom, as RandomNumberGenerator
+ * does it, against the striped, buffered generator. Every thread count shares
+ * one generator, so the scores show how each one scales under contention.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class SecureDigitGeneratorBenchmark {
+
+    @Param({"shared", "striped"})
+    public String generator;
+
+    private Supplier<String> securityCode;
+
+    @Setup
+    public void setUp() {
+        if ("shared".equals(generator)) {
+            SecureRandom random = new SecureRandom();
+            securityCode = () -> sharedSecurityCode(random);
+        } else {
+            SecureDigitGenerator striped = new SecureDigitGenerator(
+                    Runtime.getRuntime().availableProcessors() * 2, 4096, 1024 * 1024);
+            securityCode = () -> striped.nextDigits(3);
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public String threads01() {
+        return securityCode.get();
+    }
+
+    @Benchmark
+    @Threads(2)
+    public String threads02() {
+        return securityCode.get();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String threads04() {
+        return securityCode.get();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public String threads08() {
+        return securityCode.get();
+    }
+
+    @Benchmark
+    @Threads(16)
+    public String threads16() {
+        return securityCode.get();
+    }
+
+    @Benchmark
+    @Threads(32)
+    public String threads32() {
+        return securityCode.get();
+    }
+
+    @Benchmark
+    @Threads(64)
+    public String threads64() {
+        return securityCode.get();
+    }
+
+    private static String sharedSecurityCode(SecureRandom random) {
+        StringBuilder builder = new StringBuilder(3);
+        for (int i = 0; i < 3; i++)
+            builder.append(random.nextInt(10));
+        return builder.toString();
+    }
+
+}
@@ -0,0 +1,205 @@
+package com.aline.cardloadtest;
+
+import com.aline.cardmicroservice.CardMicroserviceApplication;
+import com.aline.cardmicroservice.dto.CreateDebitCardBatchResponse;
+import com.aline.cardmicroservice.repository.CardIssuerRepository;
+import com.aline.cardmicroservice.repository.IssuerIdentificationNumberRepository;
+import com.aline.cardmicroservice.service.CardBatchService;
+import com.aline.cardmicroservice.service.CardIssuerService;
+import com.aline.cardmicroservice.testsupport.CardTestData;
+import com.aline.core.dto.request.CreateDebitCardRequest;
+import com.aline.core.dto.response.CreateDebitCardResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.client.DefaultResponseErrorHandler;
+import org.springframework.web.client.RestTemplate;
+
+import javax.persistence.EntityManager;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs a mix of issuance, activation and card reads against the service on
+ * a random port with an in-memory database, then fails if a latency budget or
+ * the error rate is exceeded.
+ * Run with {@code mvn -pl card-loadtest -am verify -Dloadtest=true}.
+ */
+@SpringBootTest(classes = CardMicroserviceApplication.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles({"test", "loadtest"})
+@Import(LoadTestConfig.class)
+@EnabledIfSystemProperty(named = "loadtest", matches = "true")
+@Slf4j
+class CardLoadTest {
+
+    private static final int SEED_BATCH = 1000;
+
+    @LocalServerPort
+    int port;
+
+    @Autowired
+    LoadTestProperties properties;
+    @Autowired
+    RestTemplateBuilder restTemplateBuilder;
+    @Autowired
+    CardBatchService cardBatchService;
+    @Autowired
+    CardIssuerService cardIssuerService;
+    @Autowired
+    EntityManager entityManager;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+    @Autowired
+    CardIssuerRepository cardIssuerRepository;
+    @Autowired
+    IssuerIdentificationNumberRepository iinRepository;
+
+    CardTestData testData;
+    RestTemplate client;
+
+    @BeforeEach
+    void setUp() {
+        testData = new CardTestData(entityManager, transactionTemplate, cardIssuerRepository, iinRepository);
+        testData.seedIssuer("VISA", "412345", 16);
+        cardIssuerService.invalidate();
+        client = restTemplateBuilder
+                .rootUri("http://localhost:" + port)
+                .errorHandler(new DefaultResponseErrorHandler() {
+                    @Override
+                    public boolean hasError(ClientHttpResponse response) {
+                        // Failures are counted from the status code
+                        return false;
+                    }
+                })
+                .build();
+    }
+
+    @Test
+    void cardTrafficStaysWithinBudgets() throws Exception {
+        List<Long> readIds = seedReadCards();
+        List<CreateDebitCardRequest> issueRequests = testData.seedMemberAccounts("I", properties.getIssueMembers());
+        Queue<CreateDebitCardResponse> inactiveCards = new ConcurrentLinkedQueue<>(issue(
+                testData.seedMemberAccounts("A", expectedRequests(Operation.ACTIVATE))));
+        log.info("Seeded {} card(s) to read, {} member(s) to issue to and {} card(s) to activate.",
+                readIds.size(), issueRequests.size(), inactiveCards.size());
+
+        AtomicLong reads = new AtomicLong();
+        AtomicLong issues = new AtomicLong();
+        Map<Operation, Predicate<Operation>> calls = new EnumMap<>(Operation.class);
+        calls.put(Operation.READ, operation -> read(readIds.get((int) (reads.getAndIncrement() % readIds.size()))));
+        calls.put(Operation.ISSUE, operation -> issue(issueRequests.get((int) (issues.getAndIncrement() % issueRequests.size()))));
+        calls.put(Operation.ACTIVATE, operation -> {
+            CreateDebitCardResponse card = inactiveCards.poll();
+            if (card == null)
+                throw new IllegalStateException("Ran out of seeded cards to activate.");
+            return activate(card);
+        });
+
+        Map<Operation, LoadGenerator.Result> results = new LoadGenerator(properties, calls).run();
+
+        LoadReport report = new LoadReport(properties, results);
+        log.info("Load test results over {} s:{}", properties.getDuration().getSeconds(), report.summary());
+        report.writeDistributions();
+        List<String> violations = report.violations();
+        assertTrue(violations.isEmpty(), String.join("\n", violations));
+    }
+
+    private boolean read(Long id) {
+        return client.getForEntity("/cards/{id}", String.class, id).getStatusCode().is2xxSuccessful();
+    }
+
+    /**
+     * Issue with replacement, so every member can be issued to any number of times.
+     */
+    private boolean issue(CreateDebitCardRequest seeded) {
+        Map<String, Object> body = new HashMap<>();
+        body.put("accountNumber", seeded.getAccountNumber());
+        body.put("membershipId", seeded.getMembershipId());
+        body.put("replacement", true);
+        return client.exchange("/cards/debit", HttpMethod.POST, new HttpEntity<>(body), String.class)
+                .getStatusCode().is2xxSuccessful();
+    }
+
+    /**
+     * Seeded members were born on 1990-01-01 and the last four digits of their
+     * social security number are the last four of their membership id.
+     */
+    private boolean activate(CreateDebitCardResponse card) {
+        String membershipId = card.getCardHolderId();
+        Map<String, Object> body = new HashMap<>();
+        body.put("cardNumber", card.getCardNumber());
+        body.put("securityCode", card.getSecurityCode());
+        body.put("expirationDate", card.getExpirationDate().toString());
+        body.put("dateOfBirth", "1990-01-01");
+        body.put("lastFourOfSSN", membershipId.substring(membershipId.length() - 4));
+        return client.exchange("/cards/activation", HttpMethod.POST, new HttpEntity<>(body), String.class)
+                .getStatusCode().is2xxSuccessful();
+    }
+
+    private List<Long> seedReadCards() {
+        issue(testData.seedMemberAccounts("R", properties.getReadCards()));
+        return entityManager.createQuery(
+                        "SELECT c.id FROM Card c WHERE c.cardHolder.membershipId LIKE 'R%'", Long.class)
+                .getResultList();
+    }
+
+    /**
+     * Issue cards through bulk issuance as an administrator.
+     */
+    private List<CreateDebitCardResponse> issue(List<CreateDebitCardRequest> requests) {
+        SecurityContextHolder.getContext().setAuthentication(LoadTestConfig.administrator());
+        try {
+            List<CreateDebitCardResponse> cards = new ArrayList<>(requests.size());
+            for (int from = 0; from < requests.size(); from += SEED_BATCH) {
+                CreateDebitCardBatchResponse response = cardBatchService.createDebitCards(
+                        requests.subList(from, Math.min(from + SEED_BATCH, requests.size())));
+                cards.addAll(response.getResults().stream()
+                        .filter(item -> item.getStatus() == CreateDebitCardBatchResponse.Status.CREATED)
+                        .map(CreateDebitCardBatchResponse.Item::getCard)
+                        .collect(Collectors.toList()));
+            }
+            return cards;
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    /**
+     * Requests of an operation the run sends at most, with headroom for the random mix.
+     */
+    private int expectedRequests(Operation operation) {
+        LoadTestProperties.OperationSettings settings = properties.getOperations().get(operation);
+        if (settings == null || settings.getWeight() == 0)
+            return 0;
+        int totalWeight = properties.getOperations().values().stream()
+                .mapToInt(LoadTestProperties.OperationSettings::getWeight)
+                .sum();
+        Duration length = properties.getWarmup().plus(properties.getDuration());
+        double expected = properties.getRate() * length.getSeconds() * settings.getWeight() / totalWeight;
+        return (int) Math.ceil(expected * 1.2) + 100;
+    }
+
+}
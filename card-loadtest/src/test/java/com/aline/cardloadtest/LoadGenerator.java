@@ -0,0 +1,139 @@
+package com.aline.cardloadtest;
+
+import lombok.extern.slf4j.Slf4j;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Predicate;
+
+/**
+ * Open-loop load generator.
+ * <p>
+ * Requests are scheduled at a fixed rate and handed to a pool of client
+ * threads. Latency is measured from when a request was scheduled to start,
+ * not from when a thread got to it. A closed loop only sends the next request
+ * after the last one returned, so a stalled service also stalls the load and
+ * the stall is recorded once instead of for every request that should have
+ * been sent meanwhile.
+ */
+@Slf4j
+class LoadGenerator {
+
+    private final LoadTestProperties properties;
+    private final Map<Operation, Predicate<Operation>> calls;
+    private final Operation[] mix;
+
+    LoadGenerator(LoadTestProperties properties, Map<Operation, Predicate<Operation>> calls) {
+        this.properties = properties;
+        this.calls = calls;
+        this.mix = mixOf(properties);
+    }
+
+    /**
+     * Run the warmup and the measured load.
+     *
+     * @return Latencies in nanoseconds and error counts of the requests scheduled after the warmup.
+     */
+    Map<Operation, Result> run() throws InterruptedException {
+        Map<Operation, Recorder> recorders = new EnumMap<>(Operation.class);
+        Map<Operation, LongAdder> errors = new EnumMap<>(Operation.class);
+        for (Operation operation : Operation.values()) {
+            recorders.put(operation, new Recorder(3));
+            errors.put(operation, new LongAdder());
+        }
+
+        long period = (long) (TimeUnit.SECONDS.toNanos(1) / properties.getRate());
+        long warmup = properties.getWarmup().toNanos();
+        long requests = (warmup + properties.getDuration().toNanos()) / period;
+        Random random = new Random(42);
+
+        ExecutorService clients = Executors.newFixedThreadPool(properties.getConcurrency());
+        log.info("Sending {} requests at {}/s to {} client thread(s).", requests, properties.getRate(), properties.getConcurrency());
+        long start = System.nanoTime();
+        try {
+            for (long i = 0; i < requests; i++) {
+                long scheduled = start + i * period;
+                boolean measured = i * period >= warmup;
+                Operation operation = mix[random.nextInt(mix.length)];
+                parkUntil(scheduled);
+                clients.execute(() -> {
+                    boolean ok;
+                    try {
+                        ok = calls.get(operation).test(operation);
+                    } catch (RuntimeException e) {
+                        log.debug("{} request failed.", operation, e);
+                        ok = false;
+                    }
+                    if (!measured)
+                        return;
+                    recorders.get(operation).recordValue(System.nanoTime() - scheduled);
+                    if (!ok)
+                        errors.get(operation).increment();
+                });
+            }
+        } finally {
+            clients.shutdown();
+        }
+        if (!clients.awaitTermination(5, TimeUnit.MINUTES))
+            throw new IllegalStateException("Requests were still running five minutes after the load ended.");
+
+        double seconds = properties.getDuration().toNanos() / 1e9;
+        Map<Operation, Result> results = new EnumMap<>(Operation.class);
+        for (Operation operation : Operation.values()) {
+            results.put(operation, new Result(recorders.get(operation).getIntervalHistogram(),
+                    errors.get(operation).sum(), seconds));
+        }
+        return results;
+    }
+
+    /**
+     * Each operation appears as often as its weight, so a uniform pick follows the weights.
+     */
+    private static Operation[] mixOf(LoadTestProperties properties) {
+        List<Operation> mix = new ArrayList<>();
+        properties.getOperations().forEach((operation, settings) -> {
+            for (int i = 0; i < settings.getWeight(); i++)
+                mix.add(operation);
+        });
+        if (mix.isEmpty())
+            throw new IllegalArgumentException("At least one operation needs a positive weight.");
+        return mix.toArray(new Operation[0]);
+    }
+
+    private static void parkUntil(long deadline) {
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0)
+            LockSupport.parkNanos(remaining);
+    }
+
+    static class Result {
+        final Histogram latencies;
+        final long errors;
+        final double seconds;
+
+        Result(Histogram latencies, long errors, double seconds) {
+            this.latencies = latencies;
+            this.errors = errors;
+            this.seconds = seconds;
+        }
+
+        double errorRate() {
+            return latencies.getTotalCount() == 0 ? 0 : (double) errors / latencies.getTotalCount();
+        }
+
+        double throughput() {
+            return latencies.getTotalCount() / seconds;
+        }
+    }
+
+}
@@ -0,0 +1,90 @@
+package com.aline.cardloadtest;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Summary table, percentile files and latency budget checks of a load test run.
+ */
+class LoadReport {
+
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+    private final LoadTestProperties properties;
+    private final Map<Operation, LoadGenerator.Result> results;
+
+    LoadReport(LoadTestProperties properties, Map<Operation, LoadGenerator.Result> results) {
+        this.properties = properties;
+        this.results = results;
+    }
+
+    String summary() {
+        StringBuilder summary = new StringBuilder(String.format("%n%-9s %9s %9s %8s %9s %9s %9s %9s %9s%n",
+                "operation", "requests", "req/s", "errors", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms"));
+        results.forEach((operation, result) -> summary.append(String.format("%-9s %9d %9.1f %8d %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                operation,
+                result.latencies.getTotalCount(),
+                result.throughput(),
+                result.errors,
+                millis(result, 50.0),
+                millis(result, 90.0),
+                millis(result, 99.0),
+                millis(result, 99.9),
+                result.latencies.getMaxValue() / NANOS_PER_MILLI)));
+        return summary.toString();
+    }
+
+    /**
+     * Write each operation's percentile distribution in milliseconds, which
+     * the HdrHistogram plotter reads.
+     */
+    void writeDistributions() throws IOException {
+        Path directory = Files.createDirectories(Paths.get(properties.getReportDirectory()));
+        for (Map.Entry<Operation, LoadGenerator.Result> entry : results.entrySet()) {
+            Path file = directory.resolve(entry.getKey().name().toLowerCase() + ".hgrm");
+            try (PrintStream out = new PrintStream(Files.newOutputStream(file), false, "UTF-8")) {
+                entry.getValue().latencies.outputPercentileDistribution(out, NANOS_PER_MILLI);
+            }
+        }
+    }
+
+    /**
+     * @return A line for every exceeded budget and error rate, empty when the run passed.
+     */
+    List<String> violations() {
+        List<String> violations = new ArrayList<>();
+        results.forEach((operation, result) -> {
+            LoadTestProperties.OperationSettings settings = properties.getOperations().get(operation);
+            if (settings == null || result.latencies.getTotalCount() == 0)
+                return;
+            checkBudget(violations, operation, result, 50.0, settings.getP50Budget());
+            checkBudget(violations, operation, result, 99.0, settings.getP99Budget());
+            checkBudget(violations, operation, result, 99.9, settings.getP999Budget());
+            if (result.errorRate() > properties.getMaxErrorRate())
+                violations.add(String.format("%s error rate %.4f is above %.4f", operation, result.errorRate(), properties.getMaxErrorRate()));
+        });
+        return violations;
+    }
+
+    private static void checkBudget(List<String> violations, Operation operation, LoadGenerator.Result result,
+                                    double percentile, Duration budget) {
+        if (budget == null)
+            return;
+        long actual = result.latencies.getValueAtPercentile(percentile);
+        if (actual > budget.toNanos())
+            violations.add(String.format("%s p%s %.2f ms is above the %d ms budget",
+                    operation, percentile, actual / NANOS_PER_MILLI, budget.toMillis()));
+    }
+
+    private static double millis(LoadGenerator.Result result, double percentile) {
+        return result.latencies.getValueAtPercentile(percentile) / NANOS_PER_MILLI;
+    }
+
+}
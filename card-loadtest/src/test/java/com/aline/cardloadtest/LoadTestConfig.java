@@ -0,0 +1,88 @@
+package com.aline.cardloadtest;
+
+import com.aline.cardmicroservice.authorization.CardAuthorizer;
+import com.aline.cardmicroservice.authorization.MemberAuthorizationCache;
+import com.aline.cardmicroservice.repository.AccountLookupRepository;
+import com.aline.core.aws.email.EmailService;
+import com.aline.core.model.user.UserRole;
+import org.mockito.Mockito;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+@TestConfiguration
+@EnableConfigurationProperties(LoadTestProperties.class)
+public class LoadTestConfig {
+
+    /**
+     * Every request is made by an administrator, so requests are not rejected
+     * for lack of a member token.
+     */
+    @Bean("authService")
+    public CardAuthorizer authService(MemberAuthorizationCache cache, AccountLookupRepository accountLookupRepository) {
+        return new AdministratorCardAuthorizer(cache, accountLookupRepository);
+    }
+
+    /**
+     * Card emails are rendered but not sent. The stub does not record calls,
+     * so it does not grow with the number of requests.
+     */
+    @Bean
+    @Primary
+    public EmailService loadTestEmailService() {
+        return Mockito.mock(EmailService.class, Mockito.withSettings().stubOnly());
+    }
+
+    /**
+     * Authenticates each request after the security filter chain, which is disabled under the test profile.
+     */
+    @Bean
+    public FilterRegistrationBean<OncePerRequestFilter> loadTestAuthenticationFilter() {
+        FilterRegistrationBean<OncePerRequestFilter> registration = new FilterRegistrationBean<>(new OncePerRequestFilter() {
+            @Override
+            protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+                    throws ServletException, IOException {
+                SecurityContextHolder.getContext().setAuthentication(administrator());
+                try {
+                    chain.doFilter(request, response);
+                } finally {
+                    SecurityContextHolder.clearContext();
+                }
+            }
+        });
+        registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER + 1);
+        return registration;
+    }
+
+    static TestingAuthenticationToken administrator() {
+        TestingAuthenticationToken authentication = new TestingAuthenticationToken("loadtest", null, "ROLE_ADMINISTRATOR");
+        authentication.setAuthenticated(true);
+        return authentication;
+    }
+
+    static class AdministratorCardAuthorizer extends CardAuthorizer {
+
+        AdministratorCardAuthorizer(MemberAuthorizationCache cache, AccountLookupRepository accountLookupRepository) {
+            super(cache, accountLookupRepository);
+        }
+
+        @Override
+        public UserRole getRole() {
+            return UserRole.ADMINISTRATOR;
+        }
+
+    }
+
+}
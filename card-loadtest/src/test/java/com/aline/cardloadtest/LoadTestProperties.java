@@ -0,0 +1,72 @@
+package com.aline.cardloadtest;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Load test settings. Any of them can be overridden with a system property,
+ * for example {@code -Dloadtest.rate=500}.
+ */
+@Data
+@ConfigurationProperties(prefix = "loadtest")
+public class LoadTestProperties {
+
+    /**
+     * Requests started per second. Requests start on schedule whether or not
+     * earlier ones finished, so a slow service shows up as latency.
+     */
+    private double rate = 200;
+
+    /**
+     * Load before measuring. Requests started during the warmup are not recorded.
+     */
+    private Duration warmup = Duration.ofSeconds(10);
+
+    private Duration duration = Duration.ofSeconds(60);
+
+    /**
+     * Client threads. Requests that wait for a thread count that wait as latency.
+     */
+    private int concurrency = 64;
+
+    /**
+     * Cards seeded for reads.
+     */
+    private int readCards = 1000;
+
+    /**
+     * Members seeded with a checking account for issuance.
+     */
+    private int issueMembers = 1000;
+
+    /**
+     * Largest fraction of failed requests per operation.
+     */
+    private double maxErrorRate = 0.001;
+
+    /**
+     * Where the percentile distribution of each operation is written.
+     */
+    private String reportDirectory = "target/loadtest";
+
+    private Map<Operation, OperationSettings> operations = new EnumMap<>(Operation.class);
+
+    @Data
+    public static class OperationSettings {
+
+        /**
+         * Share of the mix relative to the other operations' weights.
+         */
+        private int weight;
+
+        private Duration p50Budget;
+        private Duration p99Budget;
+        private Duration p999Budget;
+
+    }
+
+}
@@ -0,0 +1,19 @@
+package com.aline.cardloadtest;
+
+/**
+ * Requests in the load mix.
+ */
+public enum Operation {
+    /**
+     * POST /cards/debit, replacing the member's card.
+     */
+    ISSUE,
+    /**
+     * POST /cards/activation of a card issued while seeding.
+     */
+    ACTIVATE,
+    /**
+     * GET /cards/{id}.
+     */
+    READ
+}
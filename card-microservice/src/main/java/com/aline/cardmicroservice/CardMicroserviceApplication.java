@@ -5,9 +5,11 @@ import io.swagger.v3.oas.annotations.OpenAPIDefinition;
 import io.swagger.v3.oas.annotations.info.Info;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
 
 @SpringBootApplication
 @EnableCoreModule
+@EntityScan(basePackages = {"com.aline.core.model", "com.aline.cardmicroservice.model"})
 @OpenAPIDefinition(info =
 @Info(
         title = "Microservice Template",
@@ -0,0 +1,46 @@
+package com.aline.cardmicroservice.actuator;
+
+import com.aline.cardmicroservice.filter.ConcurrencyLimitFilter;
+import com.aline.cardmicroservice.util.AimdLimiter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Exposes the current concurrency limits and rejections at {@code /actuator/concurrencylimits}.
+ */
+@Component
+@Endpoint(id = "concurrencylimits")
+@RequiredArgsConstructor
+public class ConcurrencyLimitEndpoint {
+
+    private final ConcurrencyLimitFilter filter;
+
+    @ReadOperation
+    public Map<String, Object> limits() {
+        Map<String, Object> groups = new LinkedHashMap<>();
+        filter.getLimiters().forEach((group, limiter) -> groups.put(group, stats(group, limiter)));
+
+        Map<String, Object> rateLimit = new LinkedHashMap<>();
+        rateLimit.put("trackedSources", filter.getTrackedSources());
+        rateLimit.put("rejected", (long) filter.getRateRejectedCount());
+
+        Map<String, Object> limits = new LinkedHashMap<>();
+        limits.put("groups", groups);
+        limits.put("activationRateLimit", rateLimit);
+        return limits;
+    }
+
+    private Map<String, Object> stats(String group, AimdLimiter limiter) {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("limit", limiter.getLimit());
+        stats.put("inFlight", limiter.getInFlight());
+        stats.put("rejected", (long) filter.getRejectedCount(group));
+        return stats;
+    }
+
+}
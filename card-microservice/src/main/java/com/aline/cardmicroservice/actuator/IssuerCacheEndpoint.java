@@ -0,0 +1,39 @@
+package com.aline.cardmicroservice.actuator;
+
+import com.aline.cardmicroservice.service.CardIssuerService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Exposes the card issuer cache at {@code /actuator/issuercache}.
+ * A DELETE request invalidates and reloads the cache.
+ */
+@Component
+@Endpoint(id = "issuercache")
+@RequiredArgsConstructor
+public class IssuerCacheEndpoint {
+
+    private final CardIssuerService cardIssuerService;
+
+    @ReadOperation
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("issuers", cardIssuerService.getCachedIssuerCount());
+        stats.put("iins", cardIssuerService.getCachedIinCount());
+        stats.put("hits", cardIssuerService.getCacheHits());
+        stats.put("misses", cardIssuerService.getCacheMisses());
+        return stats;
+    }
+
+    @DeleteOperation
+    public void invalidate() {
+        cardIssuerService.invalidate();
+    }
+
+}
@@ -1,27 +1,30 @@
 package com.aline.cardmicroservice.authorization;
 
+import com.aline.cardmicroservice.model.CardIssuanceRequest;
+import com.aline.cardmicroservice.repository.AccountLookupRepository;
 import com.aline.core.dto.request.CreateDebitCardRequest;
 import com.aline.core.model.Member;
-import com.aline.core.model.account.Account;
 import com.aline.core.model.card.Card;
 import com.aline.core.model.user.MemberUser;
 import com.aline.core.model.user.UserRole;
 import com.aline.core.security.service.AbstractAuthorizationService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 
-import java.util.Set;
-import java.util.stream.Collectors;
-
 @Component("authService")
 @RequiredArgsConstructor
 public class CardAuthorizer extends AbstractAuthorizationService<Card> {
 
+    private final MemberAuthorizationCache memberAuthorizationCache;
+    private final AccountLookupRepository accountLookupRepository;
+
     @Override
     public boolean canAccess(Card card) {
         if (getRole() == UserRole.MEMBER) {
-            MemberUser user = (MemberUser) getUser();
-            return user.getMember().getMembershipId().equals(card.getCardHolder().getMembershipId());
+            // Compare ids so the card holder proxy is not initialized
+            return getMemberAuthorization().getMemberId().equals(card.getCardHolder().getId());
         }
         return roleIsManagement();
     }
@@ -31,8 +34,7 @@ public class CardAuthorizer extends AbstractAuthorizationService<Card> {
             return false;
 
         if (getRole() == UserRole.MEMBER) {
-            MemberUser user = (MemberUser) getUser();
-            return user.getMember().getId().equals(memberId);
+            return getMemberAuthorization().getMemberId().equals(memberId);
         }
 
         return roleIsManagement();
@@ -43,17 +45,67 @@ public class CardAuthorizer extends AbstractAuthorizationService<Card> {
         String membershipId = cardRequest.getMembershipId();
 
         if (getRole() == UserRole.MEMBER) {
-            MemberUser user = (MemberUser) getUser();
-            Member member = user.getMember();
-            Set<Account> accounts = member.getAccounts();
-            return member.getMembershipId().equals(membershipId) &&
-                    accounts.stream()
-                            .map(Account::getAccountNumber)
-                            .collect(Collectors.toSet())
-                            .contains(accountNumber);
+            MemberAuthorization authorization = getMemberAuthorization();
+            return authorization.getMembershipId().equals(membershipId) &&
+                    authorization.getAccountNumbers().contains(accountNumber);
         }
 
         return roleIsManagement();
     }
 
+    public boolean canAccessIssuance(CardIssuanceRequest issuance) {
+        if (getRole() == UserRole.MEMBER) {
+            return getMemberAuthorization().getMembershipId().equals(issuance.getMembershipId());
+        }
+        return roleIsManagement();
+    }
+
+    public boolean canLookUpCards() {
+        return getRole() == UserRole.MEMBER || roleIsManagement();
+    }
+
+    /**
+     * Member id that card lookups must be restricted to.
+     *
+     * @return The caller's member id for MEMBER callers, or null for management roles.
+     */
+    public Long getCardOwnerRestriction() {
+        if (getRole() == UserRole.MEMBER)
+            return getMemberAuthorization().getMemberId();
+        if (roleIsManagement())
+            return null;
+        throw new AccessDeniedException("Not allowed to look up cards.");
+    }
+
+    public boolean canIssueInBulk() {
+        return roleIsManagement();
+    }
+
+    public boolean canReadJournal() {
+        return roleIsManagement();
+    }
+
+    public boolean canExportCards() {
+        return roleIsManagement();
+    }
+
+    /**
+     * Authorization facts for the current member, loaded once per principal
+     * and then served from {@link MemberAuthorizationCache}.
+     */
+    protected MemberAuthorization getMemberAuthorization() {
+        return memberAuthorizationCache.get(getPrincipalName(), principal -> {
+            MemberUser user = (MemberUser) getUser();
+            Member member = user.getMember();
+            return new MemberAuthorization(
+                    member.getId(),
+                    member.getMembershipId(),
+                    accountLookupRepository.findAccountNumbersByMemberId(member.getId()));
+        });
+    }
+
+    protected String getPrincipalName() {
+        return SecurityContextHolder.getContext().getAuthentication().getName();
+    }
+
 }
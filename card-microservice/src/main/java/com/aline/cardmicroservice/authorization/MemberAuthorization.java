@@ -0,0 +1,19 @@
+package com.aline.cardmicroservice.authorization;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Set;
+
+/**
+ * The facts about a member that card authorization checks rely on.
+ */
+@Getter
+@AllArgsConstructor
+public class MemberAuthorization {
+
+    private final Long memberId;
+    private final String membershipId;
+    private final Set<String> accountNumbers;
+
+}
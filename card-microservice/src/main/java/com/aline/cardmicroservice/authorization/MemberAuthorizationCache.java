@@ -0,0 +1,41 @@
+package com.aline.cardmicroservice.authorization;
+
+import com.aline.cardmicroservice.config.AuthorizationCacheProperties;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Function;
+
+/**
+ * Bounded, expiring cache of {@link MemberAuthorization} keyed by the authenticated principal.
+ * Issuing or changing cards does not change these facts, so card changes do
+ * not evict entries.
+ */
+@Component
+@Slf4j
+public class MemberAuthorizationCache {
+
+    private final Cache<String, MemberAuthorization> cache;
+
+    public MemberAuthorizationCache(AuthorizationCacheProperties properties, MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxSize())
+                .expireAfterWrite(properties.getTtl())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "card.authorization");
+    }
+
+    public MemberAuthorization get(String principal, Function<String, MemberAuthorization> loader) {
+        return cache.get(principal, loader);
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+}
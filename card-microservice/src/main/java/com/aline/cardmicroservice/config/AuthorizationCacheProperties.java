@@ -0,0 +1,21 @@
+package com.aline.cardmicroservice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.card.authorization-cache")
+public class AuthorizationCacheProperties {
+
+    private long maxSize = 10_000;
+
+    /**
+     * Bounds how long account changes made outside this service go unnoticed.
+     */
+    private Duration ttl = Duration.ofSeconds(60);
+
+}
@@ -0,0 +1,22 @@
+package com.aline.cardmicroservice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.card.batch")
+public class CardBatchProperties {
+
+    /**
+     * Card requests processed per transaction.
+     */
+    private int chunkSize = 500;
+
+    /**
+     * Largest batch accepted by a single request.
+     */
+    private int maxItems = 10000;
+
+}
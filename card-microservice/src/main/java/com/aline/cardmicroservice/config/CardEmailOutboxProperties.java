@@ -0,0 +1,38 @@
+package com.aline.cardmicroservice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.card.email-outbox")
+public class CardEmailOutboxProperties {
+
+    /**
+     * Maximum number of messages claimed per poll, and claimed but not yet delivered.
+     */
+    private int batchSize = 50;
+
+    /**
+     * Maximum number of emails sent at the same time.
+     */
+    private int concurrency = 4;
+
+    /**
+     * Attempts before a message is dead-lettered.
+     */
+    private int maxAttempts = 6;
+
+    private Duration initialBackoff = Duration.ofSeconds(10);
+
+    private Duration maxBackoff = Duration.ofMinutes(30);
+
+    /**
+     * How long a message may stay claimed before it is considered abandoned.
+     */
+    private Duration claimTimeout = Duration.ofMinutes(5);
+
+}
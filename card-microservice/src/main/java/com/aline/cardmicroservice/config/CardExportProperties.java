@@ -0,0 +1,19 @@
+package com.aline.cardmicroservice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.card.export")
+public class CardExportProperties {
+
+    /**
+     * Rows written between persistence context clears and output flushes.
+     */
+    private int flushEvery = 1000;
+
+    private int bufferSize = 64 * 1024;
+
+}
@@ -0,0 +1,38 @@
+package com.aline.cardmicroservice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.card.fingerprint")
+public class CardFingerprintProperties {
+
+    /**
+     * HMAC key used to fingerprint card numbers.
+     */
+    private String secretKey;
+
+    /**
+     * Number of cards the Bloom filter is sized for.
+     */
+    private long expectedCards = 10_000_000L;
+
+    private double falsePositiveRate = 0.001;
+
+    /**
+     * How often fingerprints issued by other instances are merged into the Bloom filter.
+     */
+    private Duration syncInterval = Duration.ofSeconds(30);
+
+    /**
+     * How long after a higher card id was synced a card may still commit and be
+     * merged. Cards that may have been issued within it are looked up in the
+     * database when the Bloom filter misses.
+     */
+    private Duration lateCommitWindow = Duration.ofMinutes(10);
+
+}
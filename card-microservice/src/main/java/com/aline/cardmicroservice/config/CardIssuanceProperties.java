@@ -0,0 +1,41 @@
+package com.aline.cardmicroservice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.card.issuance")
+public class CardIssuanceProperties {
+
+    /**
+     * Cards issued at the same time by asynchronous issuance workers.
+     */
+    private int workers = 4;
+
+    /**
+     * Queued requests beyond which new asynchronous requests are rejected.
+     */
+    private long maxQueueDepth = 10000;
+
+    /**
+     * Attempts before a request that failed unexpectedly is marked as failed.
+     */
+    private int maxAttempts = 3;
+
+    /**
+     * How long a request may stay claimed before it is considered abandoned and requeued.
+     */
+    private Duration claimTimeout = Duration.ofMinutes(5);
+
+    private Duration pollInterval = Duration.ofMillis(500);
+
+    /**
+     * Locks used to serialize issuance per member and account on an instance.
+     */
+    private int lockStripes = 256;
+
+}
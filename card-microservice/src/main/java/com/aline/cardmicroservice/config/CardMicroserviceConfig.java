@@ -1,15 +1,94 @@
 package com.aline.cardmicroservice.config;
 
-import org.modelmapper.ModelMapper;
+import com.aline.cardmicroservice.filter.ConcurrencyLimitFilter;
+import com.aline.cardmicroservice.util.SecureDigitGenerator;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 @Configuration
+@EnableScheduling
 public class CardMicroserviceConfig {
 
     @Bean
-    public ModelMapper modelMapper() {
-        return new ModelMapper();
+    public SecureDigitGenerator secureDigitGenerator(SecureDigitProperties properties) {
+        return new SecureDigitGenerator(properties.getStripes(), properties.getBufferSize(), properties.getReseedAfterBytes());
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor cardEmailExecutor(CardEmailOutboxProperties properties) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(properties.getConcurrency());
+        executor.setMaxPoolSize(properties.getConcurrency());
+        executor.setQueueCapacity(properties.getBatchSize());
+        executor.setThreadNamePrefix("card-email-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        return executor;
+    }
+
+    /**
+     * Reserves card number blocks off the issuing threads.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor cardNumberBlockExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(2);
+        executor.setThreadNamePrefix("card-number-block-");
+        return executor;
+    }
+
+    /**
+     * Increments card versions after activations commit.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor cardVersionExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setThreadNamePrefix("card-version-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        return executor;
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor cardIssuanceExecutor(CardIssuanceProperties properties) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(properties.getWorkers());
+        executor.setMaxPoolSize(properties.getWorkers());
+        executor.setQueueCapacity(properties.getWorkers());
+        executor.setThreadNamePrefix("card-issuance-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        return executor;
+    }
+
+    /**
+     * Runs reissue partitions. Without a queue, a partition is only leased when a thread is free.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor cardReissueExecutor(CardReissueProperties properties) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(properties.getConcurrency());
+        executor.setMaxPoolSize(properties.getConcurrency());
+        executor.setQueueCapacity(0);
+        executor.setThreadNamePrefix("card-reissue-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(60);
+        return executor;
+    }
+
+    /**
+     * Shed load before the security filter chain so rejected requests cost as little as possible.
+     */
+    @Bean
+    public FilterRegistrationBean<ConcurrencyLimitFilter> concurrencyLimitFilterRegistration(ConcurrencyLimitFilter filter) {
+        FilterRegistrationBean<ConcurrencyLimitFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.addUrlPatterns("/cards/*");
+        registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER - 1);
+        return registration;
     }
 
 }
@@ -0,0 +1,23 @@
+package com.aline.cardmicroservice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.card.number-allocator")
+public class CardNumberAllocatorProperties {
+
+    /**
+     * Account identifiers reserved per database round trip.
+     */
+    private long blockSize = 1000;
+
+    /**
+     * Key for the permutation that scatters allocated account identifiers.
+     * Must be the same on every instance and must never change once cards are issued.
+     */
+    private long permutationKey;
+
+}
@@ -0,0 +1,49 @@
+package com.aline.cardmicroservice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.card.reissue")
+public class CardReissueProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * Cards expiring within this many days are reissued.
+     */
+    private int lookaheadDays = 30;
+
+    /**
+     * Each run is split into this many partitions by card id.
+     * Changing it only takes effect on the next day's run.
+     */
+    private int partitions = 16;
+
+    /**
+     * Partitions processed at the same time on each instance.
+     */
+    private int concurrency = 4;
+
+    /**
+     * Cards reissued per transaction.
+     */
+    private int chunkSize = 200;
+
+    /**
+     * How long a partition stays leased to an instance without a checkpoint.
+     */
+    private Duration leaseDuration = Duration.ofMinutes(5);
+
+    private Duration pollInterval = Duration.ofMinutes(5);
+
+    /**
+     * How long finished runs are kept.
+     */
+    private Duration runRetention = Duration.ofDays(30);
+
+}
@@ -0,0 +1,34 @@
+package com.aline.cardmicroservice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.card.response-cache")
+public class CardResponseCacheProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * Card responses kept, one per principal and card.
+     */
+    private long maxSize = 10_000;
+
+    /**
+     * Bounds how long a principal keeps reading a card without its access being checked again.
+     */
+    private Duration ttl = Duration.ofSeconds(60);
+
+    private long versionIndexSize = 100_000;
+
+    /**
+     * Bounds how long a change made by another instance goes unnoticed.
+     * Changes made by this instance are seen as soon as they commit.
+     */
+    private Duration versionTtl = Duration.ofSeconds(5);
+
+}
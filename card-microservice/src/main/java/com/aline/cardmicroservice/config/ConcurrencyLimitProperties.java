@@ -0,0 +1,58 @@
+package com.aline.cardmicroservice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.card.concurrency")
+public class ConcurrencyLimitProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * Limits per endpoint group. Groups that are not configured use the defaults.
+     */
+    private Map<String, Limit> groups = new LinkedHashMap<>();
+
+    private RateLimit activationRateLimit = new RateLimit();
+
+    /**
+     * Use the first X-Forwarded-For address as the request source.
+     * Only enable behind a proxy that sets the header.
+     */
+    private boolean trustForwardedFor = false;
+
+    public Limit getLimit(String group) {
+        return groups.getOrDefault(group, new Limit());
+    }
+
+    @Data
+    public static class Limit {
+        private int initialLimit = 20;
+        private int minLimit = 2;
+        private int maxLimit = 200;
+        private Duration latencyTarget = Duration.ofMillis(500);
+        private double backoffRatio = 0.9;
+    }
+
+    @Data
+    public static class RateLimit {
+        private boolean enabled = true;
+        /**
+         * Burst size per source.
+         */
+        private int capacity = 10;
+        private double refillPerSecond = 1;
+        /**
+         * Sources tracked at once. The least recently seen are forgotten first.
+         */
+        private long maxSources = 100_000;
+    }
+
+}
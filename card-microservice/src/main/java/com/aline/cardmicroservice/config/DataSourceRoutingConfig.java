@@ -0,0 +1,70 @@
+package com.aline.cardmicroservice.config;
+
+import com.aline.cardmicroservice.datasource.RecentWriteTracker;
+import com.aline.cardmicroservice.datasource.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+/**
+ * Primary and replica connection pools behind a routing data source.
+ * Both pools are beans, so their Hikari metrics are published with
+ * the pool name as a tag.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "app.card.datasource.replica", name = "enabled", havingValue = "true")
+public class DataSourceRoutingConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        dataSource.setPoolName("card-primary");
+        return dataSource;
+    }
+
+    @Bean
+    public HikariDataSource replicaDataSource(DataSourceRoutingProperties properties) {
+        DataSourceRoutingProperties.Replica replica = properties.getReplica();
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName("card-replica");
+        dataSource.setJdbcUrl(replica.getUrl());
+        dataSource.setUsername(replica.getUsername());
+        dataSource.setPassword(replica.getPassword());
+        if (replica.getDriverClassName() != null)
+            dataSource.setDriverClassName(replica.getDriverClassName());
+        dataSource.setMaximumPoolSize(replica.getMaximumPoolSize());
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    /**
+     * The data source used by JPA, Flyway and everything else. Connections are only
+     * routed when the first statement runs, after the transaction has started.
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primaryDataSource,
+                                 @Qualifier("replicaDataSource") DataSource replicaDataSource,
+                                 DataSourceRoutingProperties properties,
+                                 MeterRegistry meterRegistry) {
+        RecentWriteTracker recentWrites = new RecentWriteTracker(properties.getReadYourWritesWindow(),
+                properties.getMaxTrackedPrincipals());
+        ReplicaRoutingDataSource routingDataSource = new ReplicaRoutingDataSource(primaryDataSource, replicaDataSource,
+                recentWrites, meterRegistry);
+        routingDataSource.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+
+}
@@ -0,0 +1,40 @@
+package com.aline.cardmicroservice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.card.datasource")
+public class DataSourceRoutingProperties {
+
+    /**
+     * After a write, reads by the same principal stay on the primary for this long.
+     * Should cover the usual replication lag.
+     */
+    private Duration readYourWritesWindow = Duration.ofSeconds(5);
+
+    /**
+     * Principals tracked at once for read-your-writes.
+     */
+    private long maxTrackedPrincipals = 100_000;
+
+    private Replica replica = new Replica();
+
+    @Data
+    public static class Replica {
+        /**
+         * Send read-only transactions to the replica. The primary is configured with spring.datasource.
+         */
+        private boolean enabled = false;
+        private String url;
+        private String username;
+        private String password;
+        private String driverClassName;
+        private int maximumPoolSize = 20;
+    }
+
+}
@@ -0,0 +1,68 @@
+package com.aline.cardmicroservice.config;
+
+import com.aline.cardmicroservice.email.EmailTemplateCache;
+import com.aline.cardmicroservice.email.EmailTemplateStore;
+import com.aline.cardmicroservice.email.FileSystemEmailTemplateStore;
+import com.aline.cardmicroservice.email.S3EmailTemplateStore;
+import com.amazonaws.auth.AWSStaticCredentialsProvider;
+import com.amazonaws.auth.BasicAWSCredentials;
+import com.amazonaws.services.s3.AmazonS3ClientBuilder;
+import com.amazonaws.services.simpleemail.AmazonSimpleEmailService;
+import com.amazonaws.services.simpleemail.AmazonSimpleEmailServiceClientBuilder;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+
+import java.nio.file.Paths;
+
+/**
+ * Local email template cache. Enabled unless {@code app.card.email-templates.enabled} is false.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "app.card.email-templates", name = "enabled", matchIfMissing = true)
+public class EmailTemplateConfig {
+
+    @Value("${app.aws.credentials.access-key-id:}")
+    private String accessKeyId;
+
+    @Value("${app.aws.credentials.secret-access-key:}")
+    private String secretAccessKey;
+
+    @Bean
+    public EmailTemplateStore emailTemplateStore(EmailTemplateProperties properties,
+                                                 @Value("${app.aws.email.template-bucket-name}") String bucketName) {
+        if (properties.getStore() == EmailTemplateProperties.Store.FILESYSTEM) {
+            if (StringUtils.isEmpty(properties.getDirectory()))
+                throw new IllegalStateException("app.card.email-templates.directory must be set to use the filesystem template store.");
+            return new FileSystemEmailTemplateStore(Paths.get(properties.getDirectory()));
+        }
+        return new S3EmailTemplateStore(AmazonS3ClientBuilder.standard()
+                .withCredentials(credentials())
+                .withRegion(properties.getRegion())
+                .build(), bucketName);
+    }
+
+    @Bean
+    @Lazy(false)
+    public EmailTemplateCache emailTemplateCache(EmailTemplateStore store, EmailTemplateProperties properties) {
+        return new EmailTemplateCache(store,
+                StringUtils.isEmpty(properties.getDiskCacheDirectory()) ? null : Paths.get(properties.getDiskCacheDirectory()),
+                properties.getPreload());
+    }
+
+    @Bean
+    public AmazonSimpleEmailService cardEmailSes(EmailTemplateProperties properties) {
+        return AmazonSimpleEmailServiceClientBuilder.standard()
+                .withCredentials(credentials())
+                .withRegion(properties.getRegion())
+                .build();
+    }
+
+    private AWSStaticCredentialsProvider credentials() {
+        return new AWSStaticCredentialsProvider(new BasicAWSCredentials(accessKeyId, secretAccessKey));
+    }
+
+}
@@ -0,0 +1,52 @@
+package com.aline.cardmicroservice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.card.email-templates")
+public class EmailTemplateProperties {
+
+    /**
+     * Render card emails from locally cached templates. When disabled,
+     * templates are fetched by the core email service on every send.
+     */
+    private boolean enabled = true;
+
+    private Store store = Store.S3;
+
+    /**
+     * Root directory of the filesystem store. Stands in for the template bucket.
+     */
+    private String directory;
+
+    /**
+     * Optional directory for the on-disk tier. Cached templates survive restarts when set.
+     */
+    private String diskCacheDirectory;
+
+    private Duration revalidateInterval = Duration.ofMinutes(5);
+
+    /**
+     * AWS region of the template bucket.
+     */
+    private String region = "us-east-1";
+
+    /**
+     * Templates loaded at startup.
+     */
+    private List<String> preload = new ArrayList<>(Arrays.asList("card/send-card", "card/replace-card"));
+
+    public enum Store {
+        S3,
+        FILESYSTEM
+    }
+
+}
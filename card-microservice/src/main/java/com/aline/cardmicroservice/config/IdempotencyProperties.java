@@ -0,0 +1,38 @@
+package com.aline.cardmicroservice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.card.idempotency")
+public class IdempotencyProperties {
+
+    /**
+     * Completed responses kept in memory on each instance.
+     */
+    private long maxSize = 10_000;
+
+    /**
+     * How long a key is remembered after it was first used.
+     */
+    private Duration ttl = Duration.ofHours(24);
+
+    /**
+     * How long a duplicate request waits for the original to finish before it is rejected.
+     */
+    private Duration waitTimeout = Duration.ofSeconds(10);
+
+    /**
+     * How long a key may stay in progress before another request may take it over.
+     */
+    private Duration claimTimeout = Duration.ofMinutes(1);
+
+    private Duration pollInterval = Duration.ofMillis(100);
+
+    private Duration purgeInterval = Duration.ofHours(1);
+
+}
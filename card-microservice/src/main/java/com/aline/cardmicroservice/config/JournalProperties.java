@@ -0,0 +1,38 @@
+package com.aline.cardmicroservice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.card.journal")
+public class JournalProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * Directory of this instance's journal segments. Must not be shared between instances.
+     */
+    private String directory;
+
+    private long segmentSize = 64L * 1024 * 1024;
+
+    /**
+     * Segments older than this are deleted when the journal rolls.
+     */
+    private Duration retention = Duration.ofDays(7);
+
+    /**
+     * Events waiting to be written. Events are dropped and counted when it is full.
+     */
+    private int queueCapacity = 65_536;
+
+    /**
+     * Events written per flush to disk.
+     */
+    private int maxBatchSize = 1024;
+
+}
@@ -0,0 +1,27 @@
+package com.aline.cardmicroservice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.card.digits")
+public class SecureDigitProperties {
+
+    /**
+     * Independent generators digits are drawn from. Defaults to twice the number of processors.
+     */
+    private int stripes = Runtime.getRuntime().availableProcessors() * 2;
+
+    /**
+     * Random bytes drawn from a generator at a time.
+     */
+    private int bufferSize = 4096;
+
+    /**
+     * Bytes a generator produces before it is reseeded.
+     */
+    private long reseedAfterBytes = 1024 * 1024;
+
+}
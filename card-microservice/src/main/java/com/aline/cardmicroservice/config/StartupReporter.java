@@ -0,0 +1,51 @@
+package com.aline.cardmicroservice.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Reports the time from JVM start to application ready as {@code card.startup.time}.
+ * With {@code app.card.startup.exit-on-ready} the application exits once ready,
+ * which is used by the CDS archive training run.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class StartupReporter {
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.card.startup.exit-on-ready:false}")
+    private boolean exitOnReady;
+
+    private volatile long readyMillis = -1;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady(ApplicationReadyEvent event) {
+        readyMillis = ManagementFactory.getRuntimeMXBean().getUptime();
+        Gauge.builder("card.startup.time", this, StartupReporter::getReadyMillis)
+                .description("Milliseconds from JVM start until the application was ready")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+        log.info("Card microservice ready {} ms after JVM start.", readyMillis);
+
+        if (exitOnReady) {
+            log.info("Exiting after startup as requested by app.card.startup.exit-on-ready.");
+            System.exit(SpringApplication.exit(event.getApplicationContext()));
+        }
+    }
+
+    public long getReadyMillis() {
+        return readyMillis;
+    }
+
+}
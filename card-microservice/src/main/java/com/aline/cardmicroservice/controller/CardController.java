@@ -4,19 +4,42 @@ import com.aline.core.dto.request.ActivateCardRequest;
 import com.aline.core.dto.response.CardResponse;
 import com.aline.core.dto.request.CreateDebitCardRequest;
 import com.aline.core.dto.response.CreateDebitCardResponse;
-import com.aline.cardmicroservice.service.CardEmailService;
+import com.aline.cardmicroservice.dto.CardIssuanceResponse;
+import com.aline.cardmicroservice.dto.CardLifecycleEventPage;
+import com.aline.cardmicroservice.dto.CreateDebitCardBatchRequest;
+import com.aline.cardmicroservice.dto.CreateDebitCardBatchResponse;
+import com.aline.cardmicroservice.dto.CardSummaryPage;
+import com.aline.cardmicroservice.dto.VersionedCardResponse;
+import com.aline.cardmicroservice.journal.CardLifecycleJournal;
+import com.aline.cardmicroservice.model.CardIssuanceRequest;
+import com.aline.cardmicroservice.service.CardBatchService;
+import com.aline.cardmicroservice.service.CardExportService;
+import com.aline.cardmicroservice.service.CardIdempotencyService;
+import com.aline.cardmicroservice.service.CardIssuanceService;
+import com.aline.cardmicroservice.service.CardResponseCache;
 import com.aline.cardmicroservice.service.CardService;
+import com.aline.core.exception.BadRequestException;
 import com.aline.core.model.card.Card;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
+import java.io.IOException;
+import java.net.URI;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/cards")
@@ -25,34 +48,128 @@ import javax.validation.Valid;
 public class CardController {
 
     private final CardService cardService;
-    private final CardEmailService cardEmailService;
+    private final CardBatchService cardBatchService;
+    private final CardIssuanceService cardIssuanceService;
+    private final CardIdempotencyService cardIdempotencyService;
+    private final CardLifecycleJournal cardLifecycleJournal;
+    private final CardExportService cardExportService;
+    private final CardResponseCache cardResponseCache;
 
+    /**
+     * Responses carry the card's version as an ETag. A request whose
+     * If-None-Match holds the current ETag is answered with 304 Not Modified,
+     * without loading the card.
+     */
     @GetMapping("/{id}")
-    public CardResponse getCardById(@PathVariable Long id) {
-        return cardService.mapToResponse(cardService.getCardById(id));
+    public ResponseEntity<CardResponse> getCardById(@PathVariable Long id,
+                                                    @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        if (ifNoneMatch != null) {
+            String eTag = cardResponseCache.getMatchingETag(id, ifNoneMatch);
+            if (eTag != null)
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+        }
+        VersionedCardResponse card = cardResponseCache.getCardResponse(id);
+        // Spring compares the ETag with If-None-Match and leaves out the body when it matches
+        return ResponseEntity.ok()
+                .eTag(card.getETag())
+                .body(card.getResponse());
     }
 
+    @GetMapping("/member/{memberId}")
+    public CardSummaryPage getCardsByMemberId(@PathVariable Long memberId,
+                                              @RequestParam(defaultValue = "true") boolean available,
+                                              @RequestParam(required = false) Long after,
+                                              @RequestParam(defaultValue = "25") int limit) {
+        if (limit < 1 || limit > 100)
+            throw new BadRequestException("Limit must be between 1 and 100.");
+        return cardService.getCardSummariesByMemberId(memberId, available, after, limit);
+    }
+
+    /**
+     * Requests sent with an Idempotency-Key can be retried safely. A repeated
+     * key answers with the card created by the first request.
+     */
     @PostMapping("/debit")
-    public CreateDebitCardResponse createDebitCard(@RequestBody @Valid CreateDebitCardRequest request) {
+    public CreateDebitCardResponse createDebitCard(@RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+                                                   @RequestBody @Valid CreateDebitCardRequest request) {
+        if (idempotencyKey != null)
+            return cardIdempotencyService.createDebitCard(idempotencyKey, request);
         Card card = cardService.createDebitCard(request);
-        log.info("Successfully created debit card.");
-        log.info("Sending card to member...");
-        cardEmailService.sendCard(card, request.isReplacement());
-        log.info("Successfully sent card to member.");
-        CardResponse cardResponse = cardService.mapToResponse(card);
-        return CreateDebitCardResponse.builder()
-                .cardNumber(card.getCardNumber())
-                .securityCode(card.getSecurityCode())
-                .expirationDate(card.getExpirationDate())
-                .cardHolder(cardResponse.getCardHolder())
-                .cardHolderId(card.getCardHolder().getMembershipId())
-                .accountNumber(card.getAccount().getAccountNumber())
-                .build();
+        log.info("Successfully created debit card. Card email has been queued.");
+        return cardService.mapToCreateDebitCardResponse(card);
+    }
+
+    /**
+     * Queue a debit card request and answer immediately. Poll the
+     * returned location for the card once it has been issued.
+     */
+    @PostMapping("/debit/async")
+    public ResponseEntity<CardIssuanceResponse> createDebitCardAsync(@RequestBody @Valid CreateDebitCardRequest request) {
+        CardIssuanceRequest issuance = cardIssuanceService.submit(request);
+        URI location = ServletUriComponentsBuilder.fromCurrentContextPath()
+                .path("/cards/debit/issuances/{id}")
+                .buildAndExpand(issuance.getId())
+                .toUri();
+        return ResponseEntity.accepted()
+                .location(location)
+                .body(cardIssuanceService.mapToResponse(issuance));
+    }
+
+    @GetMapping("/debit/issuances/{id}")
+    public CardIssuanceResponse getIssuance(@PathVariable String id) {
+        return cardIssuanceService.mapToResponse(cardIssuanceService.getIssuance(id));
+    }
+
+    /**
+     * Tail this instance's card lifecycle journal. Pass the returned
+     * {@code journalId} and {@code nextCursor} as {@code journal} and
+     * {@code after} on the next call. Each instance keeps its own journal,
+     * so a cursor from another instance is rejected rather than read as
+     * a position in this one.
+     */
+    @GetMapping("/journal")
+    public CardLifecycleEventPage getLifecycleEvents(@RequestParam(required = false) String journal,
+                                                     @RequestParam(defaultValue = "0") long after,
+                                                     @RequestParam(defaultValue = "500") int limit) {
+        if (limit < 1 || limit > 5000)
+            throw new BadRequestException("Limit must be between 1 and 5000.");
+        if (journal != null && !journal.equals(cardLifecycleJournal.getJournalId()))
+            throw new BadRequestException("Cursor belongs to another journal. Start again from 0 without a journal id.");
+        return cardLifecycleJournal.readPage(after, limit);
+    }
+
+    /**
+     * Stream every card as NDJSON or CSV for reconciliation, optionally gzip encoded.
+     */
+    @GetMapping("/export")
+    public void exportCards(@RequestParam(defaultValue = "ndjson") String format,
+                            @RequestParam(defaultValue = "false") boolean gzip,
+                            HttpServletResponse response) throws IOException {
+        CardExportService.Format exportFormat;
+        try {
+            exportFormat = CardExportService.Format.valueOf(format.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Format must be ndjson or csv.");
+        }
+
+        cardExportService.export(exportFormat, () -> {
+            response.setContentType(exportFormat.getContentType() + ";charset=UTF-8");
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"cards." + exportFormat.getExtension() + "\"");
+            if (!gzip)
+                return response.getOutputStream();
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+            return new GZIPOutputStream(response.getOutputStream(), 64 * 1024);
+        });
+    }
+
+    @PostMapping("/debit/batch")
+    public CreateDebitCardBatchResponse createDebitCards(@RequestBody @Valid CreateDebitCardBatchRequest request) {
+        return cardBatchService.createDebitCards(request.getCards());
     }
 
     @PostMapping("/activation")
     public CardResponse activateCard(@Valid @RequestBody ActivateCardRequest cardRequest) {
-        return cardService.mapToResponse(cardService.activateCard(cardRequest));
+        return cardService.activateCard(cardRequest);
     }
 
 }
@@ -0,0 +1,6 @@
+package com.aline.cardmicroservice.datasource;
+
+public enum DataSourceRoute {
+    PRIMARY,
+    REPLICA
+}
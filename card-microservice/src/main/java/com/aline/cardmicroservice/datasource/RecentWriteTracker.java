@@ -0,0 +1,53 @@
+package com.aline.cardmicroservice.datasource;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+
+/**
+ * Remembers which principals committed a write recently, so their reads
+ * can be kept off a replica that may not have the write yet.
+ * Only writes made through this instance are known.
+ */
+public class RecentWriteTracker {
+
+    private final Cache<String, Boolean> recentWriters;
+
+    public RecentWriteTracker(Duration window, long maxPrincipals) {
+        this.recentWriters = Caffeine.newBuilder()
+                .maximumSize(maxPrincipals)
+                .expireAfterWrite(window)
+                .build();
+    }
+
+    /**
+     * Mark the current principal once the current transaction commits.
+     */
+    public void registerWrite() {
+        String principal = currentPrincipal();
+        if (principal == null || !TransactionSynchronizationManager.isSynchronizationActive())
+            return;
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                recentWriters.put(principal, Boolean.TRUE);
+            }
+        });
+    }
+
+    public boolean wroteRecently() {
+        String principal = currentPrincipal();
+        return principal != null && recentWriters.getIfPresent(principal) != null;
+    }
+
+    private static String currentPrincipal() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication == null ? null : authentication.getName();
+    }
+
+}
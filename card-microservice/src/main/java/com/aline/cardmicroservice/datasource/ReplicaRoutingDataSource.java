@@ -0,0 +1,59 @@
+package com.aline.cardmicroservice.datasource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Sends connections for read-only transactions to the replica and all others
+ * to the primary. The route is decided when a connection is obtained, so the
+ * data source must be wrapped in a LazyConnectionDataSourceProxy for the
+ * transaction's read-only flag to be known by then.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    private final RecentWriteTracker recentWrites;
+    private final Counter primaryRoutes;
+    private final Counter replicaRoutes;
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica,
+                                    RecentWriteTracker recentWrites, MeterRegistry meterRegistry) {
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(DataSourceRoute.PRIMARY, primary);
+        targets.put(DataSourceRoute.REPLICA, replica);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        this.recentWrites = recentWrites;
+        this.primaryRoutes = routeCounter(meterRegistry, DataSourceRoute.PRIMARY);
+        this.replicaRoutes = routeCounter(meterRegistry, DataSourceRoute.REPLICA);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        DataSourceRoute route = route();
+        (route == DataSourceRoute.REPLICA ? replicaRoutes : primaryRoutes).increment();
+        return route;
+    }
+
+    DataSourceRoute route() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            recentWrites.registerWrite();
+            return DataSourceRoute.PRIMARY;
+        }
+        // Read your own writes until the replica has caught up
+        return recentWrites.wroteRecently() ? DataSourceRoute.PRIMARY : DataSourceRoute.REPLICA;
+    }
+
+    private static Counter routeCounter(MeterRegistry meterRegistry, DataSourceRoute route) {
+        return Counter.builder("card.datasource.routes")
+                .description("Connections obtained per data source")
+                .tag("target", route.name().toLowerCase())
+                .register(meterRegistry);
+    }
+
+}
@@ -0,0 +1,60 @@
+package com.aline.cardmicroservice.dto;
+
+import com.aline.cardmicroservice.metrics.CardRejection;
+import com.aline.core.model.card.CardType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Outcome of checking an activation request against its card, populated
+ * directly by a JPQL constructor expression. The query compares the card
+ * holder's details and statuses itself and only returns a reason code,
+ * along with the card details the activation response shows.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CardActivationCheck {
+
+    public static final int ACTIVATABLE = 0;
+    public static final int CARD_HOLDER_MISMATCH = 1;
+    public static final int CARD_ALREADY_ACTIVE = 2;
+    public static final int CARD_CLOSED = 3;
+    public static final int CARD_ACCOUNT_CLOSED = 4;
+
+    private Long cardId;
+    private Long memberId;
+    private Long accountId;
+    private CardType cardType;
+    private String cardNumber;
+    private String securityCode;
+    private LocalDate expirationDate;
+    private String cardHolderFirstName;
+    private String cardHolderLastName;
+    private String accountNumber;
+    private Integer reason;
+
+    /**
+     * @return Why the card cannot be activated, or null if it can.
+     */
+    public CardRejection getRejection() {
+        switch (reason) {
+            case ACTIVATABLE:
+                return null;
+            case CARD_HOLDER_MISMATCH:
+                return CardRejection.CARD_HOLDER_MISMATCH;
+            case CARD_ALREADY_ACTIVE:
+                return CardRejection.CARD_ALREADY_ACTIVE;
+            case CARD_CLOSED:
+                return CardRejection.CARD_CLOSED;
+            case CARD_ACCOUNT_CLOSED:
+                return CardRejection.CARD_ACCOUNT_CLOSED;
+            default:
+                throw new IllegalStateException("Unknown card activation reason: " + reason);
+        }
+    }
+
+}
@@ -0,0 +1,28 @@
+package com.aline.cardmicroservice.dto;
+
+import com.aline.core.model.card.CardStatus;
+import com.aline.core.model.card.CardType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Card reconciliation row, populated directly by a JPQL constructor expression.
+ * Card numbers and security codes are not exported.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CardExportRow {
+
+    private Long id;
+    private CardStatus cardStatus;
+    private CardType cardType;
+    private LocalDate expirationDate;
+    private String accountNumber;
+    private String membershipId;
+    private String issuerName;
+
+}
@@ -0,0 +1,29 @@
+package com.aline.cardmicroservice.dto;
+
+import com.aline.cardmicroservice.model.IssuanceStatus;
+import com.aline.core.dto.response.CreateDebitCardResponse;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Status of an asynchronous debit card issuance. {@code card} is set once
+ * the issuance has completed and {@code message} if it failed.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CardIssuanceResponse {
+
+    private String issuanceId;
+    private IssuanceStatus status;
+    private CreateDebitCardResponse card;
+    private String message;
+    private LocalDateTime createdAt;
+    private LocalDateTime completedAt;
+
+}
@@ -0,0 +1,26 @@
+package com.aline.cardmicroservice.dto;
+
+import com.aline.cardmicroservice.journal.CardLifecycleRecord;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Journal records in sequence order. Pass {@code nextCursor} as {@code after}
+ * to keep tailing the journal. It stays the same when there is nothing new.
+ * Cursors are only valid for the journal named by {@code journalId}.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CardLifecycleEventPage {
+
+    private String journalId;
+    private List<CardLifecycleRecord> events;
+    private long nextCursor;
+
+}
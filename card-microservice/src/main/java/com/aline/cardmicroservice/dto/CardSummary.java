@@ -0,0 +1,32 @@
+package com.aline.cardmicroservice.dto;
+
+import com.aline.core.model.card.CardStatus;
+import com.aline.core.model.card.CardType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Card listing row, populated directly by a JPQL constructor expression.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CardSummary {
+
+    private Long id;
+    private String cardNumber;
+    private String securityCode;
+    private LocalDate expirationDate;
+    private CardStatus cardStatus;
+    private CardType cardType;
+    private String cardHolder;
+    private String cardHolderId;
+    private String accountNumber;
+    private String issuerName;
+
+}
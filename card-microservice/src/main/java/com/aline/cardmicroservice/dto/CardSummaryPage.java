@@ -0,0 +1,23 @@
+package com.aline.cardmicroservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * A page of cards in id order. Pass {@code nextCursor} as {@code after}
+ * to fetch the next page. It is null on the last page.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CardSummaryPage {
+
+    private List<CardSummary> content;
+    private Long nextCursor;
+
+}
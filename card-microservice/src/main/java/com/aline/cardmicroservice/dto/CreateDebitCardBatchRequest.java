@@ -0,0 +1,23 @@
+package com.aline.cardmicroservice.dto;
+
+import com.aline.core.dto.request.CreateDebitCardRequest;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CreateDebitCardBatchRequest {
+
+    @NotEmpty(message = "At least one card request is required.")
+    @Valid
+    private List<CreateDebitCardRequest> cards;
+
+}
@@ -0,0 +1,42 @@
+package com.aline.cardmicroservice.dto;
+
+import com.aline.core.dto.response.CreateDebitCardResponse;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CreateDebitCardBatchResponse {
+
+    private int created;
+    private int failed;
+    private List<Item> results;
+
+    public enum Status {
+        CREATED,
+        FAILED
+    }
+
+    /**
+     * The outcome of a single card request, in request order.
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Item {
+        private int index;
+        private String accountNumber;
+        private String membershipId;
+        private Status status;
+        private String message;
+        private CreateDebitCardResponse card;
+    }
+
+}
@@ -0,0 +1,21 @@
+package com.aline.cardmicroservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * A card found by the reissue scan, populated directly by a JPQL constructor expression.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExpiringCard {
+
+    private Long id;
+    private LocalDate expirationDate;
+    private String accountNumber;
+
+}
@@ -0,0 +1,29 @@
+package com.aline.cardmicroservice.dto;
+
+import com.aline.core.dto.response.CardResponse;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * A card response and the card version it was read at.
+ */
+@Getter
+@AllArgsConstructor
+public class VersionedCardResponse {
+
+    private final long cardId;
+    private final long version;
+    private final CardResponse response;
+
+    /**
+     * Strong entity tag, quoted as sent in the ETag header.
+     */
+    public String getETag() {
+        return eTagOf(cardId, version);
+    }
+
+    public static String eTagOf(long cardId, long version) {
+        return "\"" + cardId + "-" + version + "\"";
+    }
+
+}
@@ -0,0 +1,66 @@
+package com.aline.cardmicroservice.email;
+
+import org.springframework.web.util.HtmlUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Email template parsed once into literal text and {@code ${variable}}
+ * placeholders so rendering is a single pass over the segments.
+ * <p>
+ * The templates are shared with the core email service, so placeholders are
+ * only the plain {@code ${name}} form it fills in, and placeholders without a
+ * value are rendered as written. Values are HTML-escaped, since they hold
+ * member input such as names.
+ */
+public final class EmailTemplate {
+
+    private final String[] literals;
+    private final String[] variables;
+    private final int literalLength;
+
+    private EmailTemplate(String[] literals, String[] variables) {
+        this.literals = literals;
+        this.variables = variables;
+        int length = 0;
+        for (String literal : literals) {
+            length += literal.length();
+        }
+        this.literalLength = length;
+    }
+
+    public static EmailTemplate compile(String source) {
+        List<String> literals = new ArrayList<>();
+        List<String> variables = new ArrayList<>();
+        int position = 0;
+        while (true) {
+            int start = source.indexOf("${", position);
+            int end = start < 0 ? -1 : source.indexOf('}', start + 2);
+            if (end < 0) {
+                literals.add(source.substring(position));
+                break;
+            }
+            literals.add(source.substring(position, start));
+            variables.add(source.substring(start + 2, end));
+            position = end + 1;
+        }
+        return new EmailTemplate(literals.toArray(new String[0]), variables.toArray(new String[0]));
+    }
+
+    public String render(Map<String, String> values) {
+        StringBuilder builder = new StringBuilder(literalLength + variables.length * 16);
+        for (int i = 0; i < variables.length; i++) {
+            builder.append(literals[i]);
+            String value = values.get(variables[i]);
+            if (value != null)
+                builder.append(HtmlUtils.htmlEscape(value, StandardCharsets.UTF_8.name()));
+            else
+                builder.append("${").append(variables[i]).append('}');
+        }
+        return builder.append(literals[variables.length]).toString();
+    }
+
+}
@@ -0,0 +1,171 @@
+package com.aline.cardmicroservice.email;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps compiled email templates in memory, optionally backed by a directory on
+ * disk so they survive restarts. Cached templates are revalidated against the
+ * store by ETag/last modified on a schedule. When the store cannot be reached the
+ * cached copy keeps being served.
+ */
+@Slf4j
+public class EmailTemplateCache {
+
+    private final EmailTemplateStore store;
+    private final Path diskDirectory;
+    private final List<String> preload;
+
+    private final Map<String, CachedTemplate> templates = new ConcurrentHashMap<>();
+
+    /**
+     * @param diskDirectory Directory of the on-disk tier, or null to keep templates in memory only.
+     */
+    public EmailTemplateCache(EmailTemplateStore store, Path diskDirectory, List<String> preload) {
+        this.store = store;
+        this.diskDirectory = diskDirectory;
+        this.preload = preload;
+    }
+
+    @PostConstruct
+    public void init() {
+        for (String name : preload) {
+            try {
+                get(name);
+            } catch (RuntimeException e) {
+                log.warn("Unable to preload email template {}. It will be loaded on first use.", name, e);
+            }
+        }
+    }
+
+    /**
+     * @throws EmailTemplateNotFoundException If the template does not exist.
+     * @throws RuntimeException               If the template is not cached and the store cannot be reached.
+     */
+    public EmailTemplate get(String name) {
+        CachedTemplate cached = templates.get(name);
+        if (cached != null)
+            return cached.template;
+        return templates.computeIfAbsent(name, this::load).template;
+    }
+
+    private CachedTemplate load(String name) {
+        CachedTemplate fromDisk = readFromDisk(name);
+        if (fromDisk != null) {
+            // Serve the disk copy but check it is still current first
+            log.info("Loaded email template {} from the disk cache.", name);
+            return fetchIfModified(name, fromDisk);
+        }
+        StoredTemplate stored = store.fetch(name, null, null)
+                .orElseThrow(() -> new IllegalStateException("Template store returned no content for " + name + "."));
+        writeToDisk(name, stored);
+        log.info("Loaded email template {} from the template store.", name);
+        return new CachedTemplate(stored);
+    }
+
+    @Scheduled(fixedDelayString = "${app.card.email-templates.revalidate-interval:PT5M}")
+    public void revalidate() {
+        templates.forEach((name, cached) -> templates.replace(name, cached, fetchIfModified(name, cached)));
+    }
+
+    private CachedTemplate fetchIfModified(String name, CachedTemplate cached) {
+        try {
+            Optional<StoredTemplate> fetched = store.fetch(name, cached.etag, cached.lastModified);
+            if (!fetched.isPresent())
+                return cached;
+            writeToDisk(name, fetched.get());
+            log.info("Email template {} changed. Reloaded.", name);
+            return new CachedTemplate(fetched.get());
+        } catch (RuntimeException e) {
+            log.warn("Unable to revalidate email template {}. Serving the cached copy.", name, e);
+            return cached;
+        }
+    }
+
+    public void invalidate() {
+        templates.clear();
+    }
+
+    public int size() {
+        return templates.size();
+    }
+
+    private CachedTemplate readFromDisk(String name) {
+        if (diskDirectory == null)
+            return null;
+        Path content = diskDirectory.resolve(name + ".html");
+        Path metadata = diskDirectory.resolve(name + ".properties");
+        if (!Files.exists(content) || !Files.exists(metadata))
+            return null;
+        try (InputStream in = Files.newInputStream(metadata)) {
+            Properties properties = new Properties();
+            properties.load(in);
+            String lastModified = properties.getProperty("lastModified");
+            return new CachedTemplate(new StoredTemplate(
+                    new String(Files.readAllBytes(content), StandardCharsets.UTF_8),
+                    properties.getProperty("etag"),
+                    StringUtils.isEmpty(lastModified) ? null : Instant.parse(lastModified)));
+        } catch (IOException | RuntimeException e) {
+            log.warn("Ignoring unreadable disk cache entry for email template {}.", name, e);
+            return null;
+        }
+    }
+
+    private void writeToDisk(String name, StoredTemplate template) {
+        if (diskDirectory == null)
+            return;
+        try {
+            Path content = diskDirectory.resolve(name + ".html");
+            Files.createDirectories(content.getParent());
+
+            Properties properties = new Properties();
+            if (template.getEtag() != null)
+                properties.setProperty("etag", template.getEtag());
+            if (template.getLastModified() != null)
+                properties.setProperty("lastModified", template.getLastModified().toString());
+
+            // Content first, metadata last: an entry is only used once both exist
+            Path metadata = diskDirectory.resolve(name + ".properties");
+            Files.deleteIfExists(metadata);
+            Path contentTemp = Files.createTempFile(content.getParent(), "template", ".tmp");
+            Files.write(contentTemp, template.getContent().getBytes(StandardCharsets.UTF_8));
+            Files.move(contentTemp, content, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            Path metadataTemp = Files.createTempFile(content.getParent(), "template", ".tmp");
+            try (OutputStream out = Files.newOutputStream(metadataTemp)) {
+                properties.store(out, name);
+            }
+            Files.move(metadataTemp, metadata, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Unable to write email template {} to the disk cache.", name, e);
+        }
+    }
+
+    private static class CachedTemplate {
+        final EmailTemplate template;
+        final String etag;
+        final Instant lastModified;
+
+        CachedTemplate(StoredTemplate stored) {
+            this.template = EmailTemplate.compile(stored.getContent());
+            this.etag = stored.getEtag();
+            this.lastModified = stored.getLastModified();
+        }
+    }
+
+}
@@ -0,0 +1,7 @@
+package com.aline.cardmicroservice.email;
+
+public class EmailTemplateNotFoundException extends RuntimeException {
+    public EmailTemplateNotFoundException(String name) {
+        super("Email template " + name + " does not exist.");
+    }
+}
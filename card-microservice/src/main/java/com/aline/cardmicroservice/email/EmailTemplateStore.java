@@ -0,0 +1,22 @@
+package com.aline.cardmicroservice.email;
+
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Remote source of email templates.
+ */
+public interface EmailTemplateStore {
+
+    /**
+     * Fetch a template unless it still matches the given validators.
+     *
+     * @param name         Template name without extension, e.g. {@code card/send-card}.
+     * @param etag         ETag of the cached copy, or null if there is none.
+     * @param lastModified Last modified time of the cached copy, or null if there is none.
+     * @return The template, or empty if the cached copy is still current.
+     * @throws EmailTemplateNotFoundException If the template does not exist.
+     */
+    Optional<StoredTemplate> fetch(String name, String etag, Instant lastModified);
+
+}
@@ -0,0 +1,44 @@
+package com.aline.cardmicroservice.email;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Instant;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Template store backed by a local directory laid out like the template bucket.
+ * Used for local development and tests.
+ */
+public class FileSystemEmailTemplateStore implements EmailTemplateStore {
+
+    private final Path root;
+
+    public FileSystemEmailTemplateStore(Path root) {
+        this.root = root;
+    }
+
+    @Override
+    public Optional<StoredTemplate> fetch(String name, String etag, Instant lastModified) {
+        Path file = root.resolve(name + ".html");
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            Instant modified = attributes.lastModifiedTime().toInstant();
+            String currentEtag = "\"" + modified.toEpochMilli() + "-" + attributes.size() + "\"";
+            if (Objects.equals(etag, currentEtag))
+                return Optional.empty();
+            String content = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+            return Optional.of(new StoredTemplate(content, currentEtag, modified));
+        } catch (NoSuchFileException e) {
+            throw new EmailTemplateNotFoundException(name);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+}
@@ -0,0 +1,58 @@
+package com.aline.cardmicroservice.email;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.AmazonS3Exception;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.S3Object;
+import com.amazonaws.util.IOUtils;
+import lombok.RequiredArgsConstructor;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Optional;
+
+/**
+ * Template store backed by the email template bucket. Revalidation uses
+ * conditional GETs, so unchanged templates are not downloaded again.
+ */
+@RequiredArgsConstructor
+public class S3EmailTemplateStore implements EmailTemplateStore {
+
+    private final AmazonS3 s3;
+    private final String bucketName;
+
+    @Override
+    public Optional<StoredTemplate> fetch(String name, String etag, Instant lastModified) {
+        GetObjectRequest request = new GetObjectRequest(bucketName, name + ".html");
+        if (etag != null)
+            request.setNonmatchingETagConstraints(Collections.singletonList(etag));
+        else if (lastModified != null)
+            request.setModifiedSinceConstraint(Date.from(lastModified));
+
+        S3Object object;
+        try {
+            object = s3.getObject(request);
+        } catch (AmazonS3Exception e) {
+            if (e.getStatusCode() == 404)
+                throw new EmailTemplateNotFoundException(name);
+            throw e;
+        }
+        // The client returns null when a constraint was not met, i.e. not modified
+        if (object == null)
+            return Optional.empty();
+
+        try (S3Object template = object) {
+            String content = IOUtils.toString(template.getObjectContent());
+            Date modified = template.getObjectMetadata().getLastModified();
+            return Optional.of(new StoredTemplate(content,
+                    template.getObjectMetadata().getETag(),
+                    modified == null ? null : modified.toInstant()));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+}
@@ -0,0 +1,17 @@
+package com.aline.cardmicroservice.email;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.Instant;
+
+/**
+ * Raw template source with the validators used to revalidate it.
+ */
+@Data
+@AllArgsConstructor
+public class StoredTemplate {
+    private String content;
+    private String etag;
+    private Instant lastModified;
+}
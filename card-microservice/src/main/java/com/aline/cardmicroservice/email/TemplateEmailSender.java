@@ -0,0 +1,74 @@
+package com.aline.cardmicroservice.email;
+
+import com.aline.core.aws.email.EmailService;
+import com.amazonaws.services.simpleemail.AmazonSimpleEmailService;
+import com.amazonaws.services.simpleemail.model.Body;
+import com.amazonaws.services.simpleemail.model.Content;
+import com.amazonaws.services.simpleemail.model.Destination;
+import com.amazonaws.services.simpleemail.model.Message;
+import com.amazonaws.services.simpleemail.model.SendEmailRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Sends HTML emails rendered from the local {@link EmailTemplateCache}.
+ * Falls back to the core {@link EmailService}, which fetches the template
+ * itself, when the template cache is disabled or has no copy of the template.
+ */
+@Component
+@Slf4j
+public class TemplateEmailSender {
+
+    private final EmailService emailService;
+    private final EmailTemplateCache templateCache;
+    private final AmazonSimpleEmailService ses;
+    private final String from;
+    private final boolean enabled;
+
+    public TemplateEmailSender(EmailService emailService,
+                               ObjectProvider<EmailTemplateCache> templateCache,
+                               ObjectProvider<AmazonSimpleEmailService> ses,
+                               @Value("${app.email.from}") String from,
+                               @Value("${app.email.enable:true}") boolean enabled) {
+        this.emailService = emailService;
+        this.templateCache = templateCache.getIfAvailable();
+        this.ses = ses.getIfAvailable();
+        this.from = from;
+        this.enabled = enabled;
+    }
+
+    public void sendHtmlEmail(String subject, String templateName, String email, Map<String, String> variables) {
+        if (templateCache == null || ses == null) {
+            emailService.sendHtmlEmail(subject, templateName, email, variables);
+            return;
+        }
+
+        EmailTemplate template;
+        try {
+            template = templateCache.get(templateName);
+        } catch (RuntimeException e) {
+            log.warn("Email template {} is not cached and could not be loaded. Sending through the core email service.", templateName, e);
+            emailService.sendHtmlEmail(subject, templateName, email, variables);
+            return;
+        }
+
+        if (!enabled) {
+            log.info("Email is disabled. Not sending {} to {}.", templateName, email);
+            return;
+        }
+
+        String charset = StandardCharsets.UTF_8.name();
+        ses.sendEmail(new SendEmailRequest()
+                .withSource(from)
+                .withDestination(new Destination().withToAddresses(email))
+                .withMessage(new Message()
+                        .withSubject(new Content().withCharset(charset).withData(subject))
+                        .withBody(new Body().withHtml(new Content().withCharset(charset).withData(template.render(variables))))));
+    }
+
+}
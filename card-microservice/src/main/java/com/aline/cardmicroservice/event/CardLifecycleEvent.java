@@ -0,0 +1,28 @@
+package com.aline.cardmicroservice.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.Instant;
+
+/**
+ * Published when a card is issued, closed for replacement or activated.
+ * Written to the card lifecycle journal once the transaction commits.
+ */
+@Getter
+@AllArgsConstructor
+@ToString
+public class CardLifecycleEvent {
+
+    private final CardLifecycleEventType type;
+    private final Long cardId;
+    private final Long memberId;
+    private final Long accountId;
+    private final Instant occurredAt;
+
+    public static CardLifecycleEvent of(CardLifecycleEventType type, Long cardId, Long memberId, Long accountId) {
+        return new CardLifecycleEvent(type, cardId, memberId, accountId, Instant.now());
+    }
+
+}
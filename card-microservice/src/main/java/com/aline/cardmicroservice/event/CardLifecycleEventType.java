@@ -0,0 +1,11 @@
+package com.aline.cardmicroservice.event;
+
+public enum CardLifecycleEventType {
+    CREATED,
+    /**
+     * The member's open cards on the account were closed because a replacement was requested.
+     * The event has no card id, the replacement card follows as CREATED.
+     */
+    CLOSED_FOR_REPLACEMENT,
+    ACTIVATED
+}
@@ -0,0 +1,10 @@
+package com.aline.cardmicroservice.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+public class CardIssuanceNotFoundException extends ResponseStatusException {
+    public CardIssuanceNotFoundException() {
+        super(HttpStatus.NOT_FOUND, "Card issuance not found.");
+    }
+}
@@ -0,0 +1,10 @@
+package com.aline.cardmicroservice.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+public class CardIssuanceQueueFullException extends ResponseStatusException {
+    public CardIssuanceQueueFullException() {
+        super(HttpStatus.SERVICE_UNAVAILABLE, "Too many card requests are waiting to be processed. Please try again later.");
+    }
+}
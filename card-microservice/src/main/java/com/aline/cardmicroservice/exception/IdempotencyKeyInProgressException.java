@@ -0,0 +1,10 @@
+package com.aline.cardmicroservice.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+public class IdempotencyKeyInProgressException extends ResponseStatusException {
+    public IdempotencyKeyInProgressException() {
+        super(HttpStatus.CONFLICT, "A request with this Idempotency-Key is still being processed. Please try again later.");
+    }
+}
@@ -0,0 +1,10 @@
+package com.aline.cardmicroservice.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+public class IdempotencyKeyMismatchException extends ResponseStatusException {
+    public IdempotencyKeyMismatchException() {
+        super(HttpStatus.UNPROCESSABLE_ENTITY, "This Idempotency-Key was already used for a different request.");
+    }
+}
@@ -0,0 +1,167 @@
+package com.aline.cardmicroservice.filter;
+
+import com.aline.cardmicroservice.config.ConcurrencyLimitProperties;
+import com.aline.cardmicroservice.util.AimdLimiter;
+import com.aline.cardmicroservice.util.TokenBucket;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Sheds load on the card endpoints before requests reach the connection pool.
+ * Each endpoint group has its own adaptive concurrency limit and requests above it
+ * are rejected with 503. Activation is unauthenticated, so it is also rate limited
+ * per source address and rejected with 429.
+ */
+@Component
+@Slf4j
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    public static final String ISSUANCE = "issuance";
+    public static final String ACTIVATION = "activation";
+    public static final String READ = "read";
+
+    private final ConcurrencyLimitProperties properties;
+    private final Map<String, AimdLimiter> limiters;
+    private final Map<String, Counter> limitRejections;
+    private final Counter rateRejections;
+    private final Cache<String, TokenBucket> activationBuckets;
+
+    public ConcurrencyLimitFilter(ConcurrencyLimitProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+
+        Map<String, AimdLimiter> limiters = new LinkedHashMap<>();
+        Map<String, Counter> limitRejections = new LinkedHashMap<>();
+        for (String group : new String[] {ISSUANCE, ACTIVATION, READ}) {
+            ConcurrencyLimitProperties.Limit limit = properties.getLimit(group);
+            AimdLimiter limiter = new AimdLimiter(limit.getInitialLimit(), limit.getMinLimit(), limit.getMaxLimit(),
+                    limit.getLatencyTarget().toNanos(), limit.getBackoffRatio());
+            limiters.put(group, limiter);
+            Gauge.builder("card.concurrency.limit", limiter, AimdLimiter::getLimit)
+                    .tag("group", group)
+                    .register(meterRegistry);
+            Gauge.builder("card.concurrency.in.flight", limiter, AimdLimiter::getInFlight)
+                    .tag("group", group)
+                    .register(meterRegistry);
+            limitRejections.put(group, Counter.builder("card.concurrency.rejected")
+                    .tag("group", group)
+                    .tag("reason", "limit")
+                    .register(meterRegistry));
+        }
+        this.limiters = Collections.unmodifiableMap(limiters);
+        this.limitRejections = Collections.unmodifiableMap(limitRejections);
+
+        ConcurrencyLimitProperties.RateLimit rateLimit = properties.getActivationRateLimit();
+        this.activationBuckets = Caffeine.newBuilder()
+                .maximumSize(rateLimit.getMaxSources())
+                // A bucket idle for this long is full again, so it can be dropped
+                .expireAfterAccess(Duration.ofMillis((long) Math.ceil(rateLimit.getCapacity() / rateLimit.getRefillPerSecond() * 1000)))
+                .build();
+        this.rateRejections = Counter.builder("card.concurrency.rejected")
+                .tag("group", ACTIVATION)
+                .tag("reason", "rate")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Exports run for minutes by design and would only drag the read limit down.
+     */
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !properties.isEnabled() || isExport(request);
+    }
+
+    static boolean isExport(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length()).startsWith("/cards/export");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        String group = resolveGroup(request);
+
+        if (ACTIVATION.equals(group) && properties.getActivationRateLimit().isEnabled()) {
+            TokenBucket bucket = activationBuckets.get(resolveSource(request), source -> new TokenBucket(
+                    properties.getActivationRateLimit().getCapacity(),
+                    properties.getActivationRateLimit().getRefillPerSecond()));
+            if (!bucket.tryConsume()) {
+                rateRejections.increment();
+                response.setHeader("Retry-After", String.valueOf(Math.max(1, bucket.secondsUntilRefill())));
+                response.sendError(HttpStatus.TOO_MANY_REQUESTS.value(), "Too many activation attempts. Please try again later.");
+                return;
+            }
+        }
+
+        AimdLimiter limiter = limiters.get(group);
+        if (!limiter.tryAcquire()) {
+            limitRejections.get(group).increment();
+            log.debug("Rejected {} {} at concurrency limit {} for group {}.", request.getMethod(), request.getRequestURI(), limiter.getLimit(), group);
+            response.setHeader("Retry-After", "1");
+            response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), "Service is busy. Please try again shortly.");
+            return;
+        }
+
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            filterChain.doFilter(request, response);
+            failed = response.getStatus() >= HttpStatus.INTERNAL_SERVER_ERROR.value();
+        } finally {
+            limiter.release(System.nanoTime() - start, failed);
+        }
+    }
+
+    static String resolveGroup(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if (HttpMethod.POST.matches(request.getMethod())) {
+            if (path.startsWith("/cards/activation"))
+                return ACTIVATION;
+            if (path.startsWith("/cards/debit"))
+                return ISSUANCE;
+        }
+        return READ;
+    }
+
+    private String resolveSource(HttpServletRequest request) {
+        if (properties.isTrustForwardedFor()) {
+            String forwardedFor = request.getHeader("X-Forwarded-For");
+            if (StringUtils.isNotBlank(forwardedFor))
+                return StringUtils.substringBefore(forwardedFor, ",").trim();
+        }
+        return request.getRemoteAddr();
+    }
+
+    public Map<String, AimdLimiter> getLimiters() {
+        return limiters;
+    }
+
+    public double getRejectedCount(String group) {
+        return limitRejections.get(group).count();
+    }
+
+    public double getRateRejectedCount() {
+        return rateRejections.count();
+    }
+
+    public long getTrackedSources() {
+        return activationBuckets.estimatedSize();
+    }
+
+}
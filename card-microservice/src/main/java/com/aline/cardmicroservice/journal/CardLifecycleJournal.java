@@ -0,0 +1,282 @@
+package com.aline.cardmicroservice.journal;
+
+import com.aline.cardmicroservice.config.JournalProperties;
+import com.aline.cardmicroservice.dto.CardLifecycleEventPage;
+import com.aline.cardmicroservice.event.CardLifecycleEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Append-only journal of card lifecycle events, kept in memory-mapped
+ * segment files on this instance.
+ * <p>
+ * Committed events are handed to a bounded queue, which is all the issuing
+ * thread pays for. A single writer thread drains the queue and flushes each
+ * batch to disk at once (group commit). Readers only see flushed records and
+ * tail the journal with a sequence cursor. Full segments are sealed and a new
+ * one is started. Sealed segments past the retention are deleted.
+ * <p>
+ * Sequences are local to this journal. Each journal directory gets a random
+ * id on first start, which pages carry so a consumer can tell when it reached
+ * a different instance.
+ */
+@Component
+@Lazy(false)
+@Slf4j
+public class CardLifecycleJournal {
+
+    private static final long POLL_MILLIS = 100;
+
+    private final JournalProperties properties;
+    private final BlockingQueue<CardLifecycleEvent> queue;
+    private final ConcurrentNavigableMap<Long, JournalSegment> segments = new ConcurrentSkipListMap<>();
+
+    private final Counter dropped;
+    private final DistributionSummary batchSize;
+    private final Timer flushTime;
+
+    private Path directory;
+    private String journalId;
+    private FileChannel lockChannel;
+    private FileLock lock;
+    private Thread writer;
+    private volatile boolean running;
+
+    private JournalSegment active;
+    private long nextSequence;
+    private volatile long committedSequence;
+
+    public CardLifecycleJournal(JournalProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.queue = new ArrayBlockingQueue<>(properties.getQueueCapacity());
+        this.dropped = Counter.builder("card.journal.dropped")
+                .description("Lifecycle events dropped because the journal queue was full")
+                .register(meterRegistry);
+        this.batchSize = DistributionSummary.builder("card.journal.batch.size")
+                .description("Events written per flush")
+                .register(meterRegistry);
+        this.flushTime = Timer.builder("card.journal.flush")
+                .description("Time to flush a batch of events to disk")
+                .register(meterRegistry);
+        Gauge.builder("card.journal.queue.depth", queue, BlockingQueue::size)
+                .description("Lifecycle events waiting to be written")
+                .register(meterRegistry);
+        Gauge.builder("card.journal.sequence", this, CardLifecycleJournal::getCommittedSequence)
+                .description("Sequence of the last flushed event")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (!properties.isEnabled())
+            return;
+
+        directory = Paths.get(properties.getDirectory());
+        Files.createDirectories(directory);
+        lockChannel = FileChannel.open(directory.resolve("journal.lock"), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        lock = lockChannel.tryLock();
+        if (lock == null)
+            throw new IllegalStateException("Card journal directory " + directory + " is used by another process.");
+        journalId = readOrCreateId(directory.resolve("journal.id"));
+
+        List<Path> files;
+        try (Stream<Path> list = Files.list(directory)) {
+            files = list.filter(JournalSegment::isSegment).sorted().collect(Collectors.toList());
+        }
+        for (int i = 0; i < files.size() - 1; i++) {
+            JournalSegment segment = JournalSegment.openForRead(files.get(i), properties.getSegmentSize());
+            segments.put(segment.getBaseSequence(), segment);
+        }
+        if (files.isEmpty()) {
+            active = JournalSegment.openForAppend(JournalSegment.pathFor(directory, 1), 1, properties.getSegmentSize());
+        } else {
+            Path last = files.get(files.size() - 1);
+            active = JournalSegment.openForAppend(last, JournalSegment.baseSequenceOf(last), properties.getSegmentSize());
+        }
+        segments.put(active.getBaseSequence(), active);
+        nextSequence = active.getEndSequence();
+        committedSequence = nextSequence - 1;
+        log.info("Opened card journal {} in {} at sequence {}.", journalId, directory, committedSequence);
+
+        running = true;
+        writer = new Thread(this::writeLoop, "card-journal-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Queue an event without blocking. Events are only journaled once their transaction commits.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void append(CardLifecycleEvent event) {
+        if (!running)
+            return;
+        if (!queue.offer(event)) {
+            dropped.increment();
+            log.warn("Card journal queue is full. Dropped {}", event);
+        }
+    }
+
+    @PreAuthorize("@authService.canReadJournal()")
+    public CardLifecycleEventPage readPage(long after, int limit) {
+        List<CardLifecycleRecord> records = read(after, limit);
+        return CardLifecycleEventPage.builder()
+                .journalId(journalId)
+                .events(records)
+                .nextCursor(records.isEmpty() ? after : records.get(records.size() - 1).getSequence())
+                .build();
+    }
+
+    /**
+     * Records after the given sequence, oldest first. A consumer that fell behind
+     * the retention continues at the oldest record that is still kept.
+     */
+    public List<CardLifecycleRecord> read(long after, int limit) {
+        long committed = committedSequence;
+        long from = Math.max(after + 1, segments.isEmpty() ? 1 : segments.firstKey());
+        List<CardLifecycleRecord> records = new ArrayList<>();
+        while (records.size() < limit && from <= committed) {
+            Map.Entry<Long, JournalSegment> entry = segments.floorEntry(from);
+            if (entry == null)
+                break;
+            try {
+                List<CardLifecycleRecord> read = entry.getValue().read(from, committed, limit - records.size());
+                if (read.isEmpty())
+                    break;
+                records.addAll(read);
+                from = read.get(read.size() - 1).getSequence() + 1;
+            } catch (IOException e) {
+                // The segment was deleted by retention while reading
+                if (segments.containsKey(entry.getKey()))
+                    throw new UncheckedIOException(e);
+                from = segments.isEmpty() ? from : Math.max(from, segments.firstKey());
+            }
+        }
+        return records.isEmpty() ? Collections.emptyList() : records;
+    }
+
+    public long getCommittedSequence() {
+        return committedSequence;
+    }
+
+    public String getJournalId() {
+        return journalId;
+    }
+
+    private static String readOrCreateId(Path file) throws IOException {
+        if (Files.exists(file))
+            return new String(Files.readAllBytes(file), StandardCharsets.US_ASCII).trim();
+        String id = UUID.randomUUID().toString();
+        Files.write(file, id.getBytes(StandardCharsets.US_ASCII));
+        return id;
+    }
+
+    private void writeLoop() {
+        List<CardLifecycleEvent> batch = new ArrayList<>(properties.getMaxBatchSize());
+        while (running || !queue.isEmpty()) {
+            try {
+                CardLifecycleEvent first = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null)
+                    continue;
+                batch.add(first);
+                queue.drainTo(batch, properties.getMaxBatchSize() - 1);
+                write(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (IOException | RuntimeException e) {
+                log.error("Failed to write {} event(s) to the card journal.", batch.size(), e);
+                dropped.increment(batch.size());
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(List<CardLifecycleEvent> batch) throws IOException {
+        long start = System.nanoTime();
+        for (CardLifecycleEvent event : batch) {
+            if (active.isFull())
+                roll();
+            active.append(nextSequence++, event);
+        }
+        active.force();
+        committedSequence = nextSequence - 1;
+        flushTime.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        batchSize.record(batch.size());
+    }
+
+    private void roll() throws IOException {
+        // Open the next segment first, so a failure leaves the full one appendable for the retry
+        JournalSegment next = JournalSegment.openForAppend(JournalSegment.pathFor(directory, nextSequence), nextSequence, properties.getSegmentSize());
+        segments.put(next.getBaseSequence(), next);
+        active.seal();
+        active = next;
+        log.info("Rolled card journal to a new segment at sequence {}.", nextSequence);
+        deleteExpiredSegments();
+    }
+
+    private void deleteExpiredSegments() throws IOException {
+        Instant cutoff = Instant.now().minus(properties.getRetention());
+        for (JournalSegment segment : segments.values()) {
+            if (segment == active || Files.getLastModifiedTime(segment.getPath()).toInstant().isAfter(cutoff))
+                break;
+            segments.remove(segment.getBaseSequence());
+            segment.close();
+            Files.deleteIfExists(segment.getPath());
+            log.info("Deleted card journal segment {}.", segment.getPath().getFileName());
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws IOException, InterruptedException {
+        if (!running)
+            return;
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(10));
+        if (writer.isAlive()) {
+            // Unmapping under the writer would crash it, leave the files to the OS
+            log.warn("Card journal writer did not stop in time. {} event(s) were not written.", queue.size());
+            return;
+        }
+        active.force();
+        for (JournalSegment segment : segments.values())
+            segment.close();
+        lock.release();
+        lockChannel.close();
+    }
+
+}
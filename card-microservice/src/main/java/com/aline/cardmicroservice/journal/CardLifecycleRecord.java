@@ -0,0 +1,25 @@
+package com.aline.cardmicroservice.journal;
+
+import com.aline.cardmicroservice.event.CardLifecycleEventType;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.Instant;
+
+/**
+ * A lifecycle event as stored in the journal.
+ */
+@Getter
+@AllArgsConstructor
+@ToString
+public class CardLifecycleRecord {
+
+    private final long sequence;
+    private final CardLifecycleEventType type;
+    private final Long cardId;
+    private final Long memberId;
+    private final Long accountId;
+    private final Instant occurredAt;
+
+}
@@ -0,0 +1,189 @@
+package com.aline.cardmicroservice.journal;
+
+import com.aline.cardmicroservice.event.CardLifecycleEvent;
+import com.aline.cardmicroservice.event.CardLifecycleEventType;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * A journal file holding fixed size records. The file is named after the
+ * sequence of its first record, so the position of any record is known
+ * without an index. Records are written through a memory mapping and read
+ * with positional reads.
+ * <p>
+ * Record layout: sequence, occurred at (epoch millis), card id, member id,
+ * account id, type, padding, CRC32 of the preceding bytes. The checksum is
+ * written last, so a torn record is detected on recovery.
+ */
+class JournalSegment {
+
+    static final int RECORD_SIZE = 48;
+    static final String SUFFIX = ".journal";
+
+    private static final int CHECKSUM_OFFSET = 44;
+    private static final CardLifecycleEventType[] TYPES = CardLifecycleEventType.values();
+
+    private final Path path;
+    private final long baseSequence;
+    private final int capacity;
+    private final FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int count;
+
+    private JournalSegment(Path path, long baseSequence, int capacity, FileChannel channel) {
+        this.path = path;
+        this.baseSequence = baseSequence;
+        this.capacity = capacity;
+        this.channel = channel;
+    }
+
+    static Path pathFor(Path directory, long baseSequence) {
+        return directory.resolve(String.format("%020d%s", baseSequence, SUFFIX));
+    }
+
+    static long baseSequenceOf(Path path) {
+        String name = path.getFileName().toString();
+        return Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+    }
+
+    /**
+     * Open a segment for appending. Records already in the file are counted,
+     * stopping at the first one that is missing or torn.
+     */
+    static JournalSegment openForAppend(Path path, long baseSequence, long segmentSize) throws IOException {
+        int capacity = (int) Math.min(Integer.MAX_VALUE / RECORD_SIZE, segmentSize / RECORD_SIZE);
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        JournalSegment segment = new JournalSegment(path, baseSequence, capacity, channel);
+        segment.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) capacity * RECORD_SIZE);
+        while (segment.count < capacity && segment.isValid(segment.count))
+            segment.count++;
+        return segment;
+    }
+
+    static JournalSegment openForRead(Path path, long segmentSize) throws IOException {
+        int capacity = (int) Math.min(Integer.MAX_VALUE / RECORD_SIZE, segmentSize / RECORD_SIZE);
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        JournalSegment segment = new JournalSegment(path, baseSequenceOf(path), capacity, channel);
+        segment.count = (int) Math.min(capacity, channel.size() / RECORD_SIZE);
+        return segment;
+    }
+
+    boolean isFull() {
+        return count == capacity;
+    }
+
+    long getBaseSequence() {
+        return baseSequence;
+    }
+
+    /**
+     * Sequence after the last record in this segment.
+     */
+    long getEndSequence() {
+        return baseSequence + count;
+    }
+
+    Path getPath() {
+        return path;
+    }
+
+    void append(long sequence, CardLifecycleEvent event) {
+        int position = count * RECORD_SIZE;
+        buffer.putLong(position, sequence);
+        buffer.putLong(position + 8, event.getOccurredAt().toEpochMilli());
+        buffer.putLong(position + 16, orZero(event.getCardId()));
+        buffer.putLong(position + 24, orZero(event.getMemberId()));
+        buffer.putLong(position + 32, orZero(event.getAccountId()));
+        buffer.put(position + 40, (byte) event.getType().ordinal());
+        buffer.putInt(position + CHECKSUM_OFFSET, checksum(buffer, position));
+        count++;
+    }
+
+    /**
+     * Flush appended records to disk.
+     */
+    void force() {
+        buffer.force();
+    }
+
+    /**
+     * Flush and stop appending. The segment stays readable.
+     */
+    void seal() {
+        buffer.force();
+        buffer = null;
+    }
+
+    /**
+     * Read records starting at the given sequence. Only records up to
+     * {@code maxSequence} are returned, later ones may not be flushed yet.
+     */
+    List<CardLifecycleRecord> read(long fromSequence, long maxSequence, int limit) throws IOException {
+        long last = Math.min(maxSequence, baseSequence + capacity - 1);
+        int records = (int) Math.min(limit, last - fromSequence + 1);
+        List<CardLifecycleRecord> result = new ArrayList<>(Math.max(records, 0));
+        if (records <= 0)
+            return result;
+
+        ByteBuffer bytes = ByteBuffer.allocate(records * RECORD_SIZE);
+        long position = (fromSequence - baseSequence) * RECORD_SIZE;
+        while (bytes.hasRemaining()) {
+            if (channel.read(bytes, position + bytes.position()) < 0)
+                break;
+        }
+        for (int i = 0; i + RECORD_SIZE <= bytes.position(); i += RECORD_SIZE) {
+            if (bytes.getLong(i) != fromSequence + result.size() || bytes.getInt(i + CHECKSUM_OFFSET) != checksum(bytes, i))
+                break;
+            result.add(new CardLifecycleRecord(
+                    bytes.getLong(i),
+                    TYPES[bytes.get(i + 40)],
+                    orNull(bytes.getLong(i + 16)),
+                    orNull(bytes.getLong(i + 24)),
+                    orNull(bytes.getLong(i + 32)),
+                    Instant.ofEpochMilli(bytes.getLong(i + 8))));
+        }
+        return result;
+    }
+
+    void close() throws IOException {
+        channel.close();
+    }
+
+    private boolean isValid(int index) {
+        int position = index * RECORD_SIZE;
+        return buffer.getLong(position) == baseSequence + index &&
+                buffer.getInt(position + CHECKSUM_OFFSET) == checksum(buffer, position);
+    }
+
+    private static int checksum(ByteBuffer buffer, int position) {
+        ByteBuffer record = buffer.duplicate();
+        record.limit(position + CHECKSUM_OFFSET);
+        record.position(position);
+        CRC32 crc = new CRC32();
+        crc.update(record);
+        return (int) crc.getValue();
+    }
+
+    private static long orZero(Long id) {
+        return id == null ? 0L : id;
+    }
+
+    private static Long orNull(long id) {
+        return id == 0L ? null : id;
+    }
+
+    static boolean isSegment(Path path) {
+        return Files.isRegularFile(path) && path.getFileName().toString().endsWith(SUFFIX);
+    }
+
+}
@@ -0,0 +1,73 @@
+package com.aline.cardmicroservice.mapper;
+
+import com.aline.cardmicroservice.dto.CardActivationCheck;
+import com.aline.core.dto.response.CardResponse;
+import com.aline.core.dto.response.CreateDebitCardResponse;
+import com.aline.core.model.Applicant;
+import com.aline.core.model.Member;
+import com.aline.core.model.card.Card;
+import com.aline.core.model.card.CardStatus;
+import org.springframework.stereotype.Component;
+
+/**
+ * Maps cards to responses with plain getters and builders. Issuance used to
+ * map every card through the reflective ModelMapper twice, once for the
+ * response and once for the card email.
+ */
+@Component
+public class CardResponseMapper {
+
+    /**
+     * The same response as {@code CardUtility.mapToResponse}. CardResponseMapperTest
+     * compares every field, so a field core adds fails the build instead of going missing.
+     */
+    public CardResponse toCardResponse(Card card) {
+        return CardResponse.builder()
+                .id(card.getId())
+                .cardNumber(card.getCardNumber())
+                .securityCode(card.getSecurityCode())
+                .expirationDate(card.getExpirationDate())
+                .cardStatus(card.getCardStatus())
+                .cardType(card.getCardType())
+                .cardHolder(cardHolderName(card.getCardHolder()))
+                .accountNumber(card.getAccount().getAccountNumber())
+                .build();
+    }
+
+    /**
+     * The response for a card that was just activated, from its activation check.
+     */
+    public CardResponse toActivatedCardResponse(CardActivationCheck check) {
+        return CardResponse.builder()
+                .id(check.getCardId())
+                .cardNumber(check.getCardNumber())
+                .securityCode(check.getSecurityCode())
+                .expirationDate(check.getExpirationDate())
+                .cardStatus(CardStatus.ACTIVE)
+                .cardType(check.getCardType())
+                .cardHolder(check.getCardHolderFirstName() + " " + check.getCardHolderLastName())
+                .accountNumber(check.getAccountNumber())
+                .build();
+    }
+
+    public CreateDebitCardResponse toCreateDebitCardResponse(Card card) {
+        Member cardHolder = card.getCardHolder();
+        return CreateDebitCardResponse.builder()
+                .cardNumber(card.getCardNumber())
+                .securityCode(card.getSecurityCode())
+                .expirationDate(card.getExpirationDate())
+                .cardHolder(cardHolderName(cardHolder))
+                .cardHolderId(cardHolder.getMembershipId())
+                .accountNumber(card.getAccount().getAccountNumber())
+                .build();
+    }
+
+    /**
+     * The name on the card, the same as {@code CardResponse.cardHolder}.
+     */
+    public String cardHolderName(Member cardHolder) {
+        Applicant applicant = cardHolder.getApplicant();
+        return applicant.getFirstName() + " " + applicant.getLastName();
+    }
+
+}
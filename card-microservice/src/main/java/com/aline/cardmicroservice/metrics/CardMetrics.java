@@ -0,0 +1,135 @@
+package com.aline.cardmicroservice.metrics;
+
+import com.aline.core.exception.BadRequestException;
+import com.aline.core.exception.ResponseEntityException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Timers for the phases of card operations and counters for rejections.
+ * <p>
+ * Phase durations are collected while an operation runs and recorded when it
+ * ends, so every timer carries the same low-cardinality tags: operation, phase,
+ * outcome, issuer, card type and replacement flag.
+ */
+@Component
+public class CardMetrics {
+
+    public static final String UNKNOWN = "unknown";
+
+    private final MeterRegistry meterRegistry;
+    private final Map<CardRejection, Counter> rejections = new EnumMap<>(CardRejection.class);
+
+    public CardMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        for (CardRejection rejection : CardRejection.values()) {
+            rejections.put(rejection, Counter.builder("card.rejections")
+                    .description("Card requests rejected as invalid")
+                    .tag("reason", rejection.name().toLowerCase())
+                    .register(meterRegistry));
+        }
+    }
+
+    public Operation start(String operation) {
+        return new Operation(operation);
+    }
+
+    /**
+     * Count the rejection and create the exception to throw for it.
+     */
+    public BadRequestException reject(CardRejection rejection) {
+        rejections.get(rejection).increment();
+        return new BadRequestException(rejection.getMessage());
+    }
+
+    private Timer timer(String operation, String phase, String outcome, String issuer, String cardType, boolean replacement) {
+        return Timer.builder("card.operation")
+                .description("Time spent in each phase of a card operation")
+                .tag("operation", operation)
+                .tag("phase", phase)
+                .tag("outcome", outcome)
+                .tag("issuer", issuer)
+                .tag("card_type", cardType)
+                .tag("replacement", String.valueOf(replacement))
+                .publishPercentileHistogram()
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofSeconds(30))
+                .register(meterRegistry);
+    }
+
+    /**
+     * One run of a card operation. Not thread safe.
+     */
+    public class Operation {
+
+        private final String name;
+        private final long startedAt = System.nanoTime();
+        private final Map<String, Long> phases = new LinkedHashMap<>();
+
+        private String outcome = "success";
+        private String issuer = UNKNOWN;
+        private String cardType = UNKNOWN;
+        private boolean replacement;
+
+        private Operation(String name) {
+            this.name = name;
+        }
+
+        public <T> T time(String phase, Supplier<T> action) {
+            long start = System.nanoTime();
+            try {
+                return action.get();
+            } finally {
+                phases.merge(phase, System.nanoTime() - start, Long::sum);
+            }
+        }
+
+        public void time(String phase, Runnable action) {
+            time(phase, () -> {
+                action.run();
+                return null;
+            });
+        }
+
+        public Operation issuer(String issuer) {
+            this.issuer = issuer == null ? UNKNOWN : issuer;
+            return this;
+        }
+
+        public Operation cardType(Enum<?> cardType) {
+            this.cardType = cardType == null ? UNKNOWN : cardType.name().toLowerCase();
+            return this;
+        }
+
+        public Operation replacement(boolean replacement) {
+            this.replacement = replacement;
+            return this;
+        }
+
+        public void failed(RuntimeException e) {
+            outcome = e instanceof ResponseEntityException ? "rejected" : "error";
+        }
+
+        /**
+         * Record every phase and the operation total.
+         */
+        public void stop() {
+            long total = System.nanoTime() - startedAt;
+            phases.forEach((phase, nanos) ->
+                    timer(name, phase, outcome, issuer, cardType, replacement).record(nanos, TimeUnit.NANOSECONDS));
+            timer(name, "total", outcome, issuer, cardType, replacement).record(total, TimeUnit.NANOSECONDS);
+        }
+
+    }
+
+}
@@ -0,0 +1,28 @@
+package com.aline.cardmicroservice.metrics;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Reasons a card request is rejected. The name is used as a metric tag,
+ * the message is returned to the client.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum CardRejection {
+
+    ACCOUNT_NOT_FOUND("Account does not exist."),
+    ACCOUNT_NOT_CHECKING("Debit cards can only be opened on a valid CHECKING account. This account is not a CHECKING account."),
+    ACCOUNT_INACTIVE("Cannot create a debit card on an inactive account."),
+    ACCOUNT_CLOSED("Cannot create a debit card on a closed account."),
+    MEMBER_NOT_IN_ACCOUNT("Member does not exist in this account."),
+    CARD_EXISTS("Active card already exists. Please request a replacement instead."),
+    DUPLICATE_IN_BATCH("Duplicate card request for this member and account in the same batch."),
+    CARD_HOLDER_MISMATCH("Information was not entered correctly. Please check your card and try again."),
+    CARD_ALREADY_ACTIVE("Card is already active."),
+    CARD_CLOSED("Card has been closed. Cannot activate a closed card."),
+    CARD_ACCOUNT_CLOSED("Cannot activate a card on a closed account.");
+
+    private final String message;
+
+}
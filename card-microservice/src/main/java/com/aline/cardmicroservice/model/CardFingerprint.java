@@ -0,0 +1,70 @@
+package com.aline.cardmicroservice.model;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.domain.Persistable;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.PostLoad;
+import javax.persistence.PostPersist;
+import javax.persistence.Table;
+import javax.persistence.Transient;
+import java.time.LocalDateTime;
+
+/**
+ * Keyed hash (HMAC-SHA256) of a card number, used to look cards up
+ * through an index instead of filtering on the card number itself.
+ */
+@Entity
+@Table(name = "card_fingerprint", indexes = {
+        @Index(name = "idx_card_fingerprint", columnList = "fingerprint"),
+        @Index(name = "idx_card_fingerprint_created_at", columnList = "created_at")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+public class CardFingerprint implements Persistable<Long> {
+
+    @Id
+    @Column(name = "card_id")
+    private Long cardId;
+
+    @Column(nullable = false, length = 43)
+    private String fingerprint;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    /**
+     * The id is the card id, so new rows are inserted without a select first.
+     */
+    @Transient
+    private boolean persisted;
+
+    public CardFingerprint(Long cardId, String fingerprint, LocalDateTime createdAt) {
+        this.cardId = cardId;
+        this.fingerprint = fingerprint;
+        this.createdAt = createdAt;
+    }
+
+    @Override
+    public Long getId() {
+        return cardId;
+    }
+
+    @Override
+    public boolean isNew() {
+        return !persisted;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markPersisted() {
+        persisted = true;
+    }
+
+}
@@ -0,0 +1,87 @@
+package com.aline.cardmicroservice.model;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.domain.Persistable;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.PostLoad;
+import javax.persistence.PostPersist;
+import javax.persistence.Table;
+import javax.persistence.Transient;
+import java.time.LocalDateTime;
+
+/**
+ * An Idempotency-Key used to create a debit card. The key is in progress
+ * until the card is issued, which sets the card id in the same transaction.
+ * Only the card id is stored, the card details stay in the card table.
+ */
+@Entity
+@Table(name = "card_idempotency_key", indexes = {
+        @Index(name = "idx_card_idempotency_key_expires_at", columnList = "expires_at")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+public class CardIdempotencyKey implements Persistable<String> {
+
+    /**
+     * Hash of the caller and the key they sent.
+     */
+    @Id
+    @Column(name = "idempotency_key", length = 43)
+    private String key;
+
+    @Column(name = "request_hash", nullable = false, length = 43)
+    private String requestHash;
+
+    @Column(name = "card_id")
+    private Long cardId;
+
+    /**
+     * Incremented when an abandoned key is taken over. Only the current claim can complete the key.
+     */
+    @Column(nullable = false)
+    private int claims;
+
+    @Column(name = "claimed_at", nullable = false)
+    private LocalDateTime claimedAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    /**
+     * Keys are inserted without a select first, a duplicate key fails the insert.
+     */
+    @Transient
+    private boolean persisted;
+
+    public CardIdempotencyKey(String key, String requestHash, LocalDateTime claimedAt, LocalDateTime expiresAt) {
+        this.key = key;
+        this.requestHash = requestHash;
+        this.claims = 1;
+        this.claimedAt = claimedAt;
+        this.expiresAt = expiresAt;
+    }
+
+    @Override
+    public String getId() {
+        return key;
+    }
+
+    @Override
+    public boolean isNew() {
+        return !persisted;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markPersisted() {
+        persisted = true;
+    }
+
+}
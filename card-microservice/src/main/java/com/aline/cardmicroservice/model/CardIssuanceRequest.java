@@ -0,0 +1,70 @@
+package com.aline.cardmicroservice.model;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import java.time.LocalDateTime;
+
+/**
+ * A debit card request accepted for asynchronous issuance.
+ * Persisted so queued requests survive restarts.
+ */
+@Entity
+@Table(name = "card_issuance_request", indexes = {
+        @Index(name = "idx_card_issuance_request_status", columnList = "status, created_at")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+public class CardIssuanceRequest {
+
+    /**
+     * Issuance id returned to the client.
+     */
+    @Id
+    @Column(length = 36)
+    private String id;
+
+    @Column(name = "account_number", nullable = false)
+    private String accountNumber;
+
+    @Column(name = "membership_id", nullable = false)
+    private String membershipId;
+
+    @Column(nullable = false)
+    private boolean replacement;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private IssuanceStatus status;
+
+    /**
+     * Incremented on every claim. A worker may only complete the attempt it claimed.
+     */
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(name = "card_id")
+    private Long cardId;
+
+    @Column(name = "failure_message", length = 512)
+    private String failureMessage;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "claimed_at")
+    private LocalDateTime claimedAt;
+
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+
+}
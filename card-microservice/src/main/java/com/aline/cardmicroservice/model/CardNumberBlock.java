@@ -0,0 +1,57 @@
+package com.aline.cardmicroservice.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.IdClass;
+import javax.persistence.Table;
+import java.io.Serializable;
+
+/**
+ * High-water mark of the account identifier space reserved for an IIN and
+ * card number length. Instances reserve blocks by moving the mark forward
+ * under a row lock.
+ */
+@Entity
+@Table(name = "card_number_block")
+@IdClass(CardNumberBlock.Key.class)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class CardNumberBlock {
+
+    /**
+     * Length of the rows written before blocks were kept per length.
+     */
+    public static final int ANY_LENGTH = 0;
+
+    @Id
+    @Column(length = 12)
+    private String iin;
+
+    @Id
+    @Column(name = "card_number_length")
+    private int cardNumberLength;
+
+    /**
+     * First account identifier sequence value that has not been reserved.
+     */
+    @Column(name = "next_value", nullable = false)
+    private long nextValue;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private String iin;
+        private int cardNumberLength;
+    }
+
+}
@@ -0,0 +1,103 @@
+package com.aline.cardmicroservice.model;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.domain.Persistable;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.PostLoad;
+import javax.persistence.PostPersist;
+import javax.persistence.Table;
+import javax.persistence.Transient;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * One partition of a daily reissue run. The row is the lease that keeps other
+ * instances off the partition and the checkpoint the partition resumes from.
+ */
+@Entity
+@Table(name = "card_reissue_partition", indexes = {
+        @Index(name = "idx_card_reissue_partition_run_date", columnList = "run_date")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+public class CardReissuePartition implements Persistable<String> {
+
+    @Id
+    @Column(length = 32)
+    private String id;
+
+    @Column(name = "run_date", nullable = false)
+    private LocalDate runDate;
+
+    @Column(name = "partition_no", nullable = false)
+    private int partitionNo;
+
+    @Column(name = "partition_count", nullable = false)
+    private int partitionCount;
+
+    /**
+     * Token of the current lease. A new token is issued on every acquisition,
+     * so a worker that lost its lease cannot checkpoint.
+     */
+    @Column(name = "lease_owner", length = 36)
+    private String leaseOwner;
+
+    @Column(name = "lease_expires_at")
+    private LocalDateTime leaseExpiresAt;
+
+    /**
+     * Keyset position of the last card processed, ordered by expiration date and id.
+     */
+    @Column(name = "last_expiration_date", nullable = false)
+    private LocalDate lastExpirationDate;
+
+    @Column(name = "last_card_id", nullable = false)
+    private long lastCardId;
+
+    @Column(nullable = false)
+    private int reissued;
+
+    @Column(nullable = false)
+    private int skipped;
+
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+
+    /**
+     * Partitions are inserted without a select first, a duplicate fails the insert.
+     */
+    @Transient
+    private boolean persisted;
+
+    public CardReissuePartition(LocalDate runDate, int partitionNo, int partitionCount) {
+        this.id = idOf(runDate, partitionNo);
+        this.runDate = runDate;
+        this.partitionNo = partitionNo;
+        this.partitionCount = partitionCount;
+        // Start just before the window so the keyset condition also bounds the scan
+        this.lastExpirationDate = runDate.minusDays(1);
+    }
+
+    public static String idOf(LocalDate runDate, int partitionNo) {
+        return runDate + ":" + partitionNo;
+    }
+
+    @Override
+    public boolean isNew() {
+        return !persisted;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markPersisted() {
+        persisted = true;
+    }
+
+}
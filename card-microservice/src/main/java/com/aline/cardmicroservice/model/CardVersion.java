@@ -0,0 +1,62 @@
+package com.aline.cardmicroservice.model;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.domain.Persistable;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.PostLoad;
+import javax.persistence.PostPersist;
+import javax.persistence.Table;
+import javax.persistence.Transient;
+
+/**
+ * Version of a card, incremented whenever the card changes. The card table
+ * belongs to the core schema, so the version is kept next to it. Cards
+ * without a row are at version 0.
+ */
+@Entity
+@Table(name = "card_version")
+@Getter
+@Setter
+@NoArgsConstructor
+public class CardVersion implements Persistable<Long> {
+
+    @Id
+    @Column(name = "card_id")
+    private Long cardId;
+
+    @Column(nullable = false)
+    private long version;
+
+    /**
+     * The id is the card id, so new rows are inserted without a select first.
+     */
+    @Transient
+    private boolean persisted;
+
+    public CardVersion(Long cardId, long version) {
+        this.cardId = cardId;
+        this.version = version;
+    }
+
+    @Override
+    public Long getId() {
+        return cardId;
+    }
+
+    @Override
+    public boolean isNew() {
+        return !persisted;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markPersisted() {
+        persisted = true;
+    }
+
+}
@@ -0,0 +1,8 @@
+package com.aline.cardmicroservice.model;
+
+public enum OutboxStatus {
+    PENDING,
+    SENDING,
+    SENT,
+    DEAD
+}
@@ -0,0 +1,42 @@
+package com.aline.cardmicroservice.repository;
+
+import com.aline.core.model.account.Account;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import javax.persistence.LockModeType;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Card specific account queries that are not part of the core account repository.
+ */
+public interface AccountLookupRepository extends JpaRepository<Account, Long> {
+
+    @Query("SELECT DISTINCT a FROM Account a LEFT JOIN FETCH a.members m LEFT JOIN FETCH m.applicant " +
+            "WHERE a.accountNumber IN :accountNumbers")
+    List<Account> findAllWithMembersByAccountNumberIn(@Param("accountNumbers") Collection<String> accountNumbers);
+
+    /**
+     * Load an account and hold a row lock on it until the transaction ends.
+     * Card issuance for an account is serialized on this lock across instances.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM Account a WHERE a.accountNumber = :accountNumber")
+    Optional<Account> lockByAccountNumber(@Param("accountNumber") String accountNumber);
+
+    /**
+     * Lock several accounts. Rows are locked in id order so concurrent callers cannot deadlock.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM Account a WHERE a.accountNumber IN :accountNumbers ORDER BY a.id")
+    List<Account> lockAllByAccountNumberIn(@Param("accountNumbers") Collection<String> accountNumbers);
+
+    @Query("SELECT a.accountNumber FROM Account a JOIN a.members m WHERE m.id = :memberId")
+    Set<String> findAccountNumbersByMemberId(@Param("memberId") Long memberId);
+
+}
@@ -0,0 +1,96 @@
+package com.aline.cardmicroservice.repository;
+
+import com.aline.core.model.card.Card;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.hibernate.type.Type;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Inserts new cards as one JDBC batch.
+ * <p>
+ * Card ids are IDENTITY, so Hibernate inserts cards one statement at a time
+ * to read each id back. This writes the same columns Hibernate would in a
+ * single batch on the session's connection, in the current transaction, and
+ * reads the generated ids back in order. With rewriteBatchedStatements the
+ * MySQL driver sends the batch as one multi-row insert. The card mapping
+ * comes from the Hibernate metamodel, so columns follow the core entity.
+ * <p>
+ * Inserted cards are not attached to the persistence context.
+ */
+@Component
+public class CardBatchInserter {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Insert the cards and set their generated ids.
+     */
+    public List<Card> insertAll(List<Card> cards) {
+        if (cards.isEmpty())
+            return cards;
+        SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+        AbstractEntityPersister persister = (AbstractEntityPersister) session.getFactory()
+                .getMetamodel().entityPersister(Card.class);
+
+        List<Integer> properties = new ArrayList<>();
+        List<String> columns = new ArrayList<>();
+        Type[] types = persister.getPropertyTypes();
+        boolean[] insertable = persister.getPropertyInsertability();
+        for (int i = 0; i < types.length; i++) {
+            if (!insertable[i] || types[i].isCollectionType())
+                continue;
+            String[] propertyColumns = persister.getPropertyColumnNames(i);
+            if (propertyColumns.length == 0)
+                continue;
+            properties.add(i);
+            for (String column : propertyColumns)
+                columns.add(column);
+        }
+
+        StringBuilder sql = new StringBuilder("insert into ").append(persister.getTableName())
+                .append(" (").append(String.join(", ", columns)).append(") values (");
+        for (int i = 0; i < columns.size(); i++)
+            sql.append(i == 0 ? "?" : ", ?");
+        sql.append(")");
+
+        session.doWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(sql.toString(), Statement.RETURN_GENERATED_KEYS)) {
+                for (Card card : cards) {
+                    Object[] values = persister.getPropertyValues(card);
+                    int index = 1;
+                    for (int property : properties) {
+                        types[property].nullSafeSet(statement, values[property], index, session);
+                        index += persister.getPropertyColumnNames(property).length;
+                    }
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+                assignIds(statement, cards, persister, session);
+            }
+        });
+        return cards;
+    }
+
+    private static void assignIds(PreparedStatement statement, List<Card> cards,
+                                  AbstractEntityPersister persister, SessionImplementor session) throws SQLException {
+        try (ResultSet keys = statement.getGeneratedKeys()) {
+            for (Card card : cards) {
+                if (!keys.next())
+                    throw new SQLException("Fewer generated card ids than inserted cards.");
+                persister.setIdentifier(card, keys.getLong(1), session);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,67 @@
+package com.aline.cardmicroservice.repository;
+
+import com.aline.cardmicroservice.model.CardEmailOutboxMessage;
+import com.aline.cardmicroservice.model.OutboxStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface CardEmailOutboxRepository extends JpaRepository<CardEmailOutboxMessage, Long> {
+
+    @Query("SELECT m.id FROM CardEmailOutboxMessage m " +
+            "WHERE m.status = com.aline.cardmicroservice.model.OutboxStatus.PENDING AND m.nextAttemptAt <= :now " +
+            "ORDER BY m.nextAttemptAt")
+    List<Long> findDueIds(@Param("now") LocalDateTime now, Pageable pageable);
+
+    /**
+     * Claim a pending message for delivery. Only one node can move a
+     * message out of PENDING, so the returned row count tells the caller
+     * whether it owns the message.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE CardEmailOutboxMessage m SET m.status = com.aline.cardmicroservice.model.OutboxStatus.SENDING, " +
+            "m.claimedAt = :now, m.attempts = m.attempts + 1 " +
+            "WHERE m.id = :id AND m.status = com.aline.cardmicroservice.model.OutboxStatus.PENDING")
+    int claim(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    /**
+     * Hand a claimed message back before delivery was attempted, as if it was never claimed.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE CardEmailOutboxMessage m SET m.status = com.aline.cardmicroservice.model.OutboxStatus.PENDING, " +
+            "m.claimedAt = NULL, m.attempts = m.attempts - 1 " +
+            "WHERE m.id = :id AND m.status = com.aline.cardmicroservice.model.OutboxStatus.SENDING")
+    int release(@Param("id") Long id);
+
+    /**
+     * Mark a claimed message as sent. Messages whose claim expired in the meantime are left dead-lettered.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE CardEmailOutboxMessage m SET m.status = com.aline.cardmicroservice.model.OutboxStatus.SENT, " +
+            "m.sentAt = :sentAt, m.lastError = NULL " +
+            "WHERE m.id = :id AND m.status = com.aline.cardmicroservice.model.OutboxStatus.SENDING")
+    int markSent(@Param("id") Long id, @Param("sentAt") LocalDateTime sentAt);
+
+    /**
+     * Messages left in SENDING by a node that died mid-delivery may
+     * already have been sent, so they are dead-lettered instead of retried.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE CardEmailOutboxMessage m SET m.status = com.aline.cardmicroservice.model.OutboxStatus.DEAD, " +
+            "m.lastError = 'Delivery outcome unknown: claim expired' " +
+            "WHERE m.status = com.aline.cardmicroservice.model.OutboxStatus.SENDING AND m.claimedAt < :cutoff")
+    int expireClaims(@Param("cutoff") LocalDateTime cutoff);
+
+    long countByStatus(OutboxStatus status);
+
+}
@@ -0,0 +1,25 @@
+package com.aline.cardmicroservice.repository;
+
+import com.aline.cardmicroservice.model.CardFingerprint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface CardFingerprintRepository extends JpaRepository<CardFingerprint, Long> {
+
+    boolean existsByFingerprint(String fingerprint);
+
+    @Query("SELECT f.cardId, f.fingerprint FROM CardFingerprint f WHERE f.cardId > :after ORDER BY f.cardId")
+    List<Object[]> findFingerprintsAfter(@Param("after") Long after, Pageable pageable);
+
+    /**
+     * Cards issued before fingerprints existed.
+     */
+    @Query("SELECT c.id, c.cardNumber FROM Card c WHERE c.id > :after " +
+            "AND NOT EXISTS (SELECT f.cardId FROM CardFingerprint f WHERE f.cardId = c.id) ORDER BY c.id")
+    List<Object[]> findCardsWithoutFingerprint(@Param("after") Long after, Pageable pageable);
+
+}
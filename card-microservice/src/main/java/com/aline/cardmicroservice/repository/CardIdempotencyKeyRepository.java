@@ -0,0 +1,47 @@
+package com.aline.cardmicroservice.repository;
+
+import com.aline.cardmicroservice.model.CardIdempotencyKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+public interface CardIdempotencyKeyRepository extends JpaRepository<CardIdempotencyKey, String> {
+
+    /**
+     * Take over a key whose request was abandoned before a card was issued.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE CardIdempotencyKey k SET k.claims = k.claims + 1, k.claimedAt = :now " +
+            "WHERE k.key = :key AND k.claims = :claims AND k.cardId IS NULL AND k.claimedAt < :cutoff")
+    int takeOver(@Param("key") String key, @Param("claims") int claims,
+                 @Param("now") LocalDateTime now, @Param("cutoff") LocalDateTime cutoff);
+
+    /**
+     * Record the issued card. Runs in the issuing transaction, so the card
+     * is rolled back if the claim was taken over in the meantime.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE CardIdempotencyKey k SET k.cardId = :cardId " +
+            "WHERE k.key = :key AND k.claims = :claims AND k.cardId IS NULL")
+    int complete(@Param("key") String key, @Param("claims") int claims, @Param("cardId") Long cardId);
+
+    /**
+     * Forget a key whose request failed so the client can retry it.
+     */
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM CardIdempotencyKey k WHERE k.key = :key AND k.claims = :claims AND k.cardId IS NULL")
+    int release(@Param("key") String key, @Param("claims") int claims);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM CardIdempotencyKey k WHERE k.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+
+}
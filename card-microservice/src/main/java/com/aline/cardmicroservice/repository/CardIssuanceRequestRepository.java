@@ -0,0 +1,72 @@
+package com.aline.cardmicroservice.repository;
+
+import com.aline.cardmicroservice.model.CardIssuanceRequest;
+import com.aline.cardmicroservice.model.IssuanceStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface CardIssuanceRequestRepository extends JpaRepository<CardIssuanceRequest, String> {
+
+    @Query("SELECT r.id FROM CardIssuanceRequest r " +
+            "WHERE r.status = com.aline.cardmicroservice.model.IssuanceStatus.QUEUED " +
+            "ORDER BY r.createdAt")
+    List<String> findQueuedIds(Pageable pageable);
+
+    /**
+     * Claim a queued request. The returned row count tells the caller whether it owns the request.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE CardIssuanceRequest r SET r.status = com.aline.cardmicroservice.model.IssuanceStatus.PROCESSING, " +
+            "r.claimedAt = :now, r.attempts = r.attempts + 1 " +
+            "WHERE r.id = :id AND r.status = com.aline.cardmicroservice.model.IssuanceStatus.QUEUED")
+    int claim(@Param("id") String id, @Param("now") LocalDateTime now);
+
+    /**
+     * Complete a claimed attempt. Runs in the transaction that creates the card,
+     * so a card is only committed by the worker that still owns the request.
+     */
+    @Modifying
+    @Query("UPDATE CardIssuanceRequest r SET r.status = com.aline.cardmicroservice.model.IssuanceStatus.COMPLETED, " +
+            "r.cardId = :cardId, r.completedAt = :now " +
+            "WHERE r.id = :id AND r.attempts = :attempt " +
+            "AND r.status = com.aline.cardmicroservice.model.IssuanceStatus.PROCESSING")
+    int complete(@Param("id") String id, @Param("attempt") int attempt, @Param("cardId") Long cardId, @Param("now") LocalDateTime now);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE CardIssuanceRequest r SET r.status = :status, r.failureMessage = :message, r.completedAt = :completedAt " +
+            "WHERE r.id = :id AND r.attempts = :attempt " +
+            "AND r.status = com.aline.cardmicroservice.model.IssuanceStatus.PROCESSING")
+    int release(@Param("id") String id, @Param("attempt") int attempt, @Param("status") IssuanceStatus status,
+                @Param("message") String message, @Param("completedAt") LocalDateTime completedAt);
+
+    /**
+     * Requeue requests whose worker died. Completion is transactional with card
+     * creation, so a request still in PROCESSING has not issued a card.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE CardIssuanceRequest r SET r.status = com.aline.cardmicroservice.model.IssuanceStatus.QUEUED " +
+            "WHERE r.status = com.aline.cardmicroservice.model.IssuanceStatus.PROCESSING AND r.claimedAt < :cutoff")
+    int requeueExpiredClaims(@Param("cutoff") LocalDateTime cutoff);
+
+    /**
+     * Return a claimed request to the queue when it could not be handed to a worker.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE CardIssuanceRequest r SET r.status = com.aline.cardmicroservice.model.IssuanceStatus.QUEUED " +
+            "WHERE r.id = :id AND r.status = com.aline.cardmicroservice.model.IssuanceStatus.PROCESSING")
+    int unclaim(@Param("id") String id);
+
+    long countByStatus(IssuanceStatus status);
+
+}
@@ -0,0 +1,19 @@
+package com.aline.cardmicroservice.repository;
+
+import com.aline.cardmicroservice.model.CardNumberBlock;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import javax.persistence.LockModeType;
+import java.util.Optional;
+
+public interface CardNumberBlockRepository extends JpaRepository<CardNumberBlock, CardNumberBlock.Key> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM CardNumberBlock b WHERE b.iin = :iin AND b.cardNumberLength = :cardNumberLength")
+    Optional<CardNumberBlock> lockByIinAndCardNumberLength(@Param("iin") String iin,
+                                                           @Param("cardNumberLength") int cardNumberLength);
+
+}
@@ -0,0 +1,62 @@
+package com.aline.cardmicroservice.repository;
+
+import com.aline.cardmicroservice.model.CardReissuePartition;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface CardReissuePartitionRepository extends JpaRepository<CardReissuePartition, String> {
+
+    List<CardReissuePartition> findByRunDateOrderByPartitionNo(LocalDate runDate);
+
+    /**
+     * Lease an unfinished partition that nobody holds or whose lease expired.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE CardReissuePartition p SET p.leaseOwner = :owner, p.leaseExpiresAt = :until " +
+            "WHERE p.id = :id AND p.completedAt IS NULL AND (p.leaseOwner IS NULL OR p.leaseExpiresAt < :now)")
+    int acquire(@Param("id") String id, @Param("owner") String owner,
+                @Param("now") LocalDateTime now, @Param("until") LocalDateTime until);
+
+    /**
+     * Record progress and extend the lease. Runs in the chunk's transaction,
+     * so the chunk rolls back if the lease was lost.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE CardReissuePartition p SET p.lastExpirationDate = :lastExpirationDate, p.lastCardId = :lastCardId, " +
+            "p.reissued = p.reissued + :reissued, p.skipped = p.skipped + :skipped, p.leaseExpiresAt = :until " +
+            "WHERE p.id = :id AND p.leaseOwner = :owner")
+    int checkpoint(@Param("id") String id, @Param("owner") String owner,
+                   @Param("lastExpirationDate") LocalDate lastExpirationDate, @Param("lastCardId") long lastCardId,
+                   @Param("reissued") int reissued, @Param("skipped") int skipped,
+                   @Param("until") LocalDateTime until);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE CardReissuePartition p SET p.completedAt = :now, p.leaseOwner = NULL, p.leaseExpiresAt = NULL " +
+            "WHERE p.id = :id AND p.leaseOwner = :owner")
+    int complete(@Param("id") String id, @Param("owner") String owner, @Param("now") LocalDateTime now);
+
+    /**
+     * Give a partition up so any instance can resume it from its checkpoint.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE CardReissuePartition p SET p.leaseOwner = NULL, p.leaseExpiresAt = NULL " +
+            "WHERE p.id = :id AND p.leaseOwner = :owner")
+    int release(@Param("id") String id, @Param("owner") String owner);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM CardReissuePartition p WHERE p.runDate < :before")
+    int deleteRunsBefore(@Param("before") LocalDate before);
+
+}
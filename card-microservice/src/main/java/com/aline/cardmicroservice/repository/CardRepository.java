@@ -1,19 +1,165 @@
 package com.aline.cardmicroservice.repository;
 
+import com.aline.cardmicroservice.dto.CardActivationCheck;
+import com.aline.cardmicroservice.dto.CardExportRow;
+import com.aline.cardmicroservice.dto.CardSummary;
+import com.aline.cardmicroservice.dto.ExpiringCard;
 import com.aline.core.model.Member;
 import com.aline.core.model.account.Account;
 import com.aline.core.model.card.Card;
+import com.aline.core.model.card.CardStatus;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import javax.persistence.QueryHint;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 
 public interface CardRepository extends JpaRepository<Card, Long> {
 
+    /**
+     * Rows fetched per round trip by {@link #streamAllForExport()}.
+     */
+    String EXPORT_FETCH_SIZE = "1000";
+
     Optional<Card> findByCardNumberAndSecurityCodeAndExpirationDate(String cardNumber, String securityCode, LocalDate expirationDate);
+
+    @Query("SELECT c FROM Card c, CardFingerprint f WHERE f.fingerprint = :fingerprint AND c.id = f.cardId " +
+            "AND c.securityCode = :securityCode AND c.expirationDate = :expirationDate")
+    Optional<Card> findByFingerprintAndSecurityCodeAndExpirationDate(@Param("fingerprint") String fingerprint,
+                                                                     @Param("securityCode") String securityCode,
+                                                                     @Param("expirationDate") LocalDate expirationDate);
+
+    @Query("SELECT c FROM Card c, CardFingerprint f WHERE f.fingerprint = :fingerprint AND c.id = f.cardId " +
+            "AND c.securityCode = :securityCode AND c.expirationDate = :expirationDate AND c.cardHolder.id = :cardHolderId")
+    Optional<Card> findByFingerprintAndSecurityCodeAndExpirationDateAndCardHolderId(@Param("fingerprint") String fingerprint,
+                                                                                   @Param("securityCode") String securityCode,
+                                                                                   @Param("expirationDate") LocalDate expirationDate,
+                                                                                   @Param("cardHolderId") Long cardHolderId);
+
+    Optional<Card> findByIdAndCardHolderId(Long id, Long cardHolderId);
+    boolean existsByIdAndCardHolderId(Long id, Long cardHolderId);
+
+    /**
+     * Check an activation request in one query. Holder details are compared
+     * in SQL, so the SSN is never read. A holder without a date of birth or
+     * SSN never matches. The checks run in the order of
+     * {@link CardActivationCheck}'s reason codes and the first failing one is returned.
+     * The request's holder details must not be null, a null parameter makes
+     * the comparison unknown instead of false. The check also carries what the
+     * activation response needs, so the card is not loaded afterwards.
+     */
+    @Query("SELECT new com.aline.cardmicroservice.dto.CardActivationCheck(c.id, holder.id, account.id, c.cardType, " +
+            "c.cardNumber, c.securityCode, c.expirationDate, applicant.firstName, applicant.lastName, account.accountNumber, " +
+            "CASE WHEN applicant.dateOfBirth IS NULL OR applicant.dateOfBirth <> :dateOfBirth " +
+            "OR applicant.socialSecurity IS NULL " +
+            "OR SUBSTRING(applicant.socialSecurity, LENGTH(applicant.socialSecurity) - 3, 4) <> :lastFourOfSSN THEN 1 " +
+            "WHEN c.cardStatus = com.aline.core.model.card.CardStatus.ACTIVE THEN 2 " +
+            "WHEN c.cardStatus = com.aline.core.model.card.CardStatus.CLOSED THEN 3 " +
+            "WHEN account.status = com.aline.core.model.account.AccountStatus.ARCHIVED THEN 4 " +
+            "ELSE 0 END) " +
+            "FROM Card c JOIN c.cardHolder holder JOIN holder.applicant applicant JOIN c.account account, CardFingerprint f " +
+            "WHERE f.fingerprint = :fingerprint AND c.id = f.cardId " +
+            "AND c.securityCode = :securityCode AND c.expirationDate = :expirationDate")
+    Optional<CardActivationCheck> checkActivation(@Param("fingerprint") String fingerprint,
+                                                  @Param("securityCode") String securityCode,
+                                                  @Param("expirationDate") LocalDate expirationDate,
+                                                  @Param("dateOfBirth") LocalDate dateOfBirth,
+                                                  @Param("lastFourOfSSN") String lastFourOfSSN);
+
+    /**
+     * Activate an inactive card unless its account was closed. Repeats the
+     * status checks of {@link #checkActivation}, so a concurrent activation
+     * or closure in between updates nothing.
+     *
+     * @return 1 if the card was activated, otherwise 0.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Card c SET c.cardStatus = com.aline.core.model.card.CardStatus.ACTIVE " +
+            "WHERE c.id = :id AND c.cardStatus = com.aline.core.model.card.CardStatus.INACTIVE " +
+            "AND EXISTS (SELECT a.id FROM Account a WHERE a.id = c.account.id " +
+            "AND a.status <> com.aline.core.model.account.AccountStatus.ARCHIVED)")
+    int activate(@Param("id") Long id);
+
     List<Card> findCardsByCardHolderAndAccount(Member cardHolder, Account account);
     boolean existsCardByCardHolderAndAccount(Member cardHolder, Account account);
     List<Card> getCardsByCardHolderId(Long cardHolderId);
 
+    /**
+     * Close every open card of a member on an account in one statement.
+     *
+     * @return The number of cards closed.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Card c SET c.cardStatus = com.aline.core.model.card.CardStatus.CLOSED " +
+            "WHERE c.cardHolder.id = :cardHolderId AND c.account.id = :accountId " +
+            "AND c.cardStatus <> com.aline.core.model.card.CardStatus.CLOSED")
+    int closeCardsByCardHolderIdAndAccountId(@Param("cardHolderId") Long cardHolderId, @Param("accountId") Long accountId);
+
+    @Query("SELECT c.id FROM Card c WHERE c.cardHolder.id = :cardHolderId AND c.account.id = :accountId " +
+            "AND c.cardStatus <> com.aline.core.model.card.CardStatus.CLOSED")
+    List<Long> findOpenIdsByCardHolderIdAndAccountId(@Param("cardHolderId") Long cardHolderId, @Param("accountId") Long accountId);
+
+    List<Card> findCardsByAccountIdIn(Collection<Long> accountIds);
+    List<Card> findCardsByCardHolderIdAndCardStatusNot(Long cardHolderId, CardStatus cardStatus);
+
+    /**
+     * Keyset page of a member's cards. Only the listed columns are selected
+     * and the status filter runs in SQL.
+     */
+    @Query("SELECT new com.aline.cardmicroservice.dto.CardSummary(c.id, c.cardNumber, c.securityCode, c.expirationDate, " +
+            "c.cardStatus, c.cardType, CONCAT(applicant.firstName, ' ', applicant.lastName), holder.membershipId, " +
+            "account.accountNumber, issuer.issuerName) " +
+            "FROM Card c JOIN c.cardHolder holder JOIN holder.applicant applicant JOIN c.account account " +
+            "LEFT JOIN c.cardIssuer issuer " +
+            "WHERE holder.id = :memberId AND c.cardStatus IN :statuses AND c.id > :after " +
+            "ORDER BY c.id")
+    List<CardSummary> findCardSummariesByCardHolderId(@Param("memberId") Long memberId,
+                                                      @Param("statuses") Collection<CardStatus> statuses,
+                                                      @Param("after") Long after,
+                                                      Pageable pageable);
+
+    /**
+     * Keyset page of open debit cards in one reissue partition that expire on or
+     * before the cutoff, ordered by expiration date and id. Pages continue after
+     * the given position.
+     */
+    @Query("SELECT new com.aline.cardmicroservice.dto.ExpiringCard(c.id, c.expirationDate, account.accountNumber) " +
+            "FROM Card c JOIN c.account account " +
+            "WHERE c.cardType = com.aline.core.model.card.CardType.DEBIT " +
+            "AND c.cardStatus <> com.aline.core.model.card.CardStatus.CLOSED " +
+            "AND c.expirationDate <= :cutoff AND MOD(c.id, :partitions) = :partition " +
+            "AND (c.expirationDate > :lastExpirationDate OR (c.expirationDate = :lastExpirationDate AND c.id > :lastCardId)) " +
+            "ORDER BY c.expirationDate, c.id")
+    List<ExpiringCard> findExpiringCards(@Param("cutoff") LocalDate cutoff,
+                                         @Param("partitions") int partitions,
+                                         @Param("partition") int partition,
+                                         @Param("lastExpirationDate") LocalDate lastExpirationDate,
+                                         @Param("lastCardId") long lastCardId,
+                                         Pageable pageable);
+
+    /**
+     * Every card in id order, read through a cursor. Must be consumed in a read-only
+     * transaction and closed. MySQL only streams with useCursorFetch=true.
+     */
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE),
+            @QueryHint(name = HINT_READONLY, value = "true")
+    })
+    @Query("SELECT new com.aline.cardmicroservice.dto.CardExportRow(c.id, c.cardStatus, c.cardType, c.expirationDate, " +
+            "account.accountNumber, holder.membershipId, issuer.issuerName) " +
+            "FROM Card c JOIN c.cardHolder holder JOIN c.account account LEFT JOIN c.cardIssuer issuer " +
+            "ORDER BY c.id")
+    Stream<CardExportRow> streamAllForExport();
+
 }
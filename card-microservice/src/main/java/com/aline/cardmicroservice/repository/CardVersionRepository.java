@@ -0,0 +1,23 @@
+package com.aline.cardmicroservice.repository;
+
+import com.aline.cardmicroservice.model.CardVersion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
+
+public interface CardVersionRepository extends JpaRepository<CardVersion, Long> {
+
+    @Query("SELECT v.version FROM CardVersion v WHERE v.cardId = :cardId")
+    Optional<Long> findVersionByCardId(@Param("cardId") Long cardId);
+
+    /**
+     * @return 1 if the card already had a version, otherwise 0.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE CardVersion v SET v.version = v.version + 1 WHERE v.cardId = :cardId")
+    int increment(@Param("cardId") Long cardId);
+
+}
@@ -2,9 +2,14 @@ package com.aline.cardmicroservice.repository;
 
 import com.aline.core.model.card.IssuerIdentificationNumber;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface IssuerIdentificationNumberRepository extends JpaRepository<IssuerIdentificationNumber, String> {
     Optional<IssuerIdentificationNumber> findIssuerIdentificationNumberByCardIssuerIssuerName(String name);
+
+    @Query("SELECT iin FROM IssuerIdentificationNumber iin JOIN FETCH iin.cardIssuer")
+    List<IssuerIdentificationNumber> findAllWithCardIssuer();
 }
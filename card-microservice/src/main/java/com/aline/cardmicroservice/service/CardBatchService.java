@@ -0,0 +1,204 @@
+package com.aline.cardmicroservice.service;
+
+import com.aline.cardmicroservice.config.CardBatchProperties;
+import com.aline.cardmicroservice.dto.CreateDebitCardBatchResponse;
+import com.aline.cardmicroservice.event.CardLifecycleEvent;
+import com.aline.cardmicroservice.event.CardLifecycleEventType;
+import com.aline.cardmicroservice.metrics.CardMetrics;
+import com.aline.cardmicroservice.metrics.CardRejection;
+import com.aline.cardmicroservice.repository.AccountLookupRepository;
+import com.aline.cardmicroservice.repository.CardBatchInserter;
+import com.aline.cardmicroservice.repository.CardRepository;
+import com.aline.core.dto.request.CreateDebitCardRequest;
+import com.aline.core.exception.BadRequestException;
+import com.aline.core.model.Member;
+import com.aline.core.model.account.Account;
+import com.aline.core.model.card.Card;
+import com.aline.core.model.card.CardIssuer;
+import com.aline.core.model.card.CardStatus;
+import com.aline.core.model.card.IssuerIdentificationNumber;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Issues debit cards in bulk. Requests are processed in chunks, each in its own
+ * transaction, with set-based lookups and batched inserts per chunk.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CardBatchService {
+
+    private final CardService cardService;
+    private final CardRepository repository;
+    private final CardBatchInserter cardBatchInserter;
+    private final AccountLookupRepository accountLookupRepository;
+    private final CardIssuerService cardIssuerService;
+    private final CardEmailService cardEmailService;
+    private final CardFingerprintService cardFingerprintService;
+    private final CardBatchProperties properties;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CardMetrics cardMetrics;
+
+    @PreAuthorize("@authService.canIssueInBulk()")
+    public CreateDebitCardBatchResponse createDebitCards(List<CreateDebitCardRequest> requests) {
+        if (requests.size() > properties.getMaxItems())
+            throw new BadRequestException(String.format("A batch cannot contain more than %d card requests.", properties.getMaxItems()));
+
+        CardIssuer cardIssuer = cardIssuerService.getDefaultCardIssuer();
+        IssuerIdentificationNumber iin = cardIssuerService.getDefaultIin();
+        log.info("Issuing {} debit card(s) in bulk using issuer: {}", requests.size(), cardIssuer.getIssuerName());
+
+        CreateDebitCardBatchResponse.Item[] results = new CreateDebitCardBatchResponse.Item[requests.size()];
+        int chunkSize = properties.getChunkSize();
+        for (int from = 0; from < requests.size(); from += chunkSize) {
+            int to = Math.min(from + chunkSize, requests.size());
+            issueChunk(requests, from, to, cardIssuer, iin, results);
+        }
+
+        List<CreateDebitCardBatchResponse.Item> items = Arrays.asList(results);
+        int created = (int) items.stream()
+                .filter(item -> item.getStatus() == CreateDebitCardBatchResponse.Status.CREATED)
+                .count();
+        log.info("Bulk issuance finished. Created: {}, Failed: {}", created, items.size() - created);
+
+        return CreateDebitCardBatchResponse.builder()
+                .created(created)
+                .failed(items.size() - created)
+                .results(items)
+                .build();
+    }
+
+    private void issueChunk(List<CreateDebitCardRequest> requests, int from, int to,
+                            CardIssuer cardIssuer, IssuerIdentificationNumber iin,
+                            CreateDebitCardBatchResponse.Item[] results) {
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    issueChunkInTransaction(requests, from, to, cardIssuer, iin, results));
+        } catch (RuntimeException e) {
+            log.error("Bulk issuance chunk [{}, {}) failed and was rolled back.", from, to, e);
+            for (int i = from; i < to; i++) {
+                // Keep validation failures, everything else in the chunk was rolled back
+                if (results[i] == null || results[i].getStatus() == CreateDebitCardBatchResponse.Status.CREATED)
+                    results[i] = failed(i, requests.get(i), "Card could not be created. Please try again.");
+            }
+        }
+    }
+
+    private void issueChunkInTransaction(List<CreateDebitCardRequest> requests, int from, int to,
+                                         CardIssuer cardIssuer, IssuerIdentificationNumber iin,
+                                         CreateDebitCardBatchResponse.Item[] results) {
+        List<CreateDebitCardRequest> chunk = requests.subList(from, to);
+
+        Set<String> accountNumbers = chunk.stream()
+                .map(CreateDebitCardRequest::getAccountNumber)
+                .collect(Collectors.toSet());
+        // Same row locks as single issuance, so a concurrent replacement waits for this chunk
+        accountLookupRepository.lockAllByAccountNumberIn(accountNumbers);
+        Map<String, Account> accounts = accountLookupRepository.findAllWithMembersByAccountNumberIn(accountNumbers)
+                .stream()
+                .collect(Collectors.toMap(Account::getAccountNumber, Function.identity()));
+
+        Set<Long> accountIds = accounts.values().stream()
+                .map(Account::getId)
+                .collect(Collectors.toSet());
+        Map<String, List<Card>> existingCards = new HashMap<>();
+        if (!accountIds.isEmpty()) {
+            repository.findCardsByAccountIdIn(accountIds).forEach(card ->
+                    existingCards.computeIfAbsent(ownerKey(card.getCardHolder(), card.getAccount()), key -> new ArrayList<>())
+                            .add(card));
+        }
+
+        Set<String> issuedInChunk = new HashSet<>();
+        List<Card> toSave = new ArrayList<>();
+        List<Integer> savedIndexes = new ArrayList<>();
+        List<Boolean> replacements = new ArrayList<>();
+
+        for (int i = from; i < to; i++) {
+            CreateDebitCardRequest request = requests.get(i);
+            try {
+                Account account = accounts.get(request.getAccountNumber());
+                if (account == null)
+                    throw cardMetrics.reject(CardRejection.ACCOUNT_NOT_FOUND);
+
+                cardService.checkDebitCardEligibility(account);
+                Member member = cardService.findAccountMember(account, request.getMembershipId());
+
+                String key = ownerKey(member, account);
+                if (!issuedInChunk.add(key))
+                    throw cardMetrics.reject(CardRejection.DUPLICATE_IN_BATCH);
+
+                List<Card> cards = existingCards.getOrDefault(key, new ArrayList<>());
+                if (!cards.isEmpty()) {
+                    if (!request.isReplacement())
+                        throw cardMetrics.reject(CardRejection.CARD_EXISTS);
+                    // Dirty checking flushes these as batched updates
+                    for (Card card : cards) {
+                        if (card.getCardStatus() == CardStatus.CLOSED)
+                            continue;
+                        card.setCardStatus(CardStatus.CLOSED);
+                        eventPublisher.publishEvent(CardLifecycleEvent.of(CardLifecycleEventType.CLOSED_FOR_REPLACEMENT,
+                                card.getId(), member.getId(), account.getId()));
+                    }
+                }
+
+                toSave.add(cardService.buildDebitCard(member, account, cardIssuer, iin));
+                savedIndexes.add(i);
+                replacements.add(request.isReplacement());
+            } catch (BadRequestException e) {
+                results[i] = failed(i, request, e.getMessage());
+            }
+        }
+
+        // Closed cards are flushed first, so a failed insert rolls back with them
+        repository.flush();
+        List<Card> saved = cardBatchInserter.insertAll(toSave);
+        cardFingerprintService.registerAll(saved);
+
+        for (int j = 0; j < saved.size(); j++) {
+            int index = savedIndexes.get(j);
+            Card card = saved.get(j);
+            CreateDebitCardRequest request = requests.get(index);
+            cardEmailService.sendCard(card, replacements.get(j));
+            eventPublisher.publishEvent(CardLifecycleEvent.of(CardLifecycleEventType.CREATED,
+                    card.getId(), card.getCardHolder().getId(), card.getAccount().getId()));
+            results[index] = CreateDebitCardBatchResponse.Item.builder()
+                    .index(index)
+                    .accountNumber(request.getAccountNumber())
+                    .membershipId(request.getMembershipId())
+                    .status(CreateDebitCardBatchResponse.Status.CREATED)
+                    .card(cardService.mapToCreateDebitCardResponse(card))
+                    .build();
+        }
+    }
+
+    private static String ownerKey(Member member, Account account) {
+        return member.getId() + ":" + account.getId();
+    }
+
+    private static CreateDebitCardBatchResponse.Item failed(int index, CreateDebitCardRequest request, String message) {
+        return CreateDebitCardBatchResponse.Item.builder()
+                .index(index)
+                .accountNumber(request.getAccountNumber())
+                .membershipId(request.getMembershipId())
+                .status(CreateDebitCardBatchResponse.Status.FAILED)
+                .message(message)
+                .build();
+    }
+
+}
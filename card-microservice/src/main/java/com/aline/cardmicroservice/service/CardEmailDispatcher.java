@@ -0,0 +1,94 @@
+package com.aline.cardmicroservice.service;
+
+import com.aline.cardmicroservice.config.CardEmailOutboxProperties;
+import com.aline.cardmicroservice.repository.CardEmailOutboxRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Drains the card email outbox in batches on a bounded executor.
+ * <p>
+ * A poll only claims as many messages as there are free delivery slots and
+ * returns without waiting for them. Messages beyond that stay PENDING for a
+ * later poll, so the scheduler thread is never held by a slow email provider.
+ */
+@Component
+@Lazy(false)
+@Slf4j
+public class CardEmailDispatcher {
+
+    private final CardEmailOutboxRepository outboxRepository;
+    private final CardEmailService cardEmailService;
+    private final CardEmailOutboxProperties properties;
+    private final TaskExecutor executor;
+    private final Semaphore slots;
+
+    public CardEmailDispatcher(CardEmailOutboxRepository outboxRepository,
+                               CardEmailService cardEmailService,
+                               CardEmailOutboxProperties properties,
+                               @Qualifier("cardEmailExecutor") TaskExecutor executor) {
+        this.outboxRepository = outboxRepository;
+        this.cardEmailService = cardEmailService;
+        this.properties = properties;
+        this.executor = executor;
+        this.slots = new Semaphore(properties.getBatchSize());
+    }
+
+    @Scheduled(fixedDelayString = "${app.card.email-outbox.poll-interval:PT2S}")
+    public void dispatch() {
+        LocalDateTime now = LocalDateTime.now();
+
+        int expired = outboxRepository.expireClaims(now.minus(properties.getClaimTimeout()));
+        if (expired > 0)
+            log.error("{} card email(s) were abandoned mid-delivery and moved to dead letter.", expired);
+
+        int free = slots.availablePermits();
+        if (free == 0)
+            return;
+        List<Long> dueIds = outboxRepository.findDueIds(now, PageRequest.of(0, free));
+
+        int dispatched = 0;
+        for (Long id : dueIds) {
+            if (!slots.tryAcquire())
+                break;
+            // Another node may have claimed the message since it was read
+            if (outboxRepository.claim(id, now) != 1) {
+                slots.release();
+                continue;
+            }
+            try {
+                executor.execute(() -> deliver(id));
+                dispatched++;
+            } catch (RejectedExecutionException e) {
+                // Not sent, so the message goes back to PENDING instead of being dead-lettered on claim expiry
+                outboxRepository.release(id);
+                slots.release();
+                log.warn("Card email executor is saturated. Leaving the rest of the batch for the next poll.");
+                break;
+            }
+        }
+        if (dispatched > 0)
+            log.debug("Dispatched {} card email(s).", dispatched);
+    }
+
+    private void deliver(Long id) {
+        try {
+            cardEmailService.deliver(id);
+        } catch (Exception e) {
+            cardEmailService.recordFailure(id, e);
+        } finally {
+            slots.release();
+        }
+    }
+
+}
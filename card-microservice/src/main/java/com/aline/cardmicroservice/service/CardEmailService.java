@@ -1,16 +1,29 @@
 package com.aline.cardmicroservice.service;
 
-import com.aline.core.dto.response.CardResponse;
-import com.aline.core.aws.email.EmailService;
+import com.aline.cardmicroservice.config.CardEmailOutboxProperties;
+import com.aline.cardmicroservice.email.TemplateEmailSender;
+import com.aline.cardmicroservice.mapper.CardResponseMapper;
+import com.aline.cardmicroservice.metrics.CardMetrics;
+import com.aline.cardmicroservice.model.CardEmailOutboxMessage;
+import com.aline.cardmicroservice.model.OutboxStatus;
+import com.aline.cardmicroservice.repository.CardEmailOutboxRepository;
+import com.aline.cardmicroservice.repository.CardRepository;
 import com.aline.core.config.AppConfig;
+import com.aline.core.exception.notfound.CardNotFoundException;
 import com.aline.core.model.Applicant;
 import com.aline.core.model.Member;
 import com.aline.core.model.card.Card;
-import com.aline.core.util.CardUtility;
+import lombok.Getter;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import javax.transaction.Transactional;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.Arrays;
 import java.util.Map;
@@ -18,26 +31,159 @@ import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
+@Slf4j
 public class CardEmailService {
 
-    private final EmailService emailService;
+    private final TemplateEmailSender emailService;
     private final AppConfig appConfig;
-    private final CardUtility cardUtility;
+    private final CardResponseMapper cardResponseMapper;
+    private final CardRepository cardRepository;
+    private final CardEmailOutboxRepository outboxRepository;
+    private final CardEmailOutboxProperties outboxProperties;
+    private final CardMetrics cardMetrics;
+    private final TransactionTemplate transactionTemplate;
 
+    /**
+     * Queue the card email. The outbox row joins the caller's
+     * transaction so it is only visible once the card is committed.
+     */
+    @Transactional
     public void sendCard(Card card, boolean replacement) {
+        CardMetrics.Operation operation = startOperation("send_card", card, replacement);
+        try {
+            operation.time("enqueue", () -> {
+                LocalDateTime now = LocalDateTime.now();
+                CardEmailOutboxMessage message = new CardEmailOutboxMessage();
+                message.setCardId(card.getId());
+                message.setReplacement(replacement);
+                message.setStatus(OutboxStatus.PENDING);
+                message.setNextAttemptAt(now);
+                message.setCreatedAt(now);
+                outboxRepository.save(message);
+            });
+        } catch (RuntimeException e) {
+            operation.failed(e);
+            throw e;
+        } finally {
+            operation.stop();
+        }
+        log.info("Queued card email for card {}.", card.getId());
+    }
+
+    /**
+     * Deliver a claimed outbox message and mark it as sent. The message and
+     * card are read in one transaction and the message is marked sent in a
+     * second one, so no transaction is held while the email provider is called.
+     */
+    public void deliver(Long messageId) {
+        CardEmail email = transactionTemplate.execute(status -> {
+            CardEmailOutboxMessage message = outboxRepository.findById(messageId)
+                    .orElseThrow(() -> new IllegalStateException("Outbox message " + messageId + " no longer exists."));
+            if (message.getStatus() != OutboxStatus.SENDING) {
+                log.warn("Outbox message {} is {} and was not claimed. Skipping.", messageId, message.getStatus());
+                return null;
+            }
+            Card card = cardRepository.findById(message.getCardId())
+                    .orElseThrow(CardNotFoundException::new);
+            return render(card, message.isReplacement());
+        });
+        if (email == null)
+            return;
+        try {
+            send(email);
+        } catch (RuntimeException e) {
+            throw new DeliveryFailedException(e);
+        }
+        if (outboxRepository.markSent(messageId, LocalDateTime.now()) != 1)
+            log.warn("Card email {} was sent after its claim expired.", messageId);
+    }
+
+    /**
+     * Record a failed delivery. Messages that were not handed to the email
+     * provider are retried with exponential backoff until they run out of
+     * attempts. Anything else may already have been sent and is dead-lettered.
+     */
+    @Transactional
+    public void recordFailure(Long messageId, Exception cause) {
+        boolean retryable = cause instanceof DeliveryFailedException;
+        outboxRepository.findById(messageId).ifPresent(message -> {
+            message.setLastError(StringUtils.abbreviate(String.valueOf(cause.getMessage()), 512));
+            if (!retryable || message.getAttempts() >= outboxProperties.getMaxAttempts()) {
+                log.error("Card email {} failed {} times. Moving to dead letter.", messageId, message.getAttempts());
+                message.setStatus(OutboxStatus.DEAD);
+            } else {
+                Duration backoff = backoff(message.getAttempts());
+                log.warn("Card email {} failed (attempt {}). Retrying in {}.", messageId, message.getAttempts(), backoff);
+                message.setStatus(OutboxStatus.PENDING);
+                message.setNextAttemptAt(LocalDateTime.now().plus(backoff));
+            }
+        });
+    }
+
+    Duration backoff(int attempts) {
+        Duration initial = outboxProperties.getInitialBackoff();
+        Duration max = outboxProperties.getMaxBackoff();
+        int exponent = Math.min(Math.max(attempts - 1, 0), 30);
+        Duration backoff = initial.multipliedBy(1L << exponent);
+        return backoff.compareTo(max) > 0 ? max : backoff;
+    }
+
+    public void deliverCard(Card card, boolean replacement) {
+        send(render(card, replacement));
+    }
+
+    /**
+     * Read everything the email needs from the card, while its associations can still be loaded.
+     */
+    CardEmail render(Card card, boolean replacement) {
+        CardMetrics.Operation operation = startOperation("deliver_card_email", card, replacement);
+        try {
+            Applicant applicant = card.getCardHolder().getApplicant();
+            Map<String, String> variables = operation.time("render", () -> buildVariables(card));
+
+            String templateName = replacement ? "card/replace-card" : "card/send-card";
+
+            return new CardEmail(operation, templateName, applicant.getEmail(), variables);
+        } catch (RuntimeException e) {
+            operation.failed(e);
+            operation.stop();
+            throw e;
+        }
+    }
+
+    void send(CardEmail email) {
+        CardMetrics.Operation operation = email.getOperation();
+        try {
+            operation.time("send", () -> emailService.sendHtmlEmail("Card successfully issued",
+                    email.getTemplateName(), email.getTo(), email.getVariables()));
+        } catch (RuntimeException e) {
+            operation.failed(e);
+            throw e;
+        } finally {
+            operation.stop();
+        }
+    }
+
+    private CardMetrics.Operation startOperation(String name, Card card, boolean replacement) {
+        return cardMetrics.start(name)
+                .issuer(card.getCardIssuer() == null ? null : card.getCardIssuer().getIssuerName())
+                .cardType(card.getCardType())
+                .replacement(replacement);
+    }
+
+    public Map<String, String> buildVariables(Card card) {
         Member member = card.getCardHolder();
         Applicant applicant = member.getApplicant();
-        CardResponse cardResponse = cardUtility.mapToResponse(card);
-        String cardNumber = cardResponse.getCardNumber();
-        String securityCode = cardResponse.getSecurityCode();
-        LocalDate expirationDate = cardResponse.getExpirationDate();
+        String cardNumber = card.getCardNumber();
+        String securityCode = card.getSecurityCode();
+        LocalDate expirationDate = card.getExpirationDate();
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("MM/yy");
-        String cardHolderName = cardResponse.getCardHolder().toUpperCase();
+        String cardHolderName = cardResponseMapper.cardHolderName(member).toUpperCase();
         String memberDashboard = appConfig.getMemberDashboard() + "/activate";
 
         String formattedCardNumber = cardNumber.replaceAll("\\d{4}(?!$)", "$0 ");
 
-        Map<String, String> variables = Arrays.stream(new String[][] {
+        return Arrays.stream(new String[][] {
                 {"name", applicant.getFirstName()},
                 {"landingPortalUrl", appConfig.getLandingPortal()},
                 {"cardNumber", formattedCardNumber},
@@ -47,10 +193,27 @@ public class CardEmailService {
                 {"activateCardUrl", memberDashboard},
                 {"issuerName", card.getCardIssuer().getIssuerName()}
         }).collect(Collectors.toMap(data -> data[0], data -> data[1]));
+    }
 
-        String templateName = replacement ? "card/replace-card" : "card/send-card";
+    /**
+     * A rendered card email, sent outside the transaction it was rendered in.
+     */
+    @Getter
+    @RequiredArgsConstructor
+    static class CardEmail {
+        private final CardMetrics.Operation operation;
+        private final String templateName;
+        private final String to;
+        private final Map<String, String> variables;
+    }
 
-        emailService.sendHtmlEmail("Card successfully issued", templateName, applicant.getEmail(), variables);
+    /**
+     * Thrown when the email provider rejected or failed to accept the email.
+     */
+    public static class DeliveryFailedException extends RuntimeException {
+        public DeliveryFailedException(Throwable cause) {
+            super(cause.getMessage(), cause);
+        }
     }
 
 }
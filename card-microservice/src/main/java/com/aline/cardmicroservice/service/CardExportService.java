@@ -0,0 +1,188 @@
+package com.aline.cardmicroservice.service;
+
+import com.aline.cardmicroservice.config.CardExportProperties;
+import com.aline.cardmicroservice.dto.CardExportRow;
+import com.aline.cardmicroservice.repository.CardRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Streams every card to an output stream for reconciliation. Rows are read
+ * through a database cursor and written as they arrive, so memory use does
+ * not grow with the number of cards. Writes block when the client reads
+ * slowly, which in turn holds back the cursor.
+ */
+@Service
+@Slf4j
+public class CardExportService {
+
+    public enum Format {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv", "csv");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+    }
+
+    static final String CSV_HEADER = "id,card_status,card_type,expiration_date,account_number,membership_id,issuer_name";
+
+    private final CardRepository repository;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    private final CardExportProperties properties;
+    private final Counter exportedRows;
+
+    public CardExportService(CardRepository repository,
+                             EntityManager entityManager,
+                             ObjectMapper objectMapper,
+                             CardExportProperties properties,
+                             MeterRegistry meterRegistry) {
+        this.repository = repository;
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+        this.exportedRows = Counter.builder("card.export.rows")
+                .description("Cards written by exports")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Opens the export's output once the caller has been authorized.
+     */
+    public interface Output {
+        OutputStream open() throws IOException;
+    }
+
+    /**
+     * The output is closed when the export is done.
+     *
+     * @return The number of cards written.
+     */
+    @PreAuthorize("@authService.canExportCards()")
+    @Transactional(readOnly = true)
+    public long export(Format format, Output output) throws IOException {
+        long start = System.currentTimeMillis();
+        long count = 0;
+        try (Stream<CardExportRow> rows = repository.streamAllForExport();
+             Writer writer = new BufferedWriter(new OutputStreamWriter(output.open(), StandardCharsets.UTF_8), properties.getBufferSize())) {
+            RowWriter rowWriter = format == Format.CSV ? new CsvRowWriter(writer) : new JsonRowWriter(writer);
+            Iterator<CardExportRow> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                rowWriter.write(iterator.next());
+                if (++count % properties.getFlushEvery() == 0) {
+                    // Rows are projections, this only drops anything loaded alongside them
+                    entityManager.clear();
+                    writer.flush();
+                    exportedRows.increment(properties.getFlushEvery());
+                }
+            }
+            rowWriter.finish();
+        }
+        exportedRows.increment(count % properties.getFlushEvery());
+        log.info("Exported {} card(s) as {} in {} ms.", count, format, System.currentTimeMillis() - start);
+        return count;
+    }
+
+    private interface RowWriter {
+        void write(CardExportRow row) throws IOException;
+
+        void finish() throws IOException;
+    }
+
+    private class JsonRowWriter implements RowWriter {
+        private final JsonGenerator generator;
+        private boolean written;
+
+        JsonRowWriter(Writer writer) throws IOException {
+            this.generator = objectMapper.getFactory().createGenerator(writer);
+            this.generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            // Keeps one row per line even when the application's mapper indents output
+            this.generator.setPrettyPrinter(new MinimalPrettyPrinter("\n"));
+        }
+
+        @Override
+        public void write(CardExportRow row) throws IOException {
+            generator.writeObject(row);
+            written = true;
+        }
+
+        @Override
+        public void finish() throws IOException {
+            if (written)
+                generator.writeRaw('\n');
+            generator.flush();
+        }
+    }
+
+    private static class CsvRowWriter implements RowWriter {
+        private final Writer writer;
+
+        CsvRowWriter(Writer writer) throws IOException {
+            this.writer = writer;
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+
+        @Override
+        public void write(CardExportRow row) throws IOException {
+            writer.write(String.valueOf(row.getId()));
+            writer.write(',');
+            writer.write(value(row.getCardStatus()));
+            writer.write(',');
+            writer.write(value(row.getCardType()));
+            writer.write(',');
+            writer.write(value(row.getExpirationDate()));
+            writer.write(',');
+            writer.write(value(row.getAccountNumber()));
+            writer.write(',');
+            writer.write(value(row.getMembershipId()));
+            writer.write(',');
+            writer.write(value(row.getIssuerName()));
+            writer.write('\n');
+        }
+
+        @Override
+        public void finish() {
+        }
+
+        static String value(Object value) {
+            if (value == null)
+                return "";
+            String text = value.toString();
+            if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0)
+                return text;
+            return '"' + text.replace("\"", "\"\"") + '"';
+        }
+    }
+
+}
@@ -0,0 +1,265 @@
+package com.aline.cardmicroservice.service;
+
+import com.aline.cardmicroservice.config.CardFingerprintProperties;
+import com.aline.cardmicroservice.model.CardFingerprint;
+import com.aline.cardmicroservice.repository.CardFingerprintRepository;
+import com.aline.cardmicroservice.util.BloomFilter;
+import com.aline.core.model.card.Card;
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Deque;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Fingerprints card numbers with HMAC-SHA256 and keeps a Bloom filter of all
+ * issued fingerprints so lookups of unknown card numbers never reach the database.
+ * <p>
+ * Cards issued on other instances are merged into the filter by a periodic
+ * sync, which pages through fingerprints by card id. Card ids are assigned on
+ * insert, so a card can commit after a higher id was already synced. Each
+ * sync therefore starts again from the id the sync reached one late-commit
+ * window ago. Until a card is synced, lookups of cards whose expiration date
+ * says they may have been issued within that window go to the database.
+ */
+@Service
+@Lazy(false)
+@RequiredArgsConstructor
+@Slf4j
+public class CardFingerprintService {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int PAGE_SIZE = 5000;
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final CardFingerprintRepository repository;
+    private final CardFingerprintProperties properties;
+
+    private SecretKeySpec key;
+    private ThreadLocal<Mac> mac;
+
+    /**
+     * Null until the filter has been built. Lookups pass through to the database until then.
+     */
+    private volatile BloomFilter bloomFilter;
+
+    /**
+     * Highest card id merged by each sync within the late-commit window, oldest first.
+     */
+    private final Deque<SyncPosition> syncPositions = new ArrayDeque<>();
+
+    @PostConstruct
+    public void init() {
+        if (StringUtils.isEmpty(properties.getSecretKey()))
+            throw new IllegalStateException("app.card.fingerprint.secret-key must be set to fingerprint card numbers.");
+        key = new SecretKeySpec(properties.getSecretKey().getBytes(StandardCharsets.UTF_8), ALGORITHM);
+        mac = ThreadLocal.withInitial(() -> {
+            try {
+                Mac instance = Mac.getInstance(ALGORITHM);
+                instance.init(key);
+                return instance;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("Unable to initialize card fingerprint HMAC.", e);
+            }
+        });
+    }
+
+    public byte[] hash(String cardNumber) {
+        return mac.get().doFinal(cardNumber.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    public String fingerprint(String cardNumber) {
+        return encode(hash(cardNumber));
+    }
+
+    public String encode(byte[] hash) {
+        return ENCODER.encodeToString(hash);
+    }
+
+    /**
+     * @return False only if no card with this number has ever been issued.
+     */
+    public boolean mightExist(byte[] hash) {
+        BloomFilter filter = bloomFilter;
+        return filter == null || filter.mightContain(hash);
+    }
+
+    /**
+     * Like {@link #mightExist(byte[])}, but also true for a card that may have
+     * been issued on another instance and not been synced yet.
+     */
+    public boolean mightExist(byte[] hash, LocalDate expirationDate) {
+        return mightExist(hash) || expirationDate != null && !expirationDate.isBefore(
+                CardService.expirationDateFor(LocalDateTime.now().minus(properties.getLateCommitWindow()).toLocalDate()));
+    }
+
+    /**
+     * @return True if a card with this number has been issued.
+     */
+    public boolean exists(String cardNumber) {
+        byte[] hash = hash(cardNumber);
+        return mightExist(hash) && repository.existsByFingerprint(encode(hash));
+    }
+
+    public void register(Card card) {
+        register(card.getId(), card.getCardNumber());
+    }
+
+    public void registerAll(List<Card> cards) {
+        LocalDateTime now = LocalDateTime.now();
+        repository.saveAll(cards.stream()
+                .map(card -> new CardFingerprint(card.getId(), addToFilter(card.getCardNumber()), now))
+                .collect(Collectors.toList()));
+    }
+
+    private void register(Long cardId, String cardNumber) {
+        repository.save(new CardFingerprint(cardId, addToFilter(cardNumber), LocalDateTime.now()));
+    }
+
+    private String addToFilter(String cardNumber) {
+        byte[] hash = hash(cardNumber);
+        BloomFilter filter = bloomFilter;
+        if (filter != null)
+            filter.put(hash);
+        return encode(hash);
+    }
+
+    /**
+     * Fingerprint cards issued before fingerprints existed, then build the Bloom filter.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        backfill();
+
+        BloomFilter filter = new BloomFilter(properties.getExpectedCards(), properties.getFalsePositiveRate());
+        long[] merged = merge(filter, 0L);
+
+        if (merged[1] > properties.getExpectedCards())
+            log.warn("Card fingerprint Bloom filter holds {} cards but is sized for {}. False positive rate will be higher than configured.",
+                    merged[1], properties.getExpectedCards());
+
+        synchronized (syncPositions) {
+            syncPositions.clear();
+            syncPositions.add(new SyncPosition(LocalDateTime.now(), merged[0]));
+        }
+        bloomFilter = filter;
+        log.info("Built card fingerprint Bloom filter with {} card(s), {} bits and {} hash functions.",
+                merged[1], filter.getBitCount(), filter.getHashFunctions());
+    }
+
+    /**
+     * Merge fingerprints registered by other instances. Starts from the card id
+     * reached one late-commit window ago, so cards that committed after a higher
+     * id was synced are merged too.
+     */
+    @Scheduled(fixedDelayString = "${app.card.fingerprint.sync-interval:PT30S}")
+    public void sync() {
+        BloomFilter filter = bloomFilter;
+        if (filter == null)
+            return;
+        synchronized (syncPositions) {
+            LocalDateTime now = LocalDateTime.now();
+            LocalDateTime windowStart = now.minus(properties.getLateCommitWindow());
+            // Start from the newest position that is not within the window
+            SyncPosition start = syncPositions.removeFirst();
+            while (!syncPositions.isEmpty() && !syncPositions.getFirst().getSyncedAt().isAfter(windowStart))
+                start = syncPositions.removeFirst();
+            syncPositions.addFirst(start);
+            long[] merged = merge(filter, syncPositions.getFirst().getCardId());
+            syncPositions.add(new SyncPosition(now, Math.max(merged[0], syncPositions.getLast().getCardId())));
+        }
+    }
+
+    /**
+     * Add all fingerprints of cards after the given id to the filter.
+     *
+     * @return The highest card id merged, or the given id if there were none, and the number of fingerprints merged.
+     */
+    private long[] merge(BloomFilter filter, long after) {
+        long count = 0;
+        List<Object[]> page;
+        do {
+            page = repository.findFingerprintsAfter(after, PageRequest.of(0, PAGE_SIZE));
+            for (Object[] row : page) {
+                after = (Long) row[0];
+                filter.put(DECODER.decode((String) row[1]));
+                count++;
+            }
+        } while (page.size() == PAGE_SIZE);
+        return new long[]{after, count};
+    }
+
+    private void backfill() {
+        long backfilled = 0;
+        Long after = 0L;
+        List<Object[]> page;
+        do {
+            page = repository.findCardsWithoutFingerprint(after, PageRequest.of(0, PAGE_SIZE));
+            LocalDateTime now = LocalDateTime.now();
+            List<CardFingerprint> fingerprints = new ArrayList<>(page.size());
+            for (Object[] row : page) {
+                after = (Long) row[0];
+                fingerprints.add(new CardFingerprint(after, fingerprint((String) row[1]), now));
+            }
+            backfilled += save(fingerprints);
+        } while (page.size() == PAGE_SIZE);
+
+        if (backfilled > 0)
+            log.info("Fingerprinted {} existing card(s).", backfilled);
+    }
+
+    /**
+     * Every instance backfills when it starts, so instances starting together
+     * insert the same rows. A page that conflicts is saved again row by row,
+     * skipping the rows another instance already inserted.
+     *
+     * @return The number of fingerprints this instance inserted.
+     */
+    private int save(List<CardFingerprint> fingerprints) {
+        try {
+            repository.saveAll(fingerprints);
+            return fingerprints.size();
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Card fingerprint backfill page conflicted with another instance. Saving row by row.");
+        }
+        int saved = 0;
+        for (CardFingerprint fingerprint : fingerprints) {
+            try {
+                // A fresh entity, the failed page may have marked this one persisted
+                repository.save(new CardFingerprint(fingerprint.getCardId(), fingerprint.getFingerprint(), fingerprint.getCreatedAt()));
+                saved++;
+            } catch (DataIntegrityViolationException e) {
+                log.debug("Card {} was fingerprinted by another instance.", fingerprint.getCardId());
+            }
+        }
+        return saved;
+    }
+
+    @Value
+    private static class SyncPosition {
+        LocalDateTime syncedAt;
+        long cardId;
+    }
+
+}
@@ -0,0 +1,272 @@
+package com.aline.cardmicroservice.service;
+
+import com.aline.cardmicroservice.config.IdempotencyProperties;
+import com.aline.cardmicroservice.exception.IdempotencyKeyInProgressException;
+import com.aline.cardmicroservice.exception.IdempotencyKeyMismatchException;
+import com.aline.cardmicroservice.model.CardIdempotencyKey;
+import com.aline.cardmicroservice.repository.CardIdempotencyKeyRepository;
+import com.aline.cardmicroservice.repository.CardRepository;
+import com.aline.core.dto.request.CreateDebitCardRequest;
+import com.aline.core.dto.response.CreateDebitCardResponse;
+import com.aline.core.exception.BadRequestException;
+import com.aline.core.exception.notfound.CardNotFoundException;
+import com.aline.core.model.card.Card;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Makes debit card creation safe to retry with an Idempotency-Key.
+ * <p>
+ * Completed keys are kept in a bounded in-memory cache in front of the
+ * card_idempotency_key table. A repeated key returns the response of the
+ * first request without issuing another card or sending another email.
+ * Duplicates that arrive while the first request is still running wait for
+ * it: on the same instance through its future, on other instances by polling
+ * the key's row.
+ */
+@Service
+@Lazy(false)
+@Slf4j
+public class CardIdempotencyService {
+
+    private static final int MAX_KEY_LENGTH = 255;
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private final CardIdempotencyKeyRepository repository;
+    private final CardService cardService;
+    private final CardRepository cardRepository;
+    private final IdempotencyProperties properties;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Cache<String, StoredResponse> responses;
+    private final ConcurrentMap<String, InFlight> inFlight = new ConcurrentHashMap<>();
+    private final Counter replayedFromMemory;
+    private final Counter replayedFromDatabase;
+    private final Counter waited;
+
+    public CardIdempotencyService(CardIdempotencyKeyRepository repository,
+                                  CardService cardService,
+                                  CardRepository cardRepository,
+                                  IdempotencyProperties properties,
+                                  TransactionTemplate transactionTemplate,
+                                  MeterRegistry meterRegistry) {
+        this.repository = repository;
+        this.cardService = cardService;
+        this.cardRepository = cardRepository;
+        this.properties = properties;
+        this.transactionTemplate = transactionTemplate;
+        this.responses = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxSize())
+                .expireAfterWrite(properties.getTtl())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, responses, "card.idempotency");
+        this.replayedFromMemory = replayCounter(meterRegistry, "memory");
+        this.replayedFromDatabase = replayCounter(meterRegistry, "database");
+        this.waited = replayCounter(meterRegistry, "in_flight");
+    }
+
+    public CreateDebitCardResponse createDebitCard(String idempotencyKey, CreateDebitCardRequest request) {
+        if (StringUtils.isBlank(idempotencyKey) || idempotencyKey.length() > MAX_KEY_LENGTH)
+            throw new BadRequestException(String.format("Idempotency-Key must be between 1 and %d characters.", MAX_KEY_LENGTH));
+
+        // Keys are scoped to the caller so one caller cannot replay another's response
+        String key = hash(getPrincipalName(), idempotencyKey);
+        String requestHash = hash(request.getAccountNumber(), request.getMembershipId(), String.valueOf(request.isReplacement()));
+
+        StoredResponse stored = responses.getIfPresent(key);
+        if (stored != null) {
+            replayedFromMemory.increment();
+            return stored.replay(requestHash);
+        }
+
+        InFlight own = new InFlight(requestHash);
+        InFlight running = inFlight.putIfAbsent(key, own);
+        if (running != null) {
+            waited.increment();
+            return running.await(requestHash, properties);
+        }
+
+        try {
+            CreateDebitCardResponse response = claimAndIssue(key, requestHash, request);
+            own.future.complete(response);
+            return response;
+        } catch (RuntimeException e) {
+            own.future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, own);
+        }
+    }
+
+    private CreateDebitCardResponse claimAndIssue(String key, String requestHash, CreateDebitCardRequest request) {
+        long deadline = System.nanoTime() + properties.getWaitTimeout().toNanos();
+        while (true) {
+            LocalDateTime now = LocalDateTime.now();
+            try {
+                repository.saveAndFlush(new CardIdempotencyKey(key, requestHash, now, now.plus(properties.getTtl())));
+                return issue(key, 1, requestHash, request);
+            } catch (DataIntegrityViolationException e) {
+                log.debug("Idempotency key is already in use. Checking its state.");
+            }
+
+            CardIdempotencyKey existing = repository.findById(key).orElse(null);
+            if (existing == null)
+                continue; // The other request failed and released the key
+
+            if (!existing.getRequestHash().equals(requestHash))
+                throw new IdempotencyKeyMismatchException();
+
+            if (existing.getCardId() != null) {
+                replayedFromDatabase.increment();
+                return remember(key, requestHash, findResponse(existing.getCardId()));
+            }
+
+            if (existing.getClaimedAt().isBefore(now.minus(properties.getClaimTimeout())) &&
+                    repository.takeOver(key, existing.getClaims(), now, now.minus(properties.getClaimTimeout())) == 1) {
+                log.warn("Taking over an abandoned idempotent card request.");
+                return issue(key, existing.getClaims() + 1, requestHash, request);
+            }
+
+            // Another instance is issuing the card
+            if (System.nanoTime() > deadline)
+                throw new IdempotencyKeyInProgressException();
+            sleep();
+        }
+    }
+
+    private CreateDebitCardResponse issue(String key, int claims, String requestHash, CreateDebitCardRequest request) {
+        try {
+            Card card = cardService.createDebitCard(request, issued -> {
+                if (repository.complete(key, claims, issued.getId()) != 1)
+                    throw new IdempotencyKeyInProgressException();
+            });
+            return remember(key, requestHash, cardService.mapToCreateDebitCardResponse(card));
+        } catch (RuntimeException e) {
+            repository.release(key, claims);
+            throw e;
+        }
+    }
+
+    private CreateDebitCardResponse findResponse(Long cardId) {
+        return transactionTemplate.execute(status -> cardRepository.findById(cardId)
+                .map(cardService::mapToCreateDebitCardResponse)
+                .orElseThrow(CardNotFoundException::new));
+    }
+
+    private CreateDebitCardResponse remember(String key, String requestHash, CreateDebitCardResponse response) {
+        responses.put(key, new StoredResponse(requestHash, response));
+        return response;
+    }
+
+    @Scheduled(fixedDelayString = "${app.card.idempotency.purge-interval:PT1H}")
+    public void purgeExpired() {
+        int purged = repository.deleteExpired(LocalDateTime.now());
+        if (purged > 0)
+            log.info("Purged {} expired idempotency key(s).", purged);
+    }
+
+    private void sleep() {
+        try {
+            Thread.sleep(properties.getPollInterval().toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IdempotencyKeyInProgressException();
+        }
+    }
+
+    protected String getPrincipalName() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication == null ? "" : authentication.getName();
+    }
+
+    static String hash(String... parts) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String part : parts) {
+                digest.update(String.valueOf(part).getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+            }
+            return ENCODER.encodeToString(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available.", e);
+        }
+    }
+
+    private static Counter replayCounter(MeterRegistry meterRegistry, String source) {
+        return Counter.builder("card.idempotency.replays")
+                .description("Idempotent card requests answered without issuing a card")
+                .tag("source", source)
+                .register(meterRegistry);
+    }
+
+    private static class StoredResponse {
+        private final String requestHash;
+        private final CreateDebitCardResponse response;
+
+        StoredResponse(String requestHash, CreateDebitCardResponse response) {
+            this.requestHash = requestHash;
+            this.response = response;
+        }
+
+        CreateDebitCardResponse replay(String requestHash) {
+            if (!this.requestHash.equals(requestHash))
+                throw new IdempotencyKeyMismatchException();
+            return response;
+        }
+    }
+
+    private static class InFlight {
+        private final String requestHash;
+        private final CompletableFuture<CreateDebitCardResponse> future = new CompletableFuture<>();
+
+        InFlight(String requestHash) {
+            this.requestHash = requestHash;
+        }
+
+        /**
+         * Wait for the first request and answer with its outcome, including its error.
+         */
+        CreateDebitCardResponse await(String requestHash, IdempotencyProperties properties) {
+            if (!this.requestHash.equals(requestHash))
+                throw new IdempotencyKeyMismatchException();
+            try {
+                return future.get(properties.getWaitTimeout().toMillis(), TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                throw new IdempotencyKeyInProgressException();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IdempotencyKeyInProgressException();
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException)
+                    throw (RuntimeException) e.getCause();
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+    }
+
+}
@@ -0,0 +1,35 @@
+package com.aline.cardmicroservice.service;
+
+import com.aline.cardmicroservice.config.CardIssuanceProperties;
+import com.aline.cardmicroservice.util.StripedLock;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.locks.Lock;
+import java.util.function.Supplier;
+
+/**
+ * Serializes card issuance per member and account within this instance.
+ * Take it before the transaction starts so waiting requests do not hold a
+ * connection. The account row lock taken by the issuance transaction guards
+ * against other instances.
+ */
+@Component
+public class CardIssuanceLock {
+
+    private final StripedLock locks;
+
+    public CardIssuanceLock(CardIssuanceProperties properties) {
+        this.locks = new StripedLock(properties.getLockStripes());
+    }
+
+    public <T> T withLock(String membershipId, String accountNumber, Supplier<T> action) {
+        Lock lock = locks.get(membershipId + ":" + accountNumber);
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+}
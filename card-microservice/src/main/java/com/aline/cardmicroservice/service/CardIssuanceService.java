@@ -0,0 +1,203 @@
+package com.aline.cardmicroservice.service;
+
+import com.aline.cardmicroservice.config.CardIssuanceProperties;
+import com.aline.cardmicroservice.dto.CardIssuanceResponse;
+import com.aline.cardmicroservice.exception.CardIssuanceNotFoundException;
+import com.aline.cardmicroservice.exception.CardIssuanceQueueFullException;
+import com.aline.cardmicroservice.metrics.CardMetrics;
+import com.aline.cardmicroservice.metrics.CardRejection;
+import com.aline.cardmicroservice.model.CardIssuanceRequest;
+import com.aline.cardmicroservice.model.IssuanceStatus;
+import com.aline.cardmicroservice.repository.AccountLookupRepository;
+import com.aline.cardmicroservice.repository.CardIssuanceRequestRepository;
+import com.aline.cardmicroservice.repository.CardRepository;
+import com.aline.core.dto.request.CreateDebitCardRequest;
+import com.aline.core.exception.ResponseEntityException;
+import com.aline.core.exception.notfound.AccountNotFoundException;
+import com.aline.core.exception.notfound.CardNotFoundException;
+import com.aline.core.model.Member;
+import com.aline.core.model.account.Account;
+import com.aline.core.model.card.Card;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.security.access.prepost.PostAuthorize;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.transaction.Transactional;
+import javax.validation.Valid;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Asynchronous debit card issuance. Requests are validated up front, persisted
+ * as queued and answered immediately. {@link CardIssuanceWorker} issues the cards.
+ */
+@Service
+@Slf4j
+public class CardIssuanceService {
+
+    private final CardService cardService;
+    private final CardIssuanceRequestRepository repository;
+    private final AccountLookupRepository accountLookupRepository;
+    private final CardRepository cardRepository;
+    private final CardIssuanceProperties properties;
+    private final TransactionTemplate transactionTemplate;
+    private final CardMetrics cardMetrics;
+    private final CardIssuanceLock issuanceLock;
+
+    private final AtomicLong queueDepth = new AtomicLong();
+    private final Timer completedLatency;
+    private final Timer failedLatency;
+
+    public CardIssuanceService(CardService cardService,
+                               CardIssuanceRequestRepository repository,
+                               AccountLookupRepository accountLookupRepository,
+                               CardRepository cardRepository,
+                               CardIssuanceProperties properties,
+                               TransactionTemplate transactionTemplate,
+                               CardMetrics cardMetrics,
+                               CardIssuanceLock issuanceLock,
+                               MeterRegistry meterRegistry) {
+        this.cardService = cardService;
+        this.repository = repository;
+        this.accountLookupRepository = accountLookupRepository;
+        this.cardRepository = cardRepository;
+        this.properties = properties;
+        this.transactionTemplate = transactionTemplate;
+        this.cardMetrics = cardMetrics;
+        this.issuanceLock = issuanceLock;
+
+        Gauge.builder("card.issuance.queue.depth", queueDepth, AtomicLong::get)
+                .description("Asynchronous card requests waiting for a worker")
+                .register(meterRegistry);
+        this.completedLatency = latencyTimer(meterRegistry, "completed");
+        this.failedLatency = latencyTimer(meterRegistry, "failed");
+    }
+
+    private static Timer latencyTimer(MeterRegistry meterRegistry, String outcome) {
+        return Timer.builder("card.issuance.latency")
+                .description("Time from accepting an asynchronous card request to its outcome")
+                .tag("outcome", outcome)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+    }
+
+    @PreAuthorize("@authService.canAccessByCreateDebitCardRequest(#request)")
+    @Transactional
+    public CardIssuanceRequest submit(@Valid CreateDebitCardRequest request) {
+        validate(request);
+
+        if (updateQueueDepth() >= properties.getMaxQueueDepth())
+            throw new CardIssuanceQueueFullException();
+
+        CardIssuanceRequest issuance = new CardIssuanceRequest();
+        issuance.setId(UUID.randomUUID().toString());
+        issuance.setAccountNumber(request.getAccountNumber());
+        issuance.setMembershipId(request.getMembershipId());
+        issuance.setReplacement(request.isReplacement());
+        issuance.setStatus(IssuanceStatus.QUEUED);
+        issuance.setCreatedAt(LocalDateTime.now());
+        repository.save(issuance);
+        log.info("Queued debit card issuance {}.", issuance.getId());
+        return issuance;
+    }
+
+    /**
+     * Reject requests that are bound to fail before they are queued.
+     */
+    private void validate(CreateDebitCardRequest request) {
+        Account account = accountLookupRepository.findAllWithMembersByAccountNumberIn(Collections.singleton(request.getAccountNumber()))
+                .stream()
+                .findFirst()
+                .orElseThrow(AccountNotFoundException::new);
+        cardService.checkDebitCardEligibility(account);
+        Member member = cardService.findAccountMember(account, request.getMembershipId());
+        if (!request.isReplacement() && cardRepository.existsCardByCardHolderAndAccount(member, account))
+            throw cardMetrics.reject(CardRejection.CARD_EXISTS);
+    }
+
+    @PostAuthorize("@authService.canAccessIssuance(returnObject)")
+    public CardIssuanceRequest getIssuance(String id) {
+        return repository.findById(id).orElseThrow(CardIssuanceNotFoundException::new);
+    }
+
+    @Transactional
+    public CardIssuanceResponse mapToResponse(CardIssuanceRequest issuance) {
+        CardIssuanceResponse.CardIssuanceResponseBuilder response = CardIssuanceResponse.builder()
+                .issuanceId(issuance.getId())
+                .status(issuance.getStatus())
+                .message(issuance.getFailureMessage())
+                .createdAt(issuance.getCreatedAt())
+                .completedAt(issuance.getCompletedAt());
+        if (issuance.getStatus() == IssuanceStatus.COMPLETED) {
+            Card card = cardRepository.findById(issuance.getCardId()).orElseThrow(CardNotFoundException::new);
+            response.card(cardService.mapToCreateDebitCardResponse(card));
+        }
+        return response.build();
+    }
+
+    /**
+     * Issue the card for a claimed request. The card and the completion of the
+     * request commit together, and only if this worker still owns the request.
+     */
+    public void process(String id) {
+        CardIssuanceRequest issuance = repository.findById(id).orElse(null);
+        if (issuance == null || issuance.getStatus() != IssuanceStatus.PROCESSING) {
+            log.warn("Card issuance {} is no longer claimed. Skipping.", id);
+            return;
+        }
+        int attempt = issuance.getAttempts();
+
+        try {
+            issuanceLock.withLock(issuance.getMembershipId(), issuance.getAccountNumber(), () ->
+                    transactionTemplate.execute(status -> {
+                        Card card = cardService.issueDebitCard(toCreateDebitCardRequest(issuance));
+                        if (repository.complete(id, attempt, card.getId(), LocalDateTime.now()) != 1)
+                            throw new IllegalStateException("Card issuance " + id + " was reclaimed by another worker.");
+                        return card;
+                    }));
+            completedLatency.record(Duration.between(issuance.getCreatedAt(), LocalDateTime.now()));
+            log.info("Completed debit card issuance {}.", id);
+        } catch (ResponseEntityException e) {
+            log.info("Debit card issuance {} was rejected: {}", id, e.getMessage());
+            fail(issuance, attempt, e.getMessage());
+        } catch (RuntimeException e) {
+            if (attempt >= properties.getMaxAttempts()) {
+                log.error("Debit card issuance {} failed {} times. Giving up.", id, attempt, e);
+                fail(issuance, attempt, "Card could not be created. Please try again.");
+            } else {
+                log.warn("Debit card issuance {} failed (attempt {}). Requeueing.", id, attempt, e);
+                repository.release(id, attempt, IssuanceStatus.QUEUED, null, null);
+            }
+        }
+    }
+
+    private void fail(CardIssuanceRequest issuance, int attempt, String message) {
+        if (repository.release(issuance.getId(), attempt, IssuanceStatus.FAILED,
+                StringUtils.abbreviate(message, 512), LocalDateTime.now()) == 1)
+            failedLatency.record(Duration.between(issuance.getCreatedAt(), LocalDateTime.now()));
+    }
+
+    public long updateQueueDepth() {
+        long depth = repository.countByStatus(IssuanceStatus.QUEUED);
+        queueDepth.set(depth);
+        return depth;
+    }
+
+    private static CreateDebitCardRequest toCreateDebitCardRequest(CardIssuanceRequest issuance) {
+        CreateDebitCardRequest request = new CreateDebitCardRequest();
+        request.setAccountNumber(issuance.getAccountNumber());
+        request.setMembershipId(issuance.getMembershipId());
+        request.setReplacement(issuance.isReplacement());
+        return request;
+    }
+
+}
@@ -0,0 +1,82 @@
+package com.aline.cardmicroservice.service;
+
+import com.aline.cardmicroservice.config.CardIssuanceProperties;
+import com.aline.cardmicroservice.repository.CardIssuanceRequestRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Hands queued asynchronous card requests to the bounded issuance worker pool.
+ * Only as many requests are claimed as there are idle workers, so requests
+ * wait in the database rather than in memory.
+ */
+@Component
+@Lazy(false)
+@Slf4j
+public class CardIssuanceWorker {
+
+    private final CardIssuanceRequestRepository repository;
+    private final CardIssuanceService cardIssuanceService;
+    private final CardIssuanceProperties properties;
+    private final ThreadPoolTaskExecutor executor;
+
+    public CardIssuanceWorker(CardIssuanceRequestRepository repository,
+                              CardIssuanceService cardIssuanceService,
+                              CardIssuanceProperties properties,
+                              @Qualifier("cardIssuanceExecutor") ThreadPoolTaskExecutor executor,
+                              MeterRegistry meterRegistry) {
+        this.repository = repository;
+        this.cardIssuanceService = cardIssuanceService;
+        this.properties = properties;
+        this.executor = executor;
+
+        Gauge.builder("card.issuance.workers.active", executor, ThreadPoolTaskExecutor::getActiveCount)
+                .description("Issuance workers currently issuing a card")
+                .register(meterRegistry);
+        Gauge.builder("card.issuance.workers.utilization", executor,
+                        e -> (double) e.getActiveCount() / e.getMaxPoolSize())
+                .description("Fraction of issuance workers that are busy")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${app.card.issuance.poll-interval:PT0.5S}")
+    public void poll() {
+        LocalDateTime now = LocalDateTime.now();
+
+        int requeued = repository.requeueExpiredClaims(now.minus(properties.getClaimTimeout()));
+        if (requeued > 0)
+            log.warn("Requeued {} abandoned card issuance(s).", requeued);
+
+        cardIssuanceService.updateQueueDepth();
+
+        int idle = executor.getMaxPoolSize() - executor.getActiveCount();
+        if (idle <= 0)
+            return;
+
+        List<String> queuedIds = repository.findQueuedIds(PageRequest.of(0, idle));
+        for (String id : queuedIds) {
+            // Another node may have claimed the request since it was read
+            if (repository.claim(id, now) != 1)
+                continue;
+            try {
+                executor.execute(() -> cardIssuanceService.process(id));
+            } catch (TaskRejectedException e) {
+                repository.unclaim(id);
+                log.debug("Issuance workers are busy. Card issuance {} stays queued.", id);
+                return;
+            }
+        }
+    }
+
+}
@@ -6,14 +6,31 @@ import com.aline.core.config.AppConfig;
 import com.aline.core.exception.notfound.CardIssuerNotFound;
 import com.aline.core.model.card.CardIssuer;
 import com.aline.core.model.card.IssuerIdentificationNumber;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import javax.annotation.PostConstruct;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
+/**
+ * Serves card issuer reference data from an in-memory snapshot
+ * that is loaded on startup and refreshed on a fixed interval.
+ */
 @Service
+@Lazy(false)
 @RequiredArgsConstructor
 @Slf4j
 public class CardIssuerService {
@@ -21,21 +38,63 @@ public class CardIssuerService {
     private final AppConfig appConfig;
     private final CardIssuerRepository cardIssuerRepository;
     private final IssuerIdentificationNumberRepository iinRepository;
+    private final MeterRegistry meterRegistry;
+
+    private volatile Map<String, CardIssuer> issuersByName = Collections.emptyMap();
+    private volatile Map<String, IssuerIdentificationNumber> iinsByIssuerName = Collections.emptyMap();
+
+    private Counter cacheHits;
+    private Counter cacheMisses;
 
     @PostConstruct
     public void init() {
         if (StringUtils.isEmpty(appConfig.getDefaultCardIssuer())) {
             log.error("Application configuration does not declare default card issuer. CardIssuerService requires this property to be set.");
         }
+        cacheHits = meterRegistry.counter("card.issuer.cache", "result", "hit");
+        cacheMisses = meterRegistry.counter("card.issuer.cache", "result", "miss");
+        refresh();
+    }
+
+    /**
+     * Reload all card issuers and issuer identification numbers.
+     * The new snapshot replaces the old one atomically.
+     */
+    @Transactional(readOnly = true)
+    @Scheduled(initialDelayString = "${app.card.issuer-cache.refresh-interval:PT10M}",
+            fixedDelayString = "${app.card.issuer-cache.refresh-interval:PT10M}")
+    public void refresh() {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        Map<String, CardIssuer> issuers = new HashMap<>();
+        cardIssuerRepository.findAll().forEach(issuer -> issuers.put(issuer.getIssuerName(), issuer));
+
+        Map<String, IssuerIdentificationNumber> iins = new HashMap<>();
+        iinRepository.findAllWithCardIssuer()
+                .forEach(iin -> iins.putIfAbsent(iin.getCardIssuer().getIssuerName(), iin));
+
+        issuersByName = Collections.unmodifiableMap(issuers);
+        iinsByIssuerName = Collections.unmodifiableMap(iins);
+        sample.stop(meterRegistry.timer("card.issuer.cache.refresh"));
+        log.info("Loaded {} card issuer(s) and {} issuer identification number(s).", issuers.size(), iins.size());
     }
 
+    public void invalidate() {
+        log.info("Card issuer cache invalidated.");
+        refresh();
+    }
+
+    @Transactional(readOnly = true)
     public CardIssuer getCardIssuerByName(String issuerName) {
-        return cardIssuerRepository.findByIssuerName(issuerName)
-                .orElseThrow(CardIssuerNotFound::new);
+        return lookup(issuersByName, issuerName,
+                () -> cardIssuerRepository.findByIssuerName(issuerName),
+                fetched -> issuersByName = copyWith(issuersByName, issuerName, fetched));
     }
+
+    @Transactional(readOnly = true)
     public IssuerIdentificationNumber getIinByIssuerName(String issuerName) {
-        return iinRepository.findIssuerIdentificationNumberByCardIssuerIssuerName(issuerName)
-                .orElseThrow(CardIssuerNotFound::new);
+        return lookup(iinsByIssuerName, issuerName,
+                () -> iinRepository.findIssuerIdentificationNumberByCardIssuerIssuerName(issuerName),
+                fetched -> iinsByIssuerName = copyWith(iinsByIssuerName, issuerName, fetched));
     }
 
     public CardIssuer getDefaultCardIssuer() {
@@ -46,4 +105,41 @@ public class CardIssuerService {
         return getIinByIssuerName(appConfig.getDefaultCardIssuer());
     }
 
+    public long getCacheHits() {
+        return (long) cacheHits.count();
+    }
+
+    public long getCacheMisses() {
+        return (long) cacheMisses.count();
+    }
+
+    public int getCachedIssuerCount() {
+        return issuersByName.size();
+    }
+
+    public int getCachedIinCount() {
+        return iinsByIssuerName.size();
+    }
+
+    private <T> T lookup(Map<String, T> snapshot,
+                         String issuerName,
+                         Supplier<Optional<T>> loader,
+                         Consumer<T> onLoad) {
+        T cached = snapshot.get(issuerName);
+        if (cached != null) {
+            cacheHits.increment();
+            return cached;
+        }
+        cacheMisses.increment();
+        T fetched = loader.get().orElseThrow(CardIssuerNotFound::new);
+        onLoad.accept(fetched);
+        return fetched;
+    }
+
+    private static <T> Map<String, T> copyWith(Map<String, T> snapshot, String key, T value) {
+        Map<String, T> copy = new HashMap<>(snapshot);
+        copy.put(key, value);
+        return Collections.unmodifiableMap(copy);
+    }
+
 }
@@ -0,0 +1,153 @@
+package com.aline.cardmicroservice.service;
+
+import com.aline.cardmicroservice.config.CardNumberAllocatorProperties;
+import com.aline.cardmicroservice.util.CardNumberPermutation;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+/**
+ * Allocates card numbers without collisions. Each IIN and card number length has
+ * a sequence of account identifiers that instances reserve in blocks (HiLo).
+ * Sequence values are scattered over the account identifier space by a keyed
+ * permutation and completed with a Luhn check digit, so every allocated card
+ * number is unique and non-sequential.
+ * <p>
+ * The next block is reserved on a separate executor once half of the current
+ * one is used. Issuing threads hold a pooled connection in their own
+ * transaction. If they reserved blocks themselves, they would need a second
+ * connection while holding the allocator, and a busy pool could deadlock.
+ * They only wait for a reservation on first use, or if half a block is
+ * issued faster than one reservation.
+ */
+@Component
+@Slf4j
+public class CardNumberAllocator {
+
+    private final CardNumberBlockService blockService;
+    private final CardNumberAllocatorProperties properties;
+    private final Executor executor;
+
+    private final Map<String, IinAllocator> allocators = new ConcurrentHashMap<>();
+
+    public CardNumberAllocator(CardNumberBlockService blockService,
+                               CardNumberAllocatorProperties properties,
+                               @Qualifier("cardNumberBlockExecutor") Executor executor) {
+        this.blockService = blockService;
+        this.properties = properties;
+        this.executor = executor;
+    }
+
+    public String allocate(String iin, int cardNumberLength) {
+        int accountIdentifierLength = cardNumberLength - iin.length() - 1;
+        if (accountIdentifierLength < 1 || accountIdentifierLength > 18)
+            throw new IllegalArgumentException(String.format("Cannot allocate %d digit card numbers for IIN %s.", cardNumberLength, iin));
+
+        IinAllocator allocator = allocators.computeIfAbsent(iin + ":" + cardNumberLength,
+                key -> new IinAllocator(iin, cardNumberLength, accountIdentifierLength));
+
+        String accountIdentifier = pad(allocator.next(), accountIdentifierLength);
+        String partial = iin + accountIdentifier;
+        return partial + luhnCheckDigit(partial);
+    }
+
+    static int luhnCheckDigit(String partial) {
+        int sum = 0;
+        boolean doubled = true;
+        for (int i = partial.length() - 1; i >= 0; i--) {
+            int digit = partial.charAt(i) - '0';
+            if (doubled) {
+                digit *= 2;
+                if (digit > 9)
+                    digit -= 9;
+            }
+            sum += digit;
+            doubled = !doubled;
+        }
+        return (10 - sum % 10) % 10;
+    }
+
+    private static String pad(long value, int length) {
+        StringBuilder builder = new StringBuilder(length);
+        String digits = Long.toString(value);
+        for (int i = digits.length(); i < length; i++) {
+            builder.append('0');
+        }
+        return builder.append(digits).toString();
+    }
+
+    /**
+     * Allocation state for one IIN and card number length on this instance.
+     */
+    private class IinAllocator {
+
+        private final String iin;
+        private final int cardNumberLength;
+        private final long space;
+        private final CardNumberPermutation permutation;
+
+        private long next;
+        private long end;
+        private CompletableFuture<Long> nextBlock;
+
+        IinAllocator(String iin, int cardNumberLength, int accountIdentifierLength) {
+            this.iin = iin;
+            this.cardNumberLength = cardNumberLength;
+            long space = 1;
+            for (int i = 0; i < accountIdentifierLength; i++) {
+                space *= 10;
+            }
+            this.space = space;
+            this.permutation = new CardNumberPermutation(space, properties.getPermutationKey() ^ iin.hashCode());
+        }
+
+        synchronized long next() {
+            if (next >= end) {
+                if (nextBlock == null)
+                    prefetch();
+                long start = awaitNextBlock();
+                next = start;
+                end = Math.min(start + properties.getBlockSize(), space);
+            }
+            if (nextBlock == null && end - next <= properties.getBlockSize() / 2)
+                prefetch();
+            return permutation.permute(next++);
+        }
+
+        private void prefetch() {
+            nextBlock = CompletableFuture.supplyAsync(this::reserve, executor);
+        }
+
+        private long awaitNextBlock() {
+            CompletableFuture<Long> block = nextBlock;
+            // A failed reservation is retried by the next allocation
+            nextBlock = null;
+            try {
+                return block.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException)
+                    throw (RuntimeException) e.getCause();
+                throw e;
+            }
+        }
+
+        private long reserve() {
+            try {
+                return blockService.reserve(iin, cardNumberLength, properties.getBlockSize(), space);
+            } catch (DataIntegrityViolationException e) {
+                // Another instance created the block row first
+                log.debug("Card number block row for IIN {} was created concurrently. Retrying.", iin);
+                return blockService.reserve(iin, cardNumberLength, properties.getBlockSize(), space);
+            }
+        }
+
+    }
+
+}
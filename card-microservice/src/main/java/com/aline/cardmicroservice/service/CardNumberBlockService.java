@@ -0,0 +1,53 @@
+package com.aline.cardmicroservice.service;
+
+import com.aline.cardmicroservice.model.CardNumberBlock;
+import com.aline.cardmicroservice.repository.CardNumberBlockRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import javax.transaction.Transactional;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CardNumberBlockService {
+
+    private final CardNumberBlockRepository repository;
+
+    /**
+     * Reserve the next block of account identifier sequence values for an IIN
+     * and card number length. Called off the issuing threads by
+     * {@link CardNumberAllocator}, so the row lock and the connection are
+     * held only for the reservation.
+     *
+     * @param limit Size of the account identifier space. Nothing past it is reserved.
+     * @return The first value of the block. The block ends at {@code min(start + blockSize, limit)}.
+     */
+    @Transactional(Transactional.TxType.REQUIRES_NEW)
+    public long reserve(String iin, int cardNumberLength, long blockSize, long limit) {
+        CardNumberBlock block = repository.lockByIinAndCardNumberLength(iin, cardNumberLength)
+                .orElseGet(() -> repository.saveAndFlush(new CardNumberBlock(iin, cardNumberLength, legacyNextValue(iin))));
+
+        long start = block.getNextValue();
+        if (start >= limit)
+            throw new IllegalStateException(String.format("Card number space for %d digit cards on IIN %s is exhausted.",
+                    cardNumberLength, iin));
+
+        block.setNextValue(Math.min(start + blockSize, limit));
+        log.info("Reserved card number block [{}, {}) for {} digit cards on IIN {}.", start, block.getNextValue(), cardNumberLength, iin);
+        return start;
+    }
+
+    /**
+     * Rows written before blocks were kept per length were shared by every
+     * length of the IIN. New lengths start past them, so values that may have
+     * been issued are not reserved again.
+     */
+    private long legacyNextValue(String iin) {
+        return repository.findById(new CardNumberBlock.Key(iin, CardNumberBlock.ANY_LENGTH))
+                .map(CardNumberBlock::getNextValue)
+                .orElse(0L);
+    }
+
+}
@@ -0,0 +1,156 @@
+package com.aline.cardmicroservice.service;
+
+import com.aline.cardmicroservice.config.CardReissueProperties;
+import com.aline.cardmicroservice.model.CardReissuePartition;
+import com.aline.cardmicroservice.repository.CardReissuePartitionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Daily job that reissues debit cards expiring within the lookahead window.
+ * <p>
+ * Each day's run is split into partitions stored in card_reissue_partition.
+ * Every poll, each instance leases as many unfinished partitions as it has
+ * free reissue threads. A lease is extended with every checkpoint. When an
+ * instance stops or fails, its partitions are released or their leases
+ * expire, and any instance resumes them from their last checkpoint.
+ */
+@Component
+@Lazy(false)
+@Slf4j
+public class CardReissueJob {
+
+    private final CardReissuePartitionRepository partitionRepository;
+    private final CardReissueService reissueService;
+    private final CardReissueProperties properties;
+    private final ThreadPoolTaskExecutor executor;
+
+    private final Set<String> running = ConcurrentHashMap.newKeySet();
+    private volatile boolean stopping;
+
+    public CardReissueJob(CardReissuePartitionRepository partitionRepository,
+                          CardReissueService reissueService,
+                          CardReissueProperties properties,
+                          @Qualifier("cardReissueExecutor") ThreadPoolTaskExecutor executor) {
+        this.partitionRepository = partitionRepository;
+        this.reissueService = reissueService;
+        this.properties = properties;
+        this.executor = executor;
+    }
+
+    @Scheduled(fixedDelayString = "${app.card.reissue.poll-interval:PT5M}")
+    public void poll() {
+        if (!properties.isEnabled() || stopping)
+            return;
+
+        for (CardReissuePartition partition : startRun(LocalDate.now())) {
+            if (partition.getCompletedAt() != null || running.contains(partition.getId()))
+                continue;
+            if (executor.getActiveCount() >= executor.getMaxPoolSize())
+                return;
+
+            String owner = UUID.randomUUID().toString();
+            LocalDateTime now = LocalDateTime.now();
+            // Another instance may hold the partition
+            if (partitionRepository.acquire(partition.getId(), owner, now, now.plus(properties.getLeaseDuration())) != 1)
+                continue;
+
+            // The listing was read before the lease, another instance may have moved the checkpoint since
+            CardReissuePartition leased = partitionRepository.findById(partition.getId()).orElse(null);
+            if (leased == null || leased.getCompletedAt() != null) {
+                partitionRepository.release(partition.getId(), owner);
+                continue;
+            }
+
+            running.add(leased.getId());
+            try {
+                executor.execute(() -> process(leased, owner));
+            } catch (TaskRejectedException e) {
+                running.remove(leased.getId());
+                partitionRepository.release(leased.getId(), owner);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Create the partitions of a run that no instance created yet. A run that
+     * was only partly created, for example by an instance that stopped while
+     * starting it, is completed.
+     */
+    List<CardReissuePartition> startRun(LocalDate runDate) {
+        List<CardReissuePartition> partitions = partitionRepository.findByRunDateOrderByPartitionNo(runDate);
+        // A started run keeps its partition count even if the setting changed since
+        int partitionCount = partitions.isEmpty() ? properties.getPartitions() : partitions.get(0).getPartitionCount();
+        if (partitions.size() >= partitionCount)
+            return partitions;
+
+        if (partitions.isEmpty()) {
+            int purged = partitionRepository.deleteRunsBefore(runDate.minusDays(properties.getRunRetention().toDays()));
+            if (purged > 0)
+                log.info("Purged {} old card reissue partition(s).", purged);
+        }
+
+        Set<Integer> existing = partitions.stream()
+                .map(CardReissuePartition::getPartitionNo)
+                .collect(Collectors.toSet());
+        for (int i = 0; i < partitionCount; i++) {
+            if (existing.contains(i))
+                continue;
+            try {
+                partitionRepository.saveAndFlush(new CardReissuePartition(runDate, i, partitionCount));
+            } catch (DataIntegrityViolationException e) {
+                log.debug("Card reissue partition {} was created by another instance.", i);
+            }
+        }
+        log.info("Started the card reissue run for {} with {} partition(s).", runDate, partitionCount);
+        return partitionRepository.findByRunDateOrderByPartitionNo(runDate);
+    }
+
+    void process(CardReissuePartition partition, String owner) {
+        String id = partition.getId();
+        try {
+            log.info("Reissuing partition {} from card {} expiring {}.", id, partition.getLastCardId(), partition.getLastExpirationDate());
+            boolean more = true;
+            while (more && !stopping)
+                more = reissueService.reissueNextChunk(partition, owner);
+
+            if (more) {
+                partitionRepository.release(id, owner);
+                log.info("Stopped reissue partition {} at card {}.", id, partition.getLastCardId());
+            } else if (partitionRepository.complete(id, owner, LocalDateTime.now()) == 1) {
+                log.info("Finished reissue partition {}. Reissued: {}, Skipped: {}", id, partition.getReissued(), partition.getSkipped());
+            }
+        } catch (RuntimeException e) {
+            log.error("Reissue partition {} failed after card {}. It resumes from there on the next poll.",
+                    id, partition.getLastCardId(), e);
+            partitionRepository.release(id, owner);
+        } finally {
+            running.remove(id);
+        }
+    }
+
+    /**
+     * Partitions stop after their current chunk and are released.
+     */
+    @PreDestroy
+    public void stop() {
+        stopping = true;
+    }
+
+}
@@ -0,0 +1,195 @@
+package com.aline.cardmicroservice.service;
+
+import com.aline.cardmicroservice.config.CardReissueProperties;
+import com.aline.cardmicroservice.dto.ExpiringCard;
+import com.aline.cardmicroservice.event.CardLifecycleEvent;
+import com.aline.cardmicroservice.event.CardLifecycleEventType;
+import com.aline.cardmicroservice.model.CardReissuePartition;
+import com.aline.cardmicroservice.repository.AccountLookupRepository;
+import com.aline.cardmicroservice.repository.CardReissuePartitionRepository;
+import com.aline.cardmicroservice.repository.CardRepository;
+import com.aline.core.exception.BadRequestException;
+import com.aline.core.model.account.Account;
+import com.aline.core.model.card.Card;
+import com.aline.core.model.card.CardIssuer;
+import com.aline.core.model.card.CardStatus;
+import com.aline.core.model.card.IssuerIdentificationNumber;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Reissues debit cards that are about to expire, one chunk of a partition at a time.
+ * <p>
+ * A chunk is found with a keyset scan outside of any transaction. Its accounts
+ * are then locked like in single issuance, the cards are re-read under the lock
+ * and a new card is issued per member and account. The partition's checkpoint
+ * is written in the same transaction, so a chunk is either reissued and
+ * checkpointed or not at all. The expiring card stays usable until it expires.
+ */
+@Service
+@Slf4j
+public class CardReissueService {
+
+    private final CardRepository repository;
+    private final AccountLookupRepository accountLookupRepository;
+    private final CardReissuePartitionRepository partitionRepository;
+    private final CardService cardService;
+    private final CardIssuerService cardIssuerService;
+    private final CardEmailService cardEmailService;
+    private final CardFingerprintService cardFingerprintService;
+    private final CardReissueProperties properties;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final Counter reissued;
+    private final Counter skipped;
+
+    public CardReissueService(CardRepository repository,
+                              AccountLookupRepository accountLookupRepository,
+                              CardReissuePartitionRepository partitionRepository,
+                              CardService cardService,
+                              CardIssuerService cardIssuerService,
+                              CardEmailService cardEmailService,
+                              CardFingerprintService cardFingerprintService,
+                              CardReissueProperties properties,
+                              TransactionTemplate transactionTemplate,
+                              ApplicationEventPublisher eventPublisher,
+                              MeterRegistry meterRegistry) {
+        this.repository = repository;
+        this.accountLookupRepository = accountLookupRepository;
+        this.partitionRepository = partitionRepository;
+        this.cardService = cardService;
+        this.cardIssuerService = cardIssuerService;
+        this.cardEmailService = cardEmailService;
+        this.cardFingerprintService = cardFingerprintService;
+        this.properties = properties;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+        this.reissued = cardCounter(meterRegistry, "reissued");
+        this.skipped = cardCounter(meterRegistry, "skipped");
+    }
+
+    /**
+     * Cards expiring on or before this date are reissued by the run.
+     */
+    public LocalDate cutoffOf(CardReissuePartition partition) {
+        return partition.getRunDate().plusDays(properties.getLookaheadDays());
+    }
+
+    /**
+     * Reissue the next chunk of a leased partition and move its checkpoint past it.
+     * The given partition is updated to the new checkpoint.
+     *
+     * @param owner Lease token the partition was acquired with.
+     * @return Whether the partition may have more cards.
+     * @throws IllegalStateException The lease was lost. Nothing in the chunk was committed.
+     */
+    public boolean reissueNextChunk(CardReissuePartition partition, String owner) {
+        int chunkSize = properties.getChunkSize();
+        List<ExpiringCard> chunk = repository.findExpiringCards(cutoffOf(partition),
+                partition.getPartitionCount(), partition.getPartitionNo(),
+                partition.getLastExpirationDate(), partition.getLastCardId(), PageRequest.of(0, chunkSize));
+        if (chunk.isEmpty())
+            return false;
+
+        ExpiringCard last = chunk.get(chunk.size() - 1);
+        int[] counts = transactionTemplate.execute(status -> {
+            int[] result = reissueInTransaction(chunk, cutoffOf(partition));
+            LocalDateTime leaseUntil = LocalDateTime.now().plus(properties.getLeaseDuration());
+            if (partitionRepository.checkpoint(partition.getId(), owner, last.getExpirationDate(), last.getId(),
+                    result[0], result[1], leaseUntil) != 1)
+                throw new IllegalStateException("Lost the lease on reissue partition " + partition.getId() + ".");
+            return result;
+        });
+
+        partition.setLastExpirationDate(last.getExpirationDate());
+        partition.setLastCardId(last.getId());
+        partition.setReissued(partition.getReissued() + counts[0]);
+        partition.setSkipped(partition.getSkipped() + counts[1]);
+        reissued.increment(counts[0]);
+        skipped.increment(counts[1]);
+        return chunk.size() == chunkSize;
+    }
+
+    /**
+     * @return The number of cards reissued and skipped.
+     */
+    private int[] reissueInTransaction(List<ExpiringCard> chunk, LocalDate cutoff) {
+        Set<String> accountNumbers = chunk.stream()
+                .map(ExpiringCard::getAccountNumber)
+                .collect(Collectors.toSet());
+        // Same row locks as single issuance, so a concurrent replacement waits for this chunk
+        Set<Long> accountIds = accountLookupRepository.lockAllByAccountNumberIn(accountNumbers).stream()
+                .map(Account::getId)
+                .collect(Collectors.toSet());
+
+        // Read after the lock, so cards replaced in the meantime are seen
+        List<Card> accountCards = repository.findCardsByAccountIdIn(accountIds);
+        Map<Long, Card> cardsById = accountCards.stream()
+                .collect(Collectors.toMap(Card::getId, Function.identity()));
+        // Members that already have a card outliving the window were reissued before
+        Set<String> renewed = new HashSet<>();
+        for (Card card : accountCards) {
+            if (card.getCardStatus() != CardStatus.CLOSED && card.getExpirationDate().isAfter(cutoff))
+                renewed.add(ownerKey(card));
+        }
+
+        CardIssuer cardIssuer = cardIssuerService.getDefaultCardIssuer();
+        IssuerIdentificationNumber iin = cardIssuerService.getDefaultIin();
+        List<Card> toSave = new ArrayList<>();
+        int skippedCards = 0;
+        for (ExpiringCard expiring : chunk) {
+            Card card = cardsById.get(expiring.getId());
+            if (card == null || card.getCardStatus() == CardStatus.CLOSED || !renewed.add(ownerKey(card))) {
+                skippedCards++;
+                continue;
+            }
+            try {
+                cardService.checkDebitCardEligibility(card.getAccount());
+            } catch (BadRequestException e) {
+                log.debug("Not reissuing card {}: {}", card.getId(), e.getMessage());
+                skippedCards++;
+                continue;
+            }
+            toSave.add(cardService.buildDebitCard(card.getCardHolder(), card.getAccount(), cardIssuer, iin));
+        }
+
+        List<Card> saved = repository.saveAll(toSave);
+        repository.flush();
+        cardFingerprintService.registerAll(saved);
+
+        for (Card card : saved) {
+            cardEmailService.sendCard(card, true);
+            eventPublisher.publishEvent(CardLifecycleEvent.of(CardLifecycleEventType.CREATED,
+                    card.getId(), card.getCardHolder().getId(), card.getAccount().getId()));
+        }
+        return new int[]{saved.size(), skippedCards};
+    }
+
+    private static String ownerKey(Card card) {
+        return card.getCardHolder().getId() + ":" + card.getAccount().getId();
+    }
+
+    private static Counter cardCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("card.reissue.cards")
+                .description("Expiring cards handled by the reissue job")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+}
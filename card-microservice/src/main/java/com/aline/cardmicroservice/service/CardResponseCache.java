@@ -0,0 +1,115 @@
+package com.aline.cardmicroservice.service;
+
+import com.aline.cardmicroservice.config.CardResponseCacheProperties;
+import com.aline.cardmicroservice.dto.VersionedCardResponse;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.Value;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+
+/**
+ * Card responses per principal, kept with the card version they were read at.
+ * <p>
+ * A response is served again while its version is still the card's current
+ * version, so a card changed by issuance, replacement or activation is read
+ * again on the next request. Responses are only served to the principal that
+ * was allowed to read the card, until the entry expires.
+ * <p>
+ * A conditional request is answered from the version index alone when the
+ * principal has the current response cached, or with an existence check
+ * otherwise. The card is not loaded or mapped to send a 304.
+ */
+@Service
+public class CardResponseCache {
+
+    private final CardService cardService;
+    private final CardVersionService cardVersionService;
+    private final CardResponseCacheProperties properties;
+    private final Cache<Key, VersionedCardResponse> cache;
+
+    public CardResponseCache(CardService cardService,
+                             CardVersionService cardVersionService,
+                             CardResponseCacheProperties properties,
+                             MeterRegistry meterRegistry) {
+        this.cardService = cardService;
+        this.cardVersionService = cardVersionService;
+        this.properties = properties;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxSize())
+                .expireAfterWrite(properties.getTtl())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "card.response");
+    }
+
+    public VersionedCardResponse getCardResponse(long cardId) {
+        // Read before the card, so a response is never older than the version it is kept with
+        long version = cardVersionService.currentVersion(cardId);
+        Key key = keyOf(cardId);
+        if (key == null)
+            return load(cardId, version);
+
+        VersionedCardResponse cached = cache.getIfPresent(key);
+        if (cached != null && cached.getVersion() == version)
+            return cached;
+
+        VersionedCardResponse loaded = load(cardId, version);
+        cache.put(key, loaded);
+        return loaded;
+    }
+
+    /**
+     * @param ifNoneMatch The If-None-Match header of the request.
+     * @return The card's current ETag when it matches, or null when the response has to be sent.
+     * @throws com.aline.core.exception.notfound.CardNotFoundException when the ETag matches
+     *                                                                 a card the caller cannot read.
+     */
+    public String getMatchingETag(long cardId, String ifNoneMatch) {
+        String eTag = VersionedCardResponse.eTagOf(cardId, cardVersionService.currentVersion(cardId));
+        if (!matches(ifNoneMatch, eTag))
+            return null;
+
+        Key key = keyOf(cardId);
+        VersionedCardResponse cached = key == null ? null : cache.getIfPresent(key);
+        if (cached == null || !cached.getETag().equals(eTag))
+            cardService.checkCardAccess(cardId);
+        return eTag;
+    }
+
+    private Key keyOf(long cardId) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (!properties.isEnabled() || authentication == null || authentication instanceof AnonymousAuthenticationToken)
+            return null;
+        return new Key(authentication.getName(), cardId);
+    }
+
+    /**
+     * Weak comparison, as for If-None-Match.
+     */
+    private static boolean matches(String ifNoneMatch, String eTag) {
+        for (String tag : ifNoneMatch.split(",")) {
+            tag = tag.trim();
+            if (tag.startsWith("W/"))
+                tag = tag.substring(2);
+            if (tag.equals("*") || tag.equals(eTag))
+                return true;
+        }
+        return false;
+    }
+
+    private VersionedCardResponse load(long cardId, long version) {
+        return new VersionedCardResponse(cardId, version, cardService.mapToResponse(cardService.getCardById(cardId)));
+    }
+
+    @Value
+    private static class Key {
+        String principal;
+        long cardId;
+    }
+
+}
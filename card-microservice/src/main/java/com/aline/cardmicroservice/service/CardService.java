@@ -1,11 +1,22 @@
 package com.aline.cardmicroservice.service;
 
+import com.aline.cardmicroservice.authorization.CardAuthorizer;
+import com.aline.cardmicroservice.dto.CardActivationCheck;
+import com.aline.cardmicroservice.dto.CardSummary;
+import com.aline.cardmicroservice.dto.CardSummaryPage;
+import com.aline.cardmicroservice.event.CardLifecycleEvent;
+import com.aline.cardmicroservice.event.CardLifecycleEventType;
+import com.aline.cardmicroservice.mapper.CardResponseMapper;
+import com.aline.cardmicroservice.metrics.CardMetrics;
+import com.aline.cardmicroservice.metrics.CardRejection;
+import com.aline.cardmicroservice.repository.AccountLookupRepository;
 import com.aline.cardmicroservice.repository.CardRepository;
+import com.aline.cardmicroservice.util.SecureDigitGenerator;
 import com.aline.core.dto.request.ActivateCardRequest;
 import com.aline.core.dto.request.CardRequest;
 import com.aline.core.dto.request.CreateDebitCardRequest;
 import com.aline.core.dto.response.CardResponse;
-import com.aline.core.exception.BadRequestException;
+import com.aline.core.dto.response.CreateDebitCardResponse;
 import com.aline.core.exception.ResponseEntityException;
 import com.aline.core.exception.notfound.AccountNotFoundException;
 import com.aline.core.exception.notfound.CardNotFoundException;
@@ -18,21 +29,24 @@ import com.aline.core.model.card.CardIssuer;
 import com.aline.core.model.card.CardStatus;
 import com.aline.core.model.card.CardType;
 import com.aline.core.model.card.IssuerIdentificationNumber;
-import com.aline.core.repository.AccountRepository;
 import com.aline.core.util.CardUtility;
-import com.aline.core.util.RandomNumberGenerator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.security.access.prepost.PostAuthorize;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import javax.transaction.Transactional;
 import javax.validation.Valid;
 import java.time.LocalDate;
+import java.util.EnumSet;
 import java.util.HashSet;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 
 @Service
 @RequiredArgsConstructor
@@ -40,98 +54,200 @@ import java.util.stream.Collectors;
 public class CardService {
 
     private final CardRepository repository;
-    private final AccountRepository accountRepository;
+    private final AccountLookupRepository accountLookupRepository;
     private final CardIssuerService cardIssuerService;
-    private final RandomNumberGenerator randomNumberGenerator;
+    private final CardEmailService cardEmailService;
+    private final CardFingerprintService cardFingerprintService;
+    private final CardNumberAllocator cardNumberAllocator;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CardAuthorizer authService;
+    private final SecureDigitGenerator secureDigitGenerator;
     private final CardUtility cardUtility;
-
-    @PostAuthorize("@authService.canAccess(#returnObject)")
+    private final CardResponseMapper cardResponseMapper;
+    private final CardMetrics cardMetrics;
+    private final CardIssuanceLock issuanceLock;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Members can only find their own cards. Ownership is part of the query,
+     * so another member's card is never loaded and is reported as not found.
+     */
+    @PreAuthorize("@authService.canLookUpCards()")
+    @Transactional(readOnly = true)
     public Card getCardById(long id) {
-        return repository.findById(id).orElseThrow(CardNotFoundException::new);
+        Long ownerId = authService.getCardOwnerRestriction();
+        Optional<Card> card = ownerId == null ?
+                repository.findById(id) :
+                repository.findByIdAndCardHolderId(id, ownerId);
+        return card.orElseThrow(CardNotFoundException::new);
+    }
+
+    /**
+     * Same access check as {@link #getCardById(long)}, without loading the card.
+     *
+     * @throws CardNotFoundException when the card does not exist or is not the caller's.
+     */
+    @PreAuthorize("@authService.canLookUpCards()")
+    @Transactional(readOnly = true)
+    public void checkCardAccess(long id) {
+        Long ownerId = authService.getCardOwnerRestriction();
+        boolean found = ownerId == null ?
+                repository.existsById(id) :
+                repository.existsByIdAndCardHolderId(id, ownerId);
+        if (!found)
+            throw new CardNotFoundException();
     }
 
-    @PostAuthorize("@authService.canAccess(#returnObject)")
+    @PreAuthorize("@authService.canLookUpCards()")
+    @Transactional(readOnly = true)
     public Card getCardByCardRequest(CardRequest cardRequest) {
-        return repository.findByCardNumberAndSecurityCodeAndExpirationDate(
-                cardRequest.getCardNumber(),
-                cardRequest.getSecurityCode(),
-                cardRequest.getExpirationDate()
-        ).orElseThrow(CardNotFoundException::new);
+        return findCardByCardRequest(cardRequest, authService.getCardOwnerRestriction());
+    }
+
+    /**
+     * @param ownerId Member id the card must belong to. Null for no restriction.
+     */
+    private Card findCardByCardRequest(CardRequest cardRequest, Long ownerId) {
+        byte[] hash = cardFingerprintService.hash(cardRequest.getCardNumber());
+        // Card numbers that were never issued are rejected without a query
+        if (!cardFingerprintService.mightExist(hash, cardRequest.getExpirationDate()))
+            throw new CardNotFoundException();
+
+        String fingerprint = cardFingerprintService.encode(hash);
+        Optional<Card> card = ownerId == null ?
+                repository.findByFingerprintAndSecurityCodeAndExpirationDate(
+                        fingerprint, cardRequest.getSecurityCode(), cardRequest.getExpirationDate()) :
+                repository.findByFingerprintAndSecurityCodeAndExpirationDateAndCardHolderId(
+                        fingerprint, cardRequest.getSecurityCode(), cardRequest.getExpirationDate(), ownerId);
+        return card.orElseThrow(CardNotFoundException::new);
     }
 
     @PreAuthorize("@authService.canAccessByMemberId(#memberId)")
+    @Transactional(readOnly = true)
     public List<Card> getCardsByMemberId(Long memberId) {
         return repository.getCardsByCardHolderId(memberId);
     }
 
     @PreAuthorize("@authService.canAccessByMemberId(#memberId)")
+    @Transactional(readOnly = true)
     public List<Card> getAvailableCardsByMemberId(Long memberId) {
-        return getCardsByMemberId(memberId).stream()
-                .filter(card -> card.getCardStatus() != CardStatus.CLOSED)
-                .collect(Collectors.toList());
+        return repository.findCardsByCardHolderIdAndCardStatusNot(memberId, CardStatus.CLOSED);
     }
 
+    /**
+     * List a member's cards a page at a time, ordered by card id.
+     *
+     * @param availableOnly Leave out closed cards.
+     * @param after Card id to continue after. Null for the first page.
+     */
+    @PreAuthorize("@authService.canAccessByMemberId(#memberId)")
+    @Transactional(readOnly = true)
+    public CardSummaryPage getCardSummariesByMemberId(Long memberId, boolean availableOnly, Long after, int limit) {
+        Set<CardStatus> statuses = EnumSet.allOf(CardStatus.class);
+        if (availableOnly)
+            statuses.remove(CardStatus.CLOSED);
+
+        // Fetch one extra row to know whether there is a next page
+        List<CardSummary> cards = repository.findCardSummariesByCardHolderId(memberId, statuses,
+                after == null ? 0L : after, PageRequest.of(0, limit + 1));
+
+        Long nextCursor = null;
+        if (cards.size() > limit) {
+            cards = cards.subList(0, limit);
+            nextCursor = cards.get(limit - 1).getId();
+        }
+
+        return CardSummaryPage.builder()
+                .content(cards)
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+    /**
+     * Requests for the same member and account are serialized. The transaction
+     * only starts once this instance's issuance lock is held.
+     */
     @PreAuthorize("@authService.canAccessByCreateDebitCardRequest(#createDebitCardRequest)")
-    @Transactional(rollbackOn = ResponseEntityException.class)
     public Card createDebitCard(@Valid CreateDebitCardRequest createDebitCardRequest) {
-        // One debit card per member per account
-        String accountNumber = createDebitCardRequest.getAccountNumber();
-        String membershipId = createDebitCardRequest.getMembershipId();
-
-        Account account = accountRepository.findByAccountNumber(accountNumber)
-                .orElseThrow(AccountNotFoundException::new);
+        return createDebitCard(createDebitCardRequest, card -> {});
+    }
 
-        if (account.getAccountType() != AccountType.CHECKING)
-            throw new BadRequestException("Debit cards can only be opened on a valid CHECKING account. This account is not a CHECKING account.");
+    /**
+     * Same as {@link #createDebitCard(CreateDebitCardRequest)}. The callback runs in the
+     * issuing transaction, so what it writes commits or rolls back with the card.
+     */
+    @PreAuthorize("@authService.canAccessByCreateDebitCardRequest(#createDebitCardRequest)")
+    public Card createDebitCard(@Valid CreateDebitCardRequest createDebitCardRequest, Consumer<Card> onIssued) {
+        return issuanceLock.withLock(createDebitCardRequest.getMembershipId(), createDebitCardRequest.getAccountNumber(),
+                () -> transactionTemplate.execute(status -> {
+                    Card card = issueDebitCard(createDebitCardRequest);
+                    onIssued.accept(card);
+                    return card;
+                }));
+    }
 
-        if (account.getStatus() == AccountStatus.INACTIVE)
-            throw new BadRequestException("Cannot create a debit card on an inactive account.");
+    /**
+     * Issue a debit card without checking the caller. Used by {@link #createDebitCard}
+     * and by asynchronous issuance workers, which run without a security context.
+     * Callers should hold the {@link CardIssuanceLock} for the request.
+     */
+    @Transactional(rollbackFor = ResponseEntityException.class)
+    public Card issueDebitCard(CreateDebitCardRequest createDebitCardRequest) {
+        CardMetrics.Operation operation = cardMetrics.start("create_debit_card")
+                .cardType(CardType.DEBIT)
+                .replacement(createDebitCardRequest.isReplacement());
+        try {
+            return issueDebitCard(createDebitCardRequest, operation);
+        } catch (RuntimeException e) {
+            operation.failed(e);
+            throw e;
+        } finally {
+            operation.stop();
+        }
+    }
 
-        if (account.getStatus() == AccountStatus.ARCHIVED)
-            throw new BadRequestException("Cannot create a debit card on a closed account.");
+    private Card issueDebitCard(CreateDebitCardRequest createDebitCardRequest, CardMetrics.Operation operation) {
+        // One debit card per member per account
+        String accountNumber = createDebitCardRequest.getAccountNumber();
+        String membershipId = createDebitCardRequest.getMembershipId();
 
-        Member member = account.getMembers().stream()
-                .filter(m -> m.getMembershipId().equals(membershipId))
-                .findFirst()
-                .orElseThrow(() -> {
-                    throw new BadRequestException("Member does not exist in this account.");
-                });
-
-        boolean cardExists = repository.existsCardByCardHolderAndAccount(member, account);
-
-        if (cardExists) {
-            List<Card> allCards = repository.findCardsByCardHolderAndAccount(member, account);
-            if (createDebitCardRequest.isReplacement()) {
-                log.info("Requesting replacement. Closing all cards.");
-                allCards.forEach(card -> card.setCardStatus(CardStatus.CLOSED));
-                repository.saveAll(allCards);
-                log.info("Proceeding with card creation...");
-            } else {
-                log.error("Activate card already exists. Please request a replacement");
-                throw new BadRequestException("Active card already exists. Please request a replacement instead.");
-            }
+        // Locks the account row until commit, which serializes issuance across instances
+        Account account = operation.time("account_lookup", () -> accountLookupRepository.lockByAccountNumber(accountNumber)
+                .orElseThrow(AccountNotFoundException::new));
+
+        checkDebitCardEligibility(account);
+        Member member = findAccountMember(account, membershipId);
+
+        if (createDebitCardRequest.isReplacement()) {
+            // The account lock keeps these ids in step with the bulk update below
+            List<Long> closing = operation.time("close_existing", () -> {
+                List<Long> ids = repository.findOpenIdsByCardHolderIdAndAccountId(member.getId(), account.getId());
+                if (!ids.isEmpty())
+                    repository.closeCardsByCardHolderIdAndAccountId(member.getId(), account.getId());
+                return ids;
+            });
+            log.info("Requesting replacement. Closed {} card(s). Proceeding with card creation...", closing.size());
+            for (Long closedId : closing)
+                eventPublisher.publishEvent(CardLifecycleEvent.of(CardLifecycleEventType.CLOSED_FOR_REPLACEMENT,
+                        closedId, member.getId(), account.getId()));
+        } else if (operation.time("existence_check", () -> repository.existsCardByCardHolderAndAccount(member, account))) {
+            log.error("Activate card already exists. Please request a replacement");
+            throw cardMetrics.reject(CardRejection.CARD_EXISTS);
         }
 
         CardIssuer defaultCardIssuer = cardIssuerService.getDefaultCardIssuer();
         IssuerIdentificationNumber defaultIin = cardIssuerService.getDefaultIin();
+        operation.issuer(defaultCardIssuer.getIssuerName());
 
         log.info("Using default issuer: {}", defaultCardIssuer.getIssuerName());
 
-        String cardNumber = generateCardNumber(defaultIin.getIin(), defaultCardIssuer.getCardNumberLength());
-
-        Card card = new Card();
-        card.setCardNumber(cardNumber);
-        card.setCardHolder(member);
-        card.setAccount(account);
-        card.setCardStatus(CardStatus.INACTIVE); // Default to inactive
-        card.setCardType(CardType.DEBIT);
-        card.setSecurityCode(randomNumberGenerator.generateRandomNumberString(3));
-        LocalDate expDate = LocalDate.now()
-                .minusDays(LocalDate.now().getDayOfMonth() - 1)
-                .plusYears(3);
-        card.setExpirationDate(expDate);
+        Card card = operation.time("number_generation", () -> buildDebitCard(member, account, defaultCardIssuer, defaultIin));
 
-        Card savedCard = repository.save(card);
+        Card savedCard = operation.time("save", () -> {
+            Card saved = repository.save(card);
+            cardFingerprintService.register(saved);
+            return saved;
+        });
 
         if (account.getCards() == null) {
             account.setCards(new HashSet<>());
@@ -146,39 +262,126 @@ public class CardService {
 
         log.info("Successfully saved card.");
 
+        operation.time("email", () -> cardEmailService.sendCard(savedCard, createDebitCardRequest.isReplacement()));
+        eventPublisher.publishEvent(CardLifecycleEvent.of(CardLifecycleEventType.CREATED,
+                savedCard.getId(), member.getId(), account.getId()));
+
         return savedCard;
     }
 
-    public Card activateCard(@Valid ActivateCardRequest activateCardRequest) {
+    /**
+     * The card's version is incremented after the activation commits.
+     */
+    @Transactional
+    public CardResponse activateCard(@Valid ActivateCardRequest activateCardRequest) {
+        CardMetrics.Operation operation = cardMetrics.start("activate_card");
+        try {
+            return activateCard(activateCardRequest, operation);
+        } catch (RuntimeException e) {
+            operation.failed(e);
+            throw e;
+        } finally {
+            operation.stop();
+        }
+    }
 
-        Card card = getCardByCardRequest(CardRequest.builder()
-                .cardNumber(activateCardRequest.getCardNumber())
-                .securityCode(activateCardRequest.getSecurityCode())
-                .expirationDate(activateCardRequest.getExpirationDate())
-                .build());
+    /**
+     * One query checks the card holder and statuses, one conditional update
+     * activates the card. The response is built from the check, nothing else is read.
+     */
+    private CardResponse activateCard(ActivateCardRequest activateCardRequest, CardMetrics.Operation operation) {
+        // The check query would treat missing holder details as neither matching nor mismatching
+        if (activateCardRequest.getDateOfBirth() == null || activateCardRequest.getLastFourOfSSN() == null)
+            throw cardMetrics.reject(CardRejection.CARD_HOLDER_MISMATCH);
+
+        byte[] hash = cardFingerprintService.hash(activateCardRequest.getCardNumber());
+        // Card numbers that were never issued are rejected without a query
+        if (!cardFingerprintService.mightExist(hash, activateCardRequest.getExpirationDate()))
+            throw new CardNotFoundException();
+
+        // Activation is public, the card holder details in the request are the authorization
+        CardActivationCheck check = operation.time("card_lookup", () -> repository.checkActivation(
+                cardFingerprintService.encode(hash),
+                activateCardRequest.getSecurityCode(),
+                activateCardRequest.getExpirationDate(),
+                activateCardRequest.getDateOfBirth(),
+                activateCardRequest.getLastFourOfSSN()))
+                .orElseThrow(CardNotFoundException::new);
+        operation.cardType(check.getCardType());
+
+        CardRejection rejection = check.getRejection();
+        if (rejection != null)
+            throw cardMetrics.reject(rejection);
+
+        // Nothing is updated when the card changed since the check, almost always by a concurrent activation
+        if (operation.time("save", () -> repository.activate(check.getCardId())) == 0)
+            throw cardMetrics.reject(CardRejection.CARD_ALREADY_ACTIVE);
+
+        eventPublisher.publishEvent(CardLifecycleEvent.of(CardLifecycleEventType.ACTIVATED,
+                check.getCardId(), check.getMemberId(), check.getAccountId()));
+        return cardResponseMapper.toActivatedCardResponse(check);
+    }
 
-        Member member = card.getCardHolder();
-        String ssn = member.getApplicant().getSocialSecurity();
+    /**
+     * Debit cards can only be opened on open CHECKING accounts.
+     */
+    public void checkDebitCardEligibility(Account account) {
+        if (account.getAccountType() != AccountType.CHECKING)
+            throw cardMetrics.reject(CardRejection.ACCOUNT_NOT_CHECKING);
 
-        LocalDate dateOfBirth = member.getApplicant().getDateOfBirth();
-        String lastFourSSN = ssn.substring(ssn.length() - 4);
+        if (account.getStatus() == AccountStatus.INACTIVE)
+            throw cardMetrics.reject(CardRejection.ACCOUNT_INACTIVE);
 
-        // Verify cardholder information
-        if (!dateOfBirth.isEqual(activateCardRequest.getDateOfBirth()) ||
-            !lastFourSSN.equals(activateCardRequest.getLastFourOfSSN()))
-            throw new BadRequestException("Information was not entered correctly. Please check your card and try again.");
+        if (account.getStatus() == AccountStatus.ARCHIVED)
+            throw cardMetrics.reject(CardRejection.ACCOUNT_CLOSED);
+    }
 
-        // Checks to allow card activation
-        if (card.getCardStatus() == CardStatus.ACTIVE)
-            throw new BadRequestException("Card is already active.");
-        if (card.getCardStatus() == CardStatus.CLOSED)
-            throw new BadRequestException("Card has been closed. Cannot activate a closed card.");
-        if (card.getAccount().getStatus() == AccountStatus.ARCHIVED)
-            throw new BadRequestException("Cannot activate a card on a closed account.");
+    public Member findAccountMember(Account account, String membershipId) {
+        return account.getMembers().stream()
+                .filter(m -> m.getMembershipId().equals(membershipId))
+                .findFirst()
+                .orElseThrow(() -> cardMetrics.reject(CardRejection.MEMBER_NOT_IN_ACCOUNT));
+    }
+
+    /**
+     * Build a new inactive debit card. The card is not saved.
+     */
+    public Card buildDebitCard(Member member, Account account, CardIssuer cardIssuer, IssuerIdentificationNumber iin) {
+        String cardNumber = allocateCardNumber(iin.getIin(), cardIssuer.getCardNumberLength());
+
+        Card card = new Card();
+        card.setCardNumber(cardNumber);
+        card.setCardHolder(member);
+        card.setAccount(account);
+        card.setCardStatus(CardStatus.INACTIVE); // Default to inactive
+        card.setCardType(CardType.DEBIT);
+        card.setSecurityCode(secureDigitGenerator.nextDigits(3));
+        card.setExpirationDate(expirationDateFor(LocalDate.now()));
+        return card;
+    }
 
+    /**
+     * Cards expire three years after the first day of the month they are issued in.
+     */
+    public static LocalDate expirationDateFor(LocalDate issuedOn) {
+        return issuedOn.withDayOfMonth(1).plusYears(3);
+    }
 
-        card.setCardStatus(CardStatus.ACTIVE);
-        return repository.save(card);
+    public CreateDebitCardResponse mapToCreateDebitCardResponse(Card card) {
+        return cardResponseMapper.toCreateDebitCardResponse(card);
+    }
+
+    /**
+     * Allocate a unique card number. Cards issued before the allocator was introduced
+     * have random numbers, so allocated numbers that collide with them are skipped.
+     */
+    public String allocateCardNumber(String iin, int cardNumberLength) {
+        String cardNumber = cardNumberAllocator.allocate(iin, cardNumberLength);
+        while (cardFingerprintService.exists(cardNumber)) {
+            log.warn("Allocated card number collides with an existing card. Allocating another.");
+            cardNumber = cardNumberAllocator.allocate(iin, cardNumberLength);
+        }
+        return cardNumber;
     }
 
     public String generateCardNumber(String iin, int cardNumberLength) {
@@ -186,7 +389,7 @@ public class CardService {
     }
 
     public CardResponse mapToResponse(Card card) {
-        return cardUtility.mapToResponse(card);
+        return cardResponseMapper.toCardResponse(card);
     }
 
     public boolean validateCardNumber(String cardNumber) {
@@ -0,0 +1,141 @@
+package com.aline.cardmicroservice.service;
+
+import com.aline.cardmicroservice.config.CardResponseCacheProperties;
+import com.aline.cardmicroservice.event.CardLifecycleEvent;
+import com.aline.cardmicroservice.event.CardLifecycleEventType;
+import com.aline.cardmicroservice.model.CardVersion;
+import com.aline.cardmicroservice.repository.CardVersionRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+
+/**
+ * Card versions and an in-memory index of the current version per card.
+ * <p>
+ * Versions are incremented from the card's lifecycle events, in the
+ * transaction that changes the card. Activation is kept to its own two
+ * statements, so its increment runs after the activation commits, in its
+ * own transaction on the version executor.
+ * <p>
+ * The increment is not read back. Once it commits, the card is dropped from
+ * the index and its next read loads the committed version. Caffeine waits for
+ * a load in progress before dropping the entry, so a version read before the
+ * commit does not stay in the index.
+ */
+@Service
+@Slf4j
+public class CardVersionService {
+
+    private final CardVersionRepository repository;
+    private final TransactionTemplate transactionTemplate;
+    private final Executor executor;
+    private final Cache<Long, Long> index;
+
+    public CardVersionService(CardVersionRepository repository,
+                              TransactionTemplate transactionTemplate,
+                              @Qualifier("cardVersionExecutor") Executor executor,
+                              CardResponseCacheProperties properties,
+                              MeterRegistry meterRegistry) {
+        this.repository = repository;
+        this.transactionTemplate = transactionTemplate;
+        this.executor = executor;
+        this.index = Caffeine.newBuilder()
+                .maximumSize(properties.getVersionIndexSize())
+                .expireAfterWrite(properties.getVersionTtl())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, index, "card.version");
+    }
+
+    public long currentVersion(long cardId) {
+        return index.get(cardId, id -> repository.findVersionByCardId(id).orElse(0L));
+    }
+
+    @EventListener
+    @Transactional
+    public void onLifecycleEvent(CardLifecycleEvent event) {
+        switch (event.getType()) {
+            case CREATED:
+                repository.save(new CardVersion(event.getCardId(), 1));
+                advanceAfterCommit(event.getCardId(), 1);
+                break;
+            case CLOSED_FOR_REPLACEMENT:
+                increment(event.getCardId());
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Moves an indexed version ahead right away, so a response cached for the
+     * inactive card is not served while the increment is pending.
+     */
+    @TransactionalEventListener
+    public void onActivated(CardLifecycleEvent event) {
+        if (event.getType() != CardLifecycleEventType.ACTIVATED)
+            return;
+        Long cardId = event.getCardId();
+        index.asMap().computeIfPresent(cardId, (id, version) -> version + 1);
+        try {
+            executor.execute(() -> incrementCommitted(cardId));
+        } catch (RejectedExecutionException e) {
+            incrementCommitted(cardId);
+        }
+    }
+
+    private void incrementCommitted(Long cardId) {
+        try {
+            transactionTemplate.execute(status -> {
+                increment(cardId);
+                return null;
+            });
+        } catch (RuntimeException e) {
+            log.error("Failed to increment the version of activated card {}.", cardId, e);
+            index.invalidate(cardId);
+        }
+    }
+
+    private void increment(Long cardId) {
+        if (repository.increment(cardId) > 0) {
+            invalidateAfterCommit(cardId);
+            return;
+        }
+        // Cards issued before versions existed start at 1
+        repository.save(new CardVersion(cardId, 1));
+        advanceAfterCommit(cardId, 1);
+    }
+
+    private void advanceAfterCommit(Long cardId, long version) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                index.asMap().merge(cardId, version, Math::max);
+            }
+        });
+    }
+
+    private void invalidateAfterCommit(Long cardId) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                index.invalidate(cardId);
+            }
+        });
+    }
+
+}
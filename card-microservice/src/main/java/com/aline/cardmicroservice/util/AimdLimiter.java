@@ -0,0 +1,90 @@
+package com.aline.cardmicroservice.util;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * Concurrency limit that adapts to observed latency with additive increase,
+ * multiplicative decrease. The limit grows by one while requests finish under the
+ * latency target and the limit is being used, and shrinks by {@code backoffRatio}
+ * when a request is slower than the target or fails.
+ * <p>
+ * The limit shrinks at most once per latency target. The requests in flight when
+ * the backend slows down all finish slow, and together they are one congestion
+ * signal rather than one per request.
+ */
+public class AimdLimiter {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyTargetNanos;
+    private final double backoffRatio;
+    private final LongSupplier nanoTime;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile int limit;
+    private long lastDecreaseNanos;
+
+    public AimdLimiter(int initialLimit, int minLimit, int maxLimit, long latencyTargetNanos, double backoffRatio) {
+        this(initialLimit, minLimit, maxLimit, latencyTargetNanos, backoffRatio, System::nanoTime);
+    }
+
+    AimdLimiter(int initialLimit, int minLimit, int maxLimit, long latencyTargetNanos, double backoffRatio,
+                LongSupplier nanoTime) {
+        if (minLimit < 1 || minLimit > initialLimit || initialLimit > maxLimit)
+            throw new IllegalArgumentException("Limits must satisfy 1 <= min <= initial <= max.");
+        if (backoffRatio <= 0 || backoffRatio >= 1)
+            throw new IllegalArgumentException("Backoff ratio must be between 0 and 1.");
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyTargetNanos = latencyTargetNanos;
+        this.backoffRatio = backoffRatio;
+        this.nanoTime = nanoTime;
+        this.limit = initialLimit;
+        this.lastDecreaseNanos = nanoTime.getAsLong() - latencyTargetNanos;
+    }
+
+    /**
+     * @return True if the request may proceed. Callers must then call {@link #release}.
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit)
+                return false;
+            if (inFlight.compareAndSet(current, current + 1))
+                return true;
+        }
+    }
+
+    public void release(long latencyNanos, boolean failed) {
+        int inFlightBefore = inFlight.getAndDecrement();
+        if (failed || latencyNanos > latencyTargetNanos) {
+            decrease();
+        } else if (inFlightBefore * 2 >= limit) {
+            // Only grow when the current limit is actually being used
+            increase();
+        }
+    }
+
+    private synchronized void decrease() {
+        long now = nanoTime.getAsLong();
+        if (now - lastDecreaseNanos < latencyTargetNanos)
+            return;
+        lastDecreaseNanos = now;
+        limit = Math.max(minLimit, (int) (limit * backoffRatio));
+    }
+
+    private synchronized void increase() {
+        limit = Math.min(maxLimit, limit + 1);
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+}
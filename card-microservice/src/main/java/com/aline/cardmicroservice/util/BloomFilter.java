@@ -0,0 +1,77 @@
+package com.aline.cardmicroservice.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread-safe Bloom filter over values that are already uniformly
+ * distributed hashes, such as HMAC digests. The first 16 bytes of the
+ * hash seed double hashing, so no further hashing is done here.
+ */
+public class BloomFilter {
+
+    private final AtomicLongArray bits;
+    private final long bitCount;
+    private final int hashFunctions;
+
+    public BloomFilter(long expectedInsertions, double falsePositiveRate) {
+        if (expectedInsertions <= 0)
+            throw new IllegalArgumentException("Expected insertions must be positive.");
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1)
+            throw new IllegalArgumentException("False positive rate must be between 0 and 1.");
+        long optimalBits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        int words = (int) Math.min(Integer.MAX_VALUE - 8, (optimalBits + 63) / 64);
+        this.bits = new AtomicLongArray(words);
+        this.bitCount = (long) words * 64;
+        this.hashFunctions = Math.max(1, (int) Math.round((double) bitCount / expectedInsertions * Math.log(2)));
+    }
+
+    public void put(byte[] hash) {
+        long h1 = readLong(hash, 0);
+        long h2 = readLong(hash, 8);
+        for (int i = 0; i < hashFunctions; i++) {
+            long index = Long.remainderUnsigned(h1 + i * h2, bitCount);
+            setBit(index);
+        }
+    }
+
+    public boolean mightContain(byte[] hash) {
+        long h1 = readLong(hash, 0);
+        long h2 = readLong(hash, 8);
+        for (int i = 0; i < hashFunctions; i++) {
+            long index = Long.remainderUnsigned(h1 + i * h2, bitCount);
+            if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0)
+                return false;
+        }
+        return true;
+    }
+
+    public long getBitCount() {
+        return bitCount;
+    }
+
+    public int getHashFunctions() {
+        return hashFunctions;
+    }
+
+    private void setBit(long index) {
+        int word = (int) (index >>> 6);
+        long mask = 1L << index;
+        long current;
+        do {
+            current = bits.get(word);
+            if ((current & mask) != 0)
+                return;
+        } while (!bits.compareAndSet(word, current, current | mask));
+    }
+
+    private static long readLong(byte[] bytes, int offset) {
+        if (bytes.length < offset + 8)
+            throw new IllegalArgumentException("Hash must be at least 16 bytes.");
+        long value = 0;
+        for (int i = 0; i < 8; i++) {
+            value = (value << 8) | (bytes[offset + i] & 0xFF);
+        }
+        return value;
+    }
+
+}
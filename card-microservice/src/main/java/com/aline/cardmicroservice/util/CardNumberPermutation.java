@@ -0,0 +1,60 @@
+package com.aline.cardmicroservice.util;
+
+/**
+ * Keyed bijection over {@code [0, domain)} built from a balanced Feistel
+ * network with cycle walking. Sequential inputs map to scattered outputs
+ * and distinct inputs always map to distinct outputs.
+ */
+public class CardNumberPermutation {
+
+    private static final int ROUNDS = 8;
+
+    private final long domain;
+    private final int halfBits;
+    private final long halfMask;
+    private final long[] roundKeys;
+
+    public CardNumberPermutation(long domain, long key) {
+        if (domain < 2)
+            throw new IllegalArgumentException("Permutation domain must contain at least two values.");
+        this.domain = domain;
+        int bits = 64 - Long.numberOfLeadingZeros(domain - 1);
+        this.halfBits = (bits + 1) / 2;
+        this.halfMask = (1L << halfBits) - 1;
+        this.roundKeys = new long[ROUNDS];
+        long seed = key;
+        for (int i = 0; i < ROUNDS; i++) {
+            seed = mix(seed + 0x9E3779B97F4A7C15L);
+            roundKeys[i] = seed;
+        }
+    }
+
+    public long permute(long value) {
+        if (value < 0 || value >= domain)
+            throw new IllegalArgumentException("Value is outside the permutation domain.");
+        long result = value;
+        // The Feistel domain is at most 4x larger, so this terminates quickly
+        do {
+            result = encrypt(result);
+        } while (result >= domain);
+        return result;
+    }
+
+    private long encrypt(long value) {
+        long left = value >>> halfBits;
+        long right = value & halfMask;
+        for (long roundKey : roundKeys) {
+            long next = left ^ (mix(right ^ roundKey) & halfMask);
+            left = right;
+            right = next;
+        }
+        return (left << halfBits) | right;
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+}
@@ -0,0 +1,140 @@
+package com.aline.cardmicroservice.util;
+
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.function.Supplier;
+
+/**
+ * Cryptographically secure random decimal digits for concurrent callers.
+ * <p>
+ * Digits come from a fixed set of stripes. Each stripe has its own generator
+ * and a buffer of random bytes. A thread always uses the same stripe, so
+ * threads only contend when more of them than there are stripes draw digits
+ * at the same time. Bytes of 250 and above are discarded. The rest map to
+ * digits by modulo without bias. Each generator is reseeded from the system
+ * after a set number of bytes.
+ */
+public class SecureDigitGenerator {
+
+    /**
+     * Largest multiple of ten that fits in a byte. Bytes from here on are rejected.
+     */
+    static final int REJECT_FROM = 250;
+
+    private static final int SEED_BYTES = 32;
+
+    private final Stripe[] stripes;
+    private final int mask;
+
+    /**
+     * @param stripes Number of independent generators. Rounded up to a power of two.
+     * @param bufferSize Random bytes drawn from a generator at a time.
+     * @param reseedAfterBytes Bytes a generator produces before it is reseeded.
+     */
+    public SecureDigitGenerator(int stripes, int bufferSize, long reseedAfterBytes) {
+        this(stripes, bufferSize, reseedAfterBytes, SecureDigitGenerator::newGenerator, new SecureRandom());
+    }
+
+    SecureDigitGenerator(int stripes, int bufferSize, long reseedAfterBytes,
+                         Supplier<SecureRandom> generators, SecureRandom seedSource) {
+        if (stripes < 1 || bufferSize < 1 || reseedAfterBytes < 1)
+            throw new IllegalArgumentException("Stripes, buffer size and reseed interval must be positive.");
+        int size = Integer.highestOneBit(stripes);
+        if (size < stripes)
+            size <<= 1;
+        this.stripes = new Stripe[size];
+        for (int i = 0; i < size; i++) {
+            this.stripes[i] = new Stripe(generators.get(), seedSource, bufferSize, reseedAfterBytes);
+        }
+        this.mask = size - 1;
+    }
+
+    /**
+     * Fill part of a buffer with random digit characters.
+     */
+    public void nextDigits(char[] destination, int offset, int length) {
+        if (offset < 0 || length < 0 || offset + length > destination.length)
+            throw new IndexOutOfBoundsException();
+        long id = Thread.currentThread().getId();
+        Stripe stripe = stripes[(int) (id ^ (id >>> 32)) & mask];
+        synchronized (stripe) {
+            for (int i = offset; i < offset + length; i++) {
+                destination[i] = (char) ('0' + stripe.nextDigit());
+            }
+        }
+    }
+
+    public String nextDigits(int length) {
+        char[] digits = new char[length];
+        nextDigits(digits, 0, length);
+        return new String(digits);
+    }
+
+    public int stripes() {
+        return stripes.length;
+    }
+
+    /**
+     * SHA1PRNG keeps its state per instance. The platform default may share one
+     * locked source between all instances, which is what the stripes avoid.
+     */
+    private static SecureRandom newGenerator() {
+        try {
+            return SecureRandom.getInstance("SHA1PRNG");
+        } catch (NoSuchAlgorithmException e) {
+            return new SecureRandom();
+        }
+    }
+
+    private static class Stripe {
+        private final SecureRandom random;
+        private final SecureRandom seedSource;
+        private final byte[] buffer;
+        private final long reseedAfterBytes;
+        private int position;
+        private long bytesSinceSeed;
+
+        Stripe(SecureRandom random, SecureRandom seedSource, int bufferSize, long reseedAfterBytes) {
+            this.random = random;
+            this.seedSource = seedSource;
+            this.buffer = new byte[bufferSize];
+            this.reseedAfterBytes = reseedAfterBytes;
+            // Seeded from the system before first use, SHA1PRNG then does not seed itself
+            reseed();
+            this.position = bufferSize;
+        }
+
+        int nextDigit() {
+            while (true) {
+                if (position == buffer.length)
+                    refill();
+                int value = buffer[position] & 0xFF;
+                // Drawn bytes are not left in memory
+                buffer[position++] = 0;
+                if (value < REJECT_FROM)
+                    return value % 10;
+            }
+        }
+
+        private void refill() {
+            if (bytesSinceSeed >= reseedAfterBytes) {
+                reseed();
+                bytesSinceSeed = 0;
+            }
+            random.nextBytes(buffer);
+            bytesSinceSeed += buffer.length;
+            position = 0;
+        }
+
+        /**
+         * Adds to the existing seed rather than replacing it. The seed is read with
+         * nextBytes, generateSeed may block on the system's entropy pool.
+         */
+        private void reseed() {
+            byte[] seed = new byte[SEED_BYTES];
+            seedSource.nextBytes(seed);
+            random.setSeed(seed);
+        }
+    }
+
+}
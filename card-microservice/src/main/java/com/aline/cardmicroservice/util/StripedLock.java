@@ -0,0 +1,42 @@
+package com.aline.cardmicroservice.util;
+
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Fixed set of locks shared by hash. Keys that hash to the same stripe
+ * share a lock, so memory stays constant however many keys there are.
+ */
+public class StripedLock {
+
+    private final ReentrantLock[] locks;
+    private final int mask;
+
+    /**
+     * @param stripes Number of locks. Rounded up to a power of two.
+     */
+    public StripedLock(int stripes) {
+        if (stripes < 1)
+            throw new IllegalArgumentException("Stripes must be positive.");
+        int size = Integer.highestOneBit(stripes);
+        if (size < stripes)
+            size <<= 1;
+        locks = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        mask = size - 1;
+    }
+
+    public Lock get(Object key) {
+        int hash = key.hashCode();
+        // Spread the high bits so keys that differ only there use different stripes
+        hash ^= hash >>> 16;
+        return locks[hash & mask];
+    }
+
+    public int size() {
+        return locks.length;
+    }
+
+}
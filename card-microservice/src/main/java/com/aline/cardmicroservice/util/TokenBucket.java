@@ -0,0 +1,44 @@
+package com.aline.cardmicroservice.util;
+
+/**
+ * Token bucket refilled continuously at a fixed rate.
+ */
+public class TokenBucket {
+
+    private final double capacity;
+    private final double refillPerNano;
+
+    private double tokens;
+    private long lastRefill;
+
+    public TokenBucket(double capacity, double refillPerSecond) {
+        this.capacity = capacity;
+        this.refillPerNano = refillPerSecond / 1_000_000_000d;
+        this.tokens = capacity;
+        this.lastRefill = System.nanoTime();
+    }
+
+    public synchronized boolean tryConsume() {
+        refill(System.nanoTime());
+        if (tokens < 1)
+            return false;
+        tokens--;
+        return true;
+    }
+
+    /**
+     * @return Seconds until the next token is available.
+     */
+    public synchronized long secondsUntilRefill() {
+        refill(System.nanoTime());
+        if (tokens >= 1)
+            return 0;
+        return (long) Math.ceil((1 - tokens) / refillPerNano / 1_000_000_000d);
+    }
+
+    private void refill(long now) {
+        tokens = Math.min(capacity, tokens + (now - lastRefill) * refillPerNano);
+        lastRefill = now;
+    }
+
+}
@@ -0,0 +1,54 @@
+-- Tables owned by the card microservice. Core tables (card, member, account, ...)
+-- are shared with the other services and are not managed here.
+-- Schemas that were managed by ddl-auto already have these tables, hence IF NOT EXISTS.
+
+CREATE TABLE IF NOT EXISTS card_email_outbox
+(
+    id              BIGINT       NOT NULL AUTO_INCREMENT,
+    card_id         BIGINT       NOT NULL,
+    replacement     BOOLEAN      NOT NULL,
+    status          VARCHAR(16)  NOT NULL,
+    attempts        INT          NOT NULL,
+    next_attempt_at DATETIME(6)  NOT NULL,
+    claimed_at      DATETIME(6),
+    sent_at         DATETIME(6),
+    last_error      VARCHAR(512),
+    created_at      DATETIME(6)  NOT NULL,
+    PRIMARY KEY (id),
+    INDEX idx_card_email_outbox_due (status, next_attempt_at)
+);
+
+CREATE TABLE IF NOT EXISTS card_fingerprint
+(
+    card_id     BIGINT      NOT NULL,
+    fingerprint VARCHAR(43) NOT NULL,
+    created_at  DATETIME(6) NOT NULL,
+    PRIMARY KEY (card_id),
+    INDEX idx_card_fingerprint (fingerprint),
+    INDEX idx_card_fingerprint_created_at (created_at)
+);
+
+CREATE TABLE IF NOT EXISTS card_number_block
+(
+    iin        VARCHAR(12) NOT NULL,
+    next_value BIGINT      NOT NULL,
+    PRIMARY KEY (iin)
+);
+
+CREATE TABLE IF NOT EXISTS card_issuance_request
+(
+    id              VARCHAR(36)  NOT NULL,
+    account_number  VARCHAR(255) NOT NULL,
+    membership_id   VARCHAR(255) NOT NULL,
+    replacement     BOOLEAN      NOT NULL,
+    status          VARCHAR(16)  NOT NULL,
+    attempts        INT          NOT NULL,
+    card_id         BIGINT,
+    failure_message VARCHAR(512),
+    created_at      DATETIME(6)  NOT NULL,
+    claimed_at      DATETIME(6),
+    completed_at    DATETIME(6),
+    PRIMARY KEY (id),
+    INDEX idx_card_issuance_request_status (status, created_at)
+);
+
@@ -0,0 +1,11 @@
+CREATE TABLE card_idempotency_key
+(
+    idempotency_key VARCHAR(43) NOT NULL,
+    request_hash    VARCHAR(43) NOT NULL,
+    card_id         BIGINT,
+    claims          INT         NOT NULL,
+    claimed_at      DATETIME(6) NOT NULL,
+    expires_at      DATETIME(6) NOT NULL,
+    PRIMARY KEY (idempotency_key),
+    INDEX idx_card_idempotency_key_expires_at (expires_at)
+);
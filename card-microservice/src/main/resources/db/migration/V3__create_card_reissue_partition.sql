@@ -0,0 +1,16 @@
+CREATE TABLE card_reissue_partition
+(
+    id                   VARCHAR(32) NOT NULL,
+    run_date             DATE        NOT NULL,
+    partition_no         INT         NOT NULL,
+    partition_count      INT         NOT NULL,
+    lease_owner          VARCHAR(36),
+    lease_expires_at     DATETIME(6),
+    last_expiration_date DATE        NOT NULL,
+    last_card_id         BIGINT      NOT NULL,
+    reissued             INT         NOT NULL,
+    skipped              INT         NOT NULL,
+    completed_at         DATETIME(6),
+    PRIMARY KEY (id),
+    INDEX idx_card_reissue_partition_run_date (run_date)
+);
@@ -0,0 +1,6 @@
+CREATE TABLE card_version
+(
+    card_id BIGINT NOT NULL,
+    version BIGINT NOT NULL,
+    PRIMARY KEY (card_id)
+);
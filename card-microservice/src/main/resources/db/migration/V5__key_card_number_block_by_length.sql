@@ -0,0 +1,10 @@
+-- Blocks are reserved per IIN and card number length. Rows from before are kept
+-- with length 0 as the starting point for every length of their IIN.
+ALTER TABLE card_number_block
+    ADD COLUMN card_number_length INT NOT NULL DEFAULT 0;
+
+ALTER TABLE card_number_block
+    DROP PRIMARY KEY;
+
+ALTER TABLE card_number_block
+    ADD PRIMARY KEY (iin, card_number_length);
@@ -0,0 +1,41 @@
+package com.aline.cardmicroservice;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.ApplicationListener;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Starts the application with the fast-startup profile against H2 and reports
+ * the time until it is ready, including the Flyway migrations and Hibernate
+ * schema validation that production startup goes through. Fails when startup
+ * exceeds {@code -Dstartup.budget-ms}.
+ */
+@Slf4j
+class CardMicroserviceStartupTest {
+
+    private static final long BUDGET_MILLIS = Long.getLong("startup.budget-ms", 20000);
+
+    @Test
+    void test_startup_isWithinBudget() {
+        AtomicLong readyAt = new AtomicLong();
+        long start = System.nanoTime();
+
+        try (ConfigurableApplicationContext ignored = new SpringApplicationBuilder(CardMicroserviceApplication.class)
+                .profiles("test", "fast-startup")
+                .properties("server.port=0")
+                .listeners((ApplicationListener<ApplicationReadyEvent>) event -> readyAt.set(System.nanoTime()))
+                .run()) {
+            long millis = (readyAt.get() - start) / 1_000_000;
+            log.info("Card microservice time-to-ready: {} ms (budget {} ms)", millis, BUDGET_MILLIS);
+            assertTrue(millis <= BUDGET_MILLIS, "Startup took " + millis + " ms, budget is " + BUDGET_MILLIS + " ms");
+        }
+    }
+
+}
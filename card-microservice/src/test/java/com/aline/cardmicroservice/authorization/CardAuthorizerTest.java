@@ -0,0 +1,98 @@
+package com.aline.cardmicroservice.authorization;
+
+import com.aline.cardmicroservice.config.AuthorizationCacheProperties;
+import com.aline.cardmicroservice.repository.AccountLookupRepository;
+import com.aline.core.dto.request.CreateDebitCardRequest;
+import com.aline.core.model.Member;
+import com.aline.core.model.card.Card;
+import com.aline.core.model.user.MemberUser;
+import com.aline.core.model.user.UserRole;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CardAuthorizerTest {
+
+    @Mock
+    AccountLookupRepository accountLookupRepository;
+    MemberAuthorizationCache cache;
+    MemberCardAuthorizer authorizer;
+    Member member;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        member = new Member();
+        member.setId(1L);
+        member.setMembershipId("000000001");
+        MemberUser user = new MemberUser();
+        user.setMember(member);
+
+        when(accountLookupRepository.findAccountNumbersByMemberId(1L))
+                .thenReturn(new HashSet<>(Arrays.asList("0011223344", "0011223355")));
+
+        cache = new MemberAuthorizationCache(new AuthorizationCacheProperties(), new SimpleMeterRegistry());
+        authorizer = new MemberCardAuthorizer(cache, accountLookupRepository, user);
+    }
+
+    @Test
+    void test_checks_loadMemberOnce() {
+        Card card = new Card();
+        card.setCardHolder(member);
+        CreateDebitCardRequest request = new CreateDebitCardRequest();
+        request.setMembershipId("000000001");
+        request.setAccountNumber("0011223355");
+
+        assertTrue(authorizer.canAccess(card));
+        assertTrue(authorizer.canAccessByMemberId(1L));
+        assertFalse(authorizer.canAccessByMemberId(2L));
+        assertTrue(authorizer.canAccessByCreateDebitCardRequest(request));
+
+        request.setAccountNumber("9999999999");
+        assertFalse(authorizer.canAccessByCreateDebitCardRequest(request));
+
+        assertEquals(1, authorizer.userLookups);
+        verify(accountLookupRepository, times(1)).findAccountNumbersByMemberId(1L);
+    }
+
+    static class MemberCardAuthorizer extends CardAuthorizer {
+
+        private final MemberUser user;
+        int userLookups;
+
+        MemberCardAuthorizer(MemberAuthorizationCache cache, AccountLookupRepository repository, MemberUser user) {
+            super(cache, repository);
+            this.user = user;
+        }
+
+        @Override
+        public UserRole getRole() {
+            return UserRole.MEMBER;
+        }
+
+        @Override
+        public MemberUser getUser() {
+            userLookups++;
+            return user;
+        }
+
+        @Override
+        protected String getPrincipalName() {
+            return "member";
+        }
+
+    }
+
+}
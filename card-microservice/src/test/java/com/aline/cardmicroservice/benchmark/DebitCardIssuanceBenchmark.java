@@ -0,0 +1,65 @@
+package com.aline.cardmicroservice.benchmark;
+
+import com.aline.cardmicroservice.dto.CreateDebitCardBatchResponse;
+import com.aline.cardmicroservice.service.CardBatchService;
+import com.aline.cardmicroservice.service.CardService;
+import com.aline.cardmicroservice.testsupport.CardIntegrationTest;
+import com.aline.core.dto.request.CreateDebitCardRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.test.context.support.WithMockUser;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * Compares issuing cards one request at a time with the bulk issuance path.
+ * Run with {@code mvn test -Dtest=DebitCardIssuanceBenchmark -Dbenchmark=true -Dbenchmark.cards=10000}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@WithMockUser(roles = "ADMINISTRATOR")
+@Slf4j
+class DebitCardIssuanceBenchmark extends CardIntegrationTest {
+
+    private static final int CARDS = Integer.getInteger("benchmark.cards", 10000);
+
+    @Autowired
+    CardService cardService;
+    @Autowired
+    CardBatchService cardBatchService;
+
+    @BeforeEach
+    void setUp() {
+        when(authService.canAccessByCreateDebitCardRequest(any())).thenReturn(true);
+        when(authService.canIssueInBulk()).thenReturn(true);
+    }
+
+    @Test
+    void compareSingleAndBatchIssuance() {
+        List<CreateDebitCardRequest> single = testData.seedMemberAccounts(CARDS);
+        List<CreateDebitCardRequest> batch = testData.seedMemberAccounts(CARDS);
+
+        long singleStart = System.nanoTime();
+        single.forEach(cardService::createDebitCard);
+        long singleMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - singleStart);
+
+        long batchStart = System.nanoTime();
+        CreateDebitCardBatchResponse response = cardBatchService.createDebitCards(batch);
+        long batchMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - batchStart);
+
+        assertEquals(CARDS, response.getCreated());
+        log.info("Issued {} cards. Single path: {} ms ({} cards/s). Batch path: {} ms ({} cards/s). Speedup: {}x",
+                CARDS,
+                singleMillis, CARDS * 1000L / Math.max(singleMillis, 1),
+                batchMillis, CARDS * 1000L / Math.max(batchMillis, 1),
+                String.format("%.1f", (double) singleMillis / Math.max(batchMillis, 1)));
+    }
+
+}
@@ -0,0 +1,66 @@
+package com.aline.cardmicroservice.datasource;
+
+import com.aline.core.annotation.test.SpringBootIntegrationTest;
+import com.aline.core.aws.email.EmailService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Routes between two local H2 databases, the test database as primary and a second one as replica.
+ */
+@SpringBootIntegrationTest
+@TestPropertySource(properties = {
+        "app.card.datasource.replica.enabled=true",
+        "app.card.datasource.replica.url=jdbc:h2:mem:replicadb;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "app.card.datasource.replica.username=sa",
+        "app.card.datasource.replica.password=",
+        "app.card.datasource.read-your-writes-window=PT5S"
+})
+class ReplicaRoutingDataSourceTest {
+
+    @MockBean
+    EmailService emailService;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Test
+    @WithMockUser(username = "reader")
+    void test_readOnlyTransactionsUseReplica() {
+        double replicaRoutes = meterRegistry.get("card.datasource.routes").tag("target", "replica").counter().count();
+
+        assertEquals("replicadb", database(true));
+        assertEquals("testdb", database(false));
+        assertTrue(meterRegistry.get("card.datasource.routes").tag("target", "replica").counter().count() > replicaRoutes);
+    }
+
+    @Test
+    @WithMockUser(username = "writer")
+    void test_readsStayOnPrimaryAfterWriteBySamePrincipal() {
+        database(false);
+
+        assertEquals("testdb", database(true));
+    }
+
+    private String database(boolean readOnly) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(readOnly);
+        return transactionTemplate.execute(status ->
+                jdbcTemplate.queryForObject("SELECT DATABASE()", String.class).toLowerCase());
+    }
+
+}
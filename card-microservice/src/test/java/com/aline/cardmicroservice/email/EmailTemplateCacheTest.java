@@ -0,0 +1,127 @@
+package com.aline.cardmicroservice.email;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class EmailTemplateCacheTest {
+
+    @TempDir
+    Path bucket;
+    @TempDir
+    Path disk;
+
+    EmailTemplateStore store;
+    Map<String, String> variables;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        store = spy(new FileSystemEmailTemplateStore(bucket));
+        writeTemplate("<p>Hello ${name}, your card ends in ${lastFour}.</p>", Instant.parse("2021-01-01T00:00:00Z"));
+        variables = new HashMap<>();
+        variables.put("name", "John");
+        variables.put("lastFour", "1234");
+    }
+
+    @Test
+    void test_get_compilesOnceAndServesFromMemory() {
+        EmailTemplateCache cache = new EmailTemplateCache(store, null, Collections.emptyList());
+
+        assertEquals("<p>Hello John, your card ends in 1234.</p>", cache.get("card/send-card").render(variables));
+        cache.get("card/send-card");
+
+        verify(store, times(1)).fetch(anyString(), any(), any());
+    }
+
+    @Test
+    void test_revalidate_reloadsChangedTemplate() throws IOException {
+        EmailTemplateCache cache = new EmailTemplateCache(store, null, Collections.emptyList());
+        cache.get("card/send-card");
+
+        cache.revalidate();
+        assertEquals("<p>Hello John, your card ends in 1234.</p>", cache.get("card/send-card").render(variables));
+
+        writeTemplate("<p>Hi ${name}!</p>", Instant.parse("2021-02-01T00:00:00Z"));
+        cache.revalidate();
+        assertEquals("<p>Hi John!</p>", cache.get("card/send-card").render(variables));
+    }
+
+    @Test
+    void test_revalidate_keepsCachedCopyWhenStoreUnreachable() {
+        EmailTemplateCache cache = new EmailTemplateCache(store, null, Collections.emptyList());
+        cache.get("card/send-card");
+
+        doThrow(new IllegalStateException("Store unreachable")).when(store).fetch(anyString(), any(), any());
+        cache.revalidate();
+
+        assertEquals("<p>Hello John, your card ends in 1234.</p>", cache.get("card/send-card").render(variables));
+    }
+
+    @Test
+    void test_get_servesDiskCopyAfterRestartWhenStoreUnreachable() {
+        new EmailTemplateCache(store, disk, Collections.singletonList("card/send-card")).init();
+
+        EmailTemplateStore unreachable = (name, etag, lastModified) -> {
+            throw new IllegalStateException("Store unreachable");
+        };
+        EmailTemplateCache restarted = new EmailTemplateCache(unreachable, disk, Collections.emptyList());
+
+        assertEquals("<p>Hello John, your card ends in 1234.</p>", restarted.get("card/send-card").render(variables));
+    }
+
+    @Test
+    void test_get_throwsWhenTemplateMissing() {
+        EmailTemplateCache cache = new EmailTemplateCache(store, null, Collections.emptyList());
+        assertThrows(EmailTemplateNotFoundException.class, () -> cache.get("card/missing"));
+    }
+
+    @Test
+    void test_fetch_returnsEmptyWhenEtagMatches() {
+        StoredTemplate stored = store.fetch("card/send-card", null, null).orElseThrow(IllegalStateException::new);
+        assertEquals(Optional.empty(), store.fetch("card/send-card", stored.getEtag(), stored.getLastModified()));
+    }
+
+    @Test
+    void test_render_keepsUnknownPlaceholders() {
+        EmailTemplate template = EmailTemplate.compile("${greeting} ${name}${missing} ${unclosed");
+        Map<String, String> values = new HashMap<>();
+        values.put("greeting", "Hi");
+        values.put("name", "Jane");
+        assertEquals("Hi Jane${missing} ${unclosed", template.render(values));
+    }
+
+    @Test
+    void test_render_escapesValues() {
+        EmailTemplate template = EmailTemplate.compile("<p>${name}</p>");
+        assertEquals("<p>&lt;script&gt;alert(&quot;x&quot;)&lt;/script&gt;</p>",
+                template.render(Collections.singletonMap("name", "<script>alert(\"x\")</script>")));
+    }
+
+    private void writeTemplate(String content, Instant modified) throws IOException {
+        Path file = bucket.resolve("card/send-card.html");
+        Files.createDirectories(file.getParent());
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        Files.setLastModifiedTime(file, FileTime.from(modified));
+    }
+
+}
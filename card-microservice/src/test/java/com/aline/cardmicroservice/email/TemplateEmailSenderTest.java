@@ -0,0 +1,86 @@
+package com.aline.cardmicroservice.email;
+
+import com.aline.core.aws.email.EmailService;
+import com.amazonaws.services.simpleemail.AmazonSimpleEmailService;
+import com.amazonaws.services.simpleemail.model.SendEmailRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class TemplateEmailSenderTest {
+
+    EmailService emailService;
+    EmailTemplateCache templateCache;
+    AmazonSimpleEmailService ses;
+    Map<String, String> variables;
+
+    @BeforeEach
+    void setUp() {
+        emailService = mock(EmailService.class);
+        templateCache = mock(EmailTemplateCache.class);
+        ses = mock(AmazonSimpleEmailService.class);
+        variables = new HashMap<>();
+        variables.put("name", "<b>Jane</b> & Co");
+        variables.put("activateCardUrl", "https://member.example.com/activate?card=1&step=2");
+    }
+
+    @Test
+    void test_sendHtmlEmail_sendsEscapedValuesThroughSes() {
+        when(templateCache.get("card/send-card"))
+                .thenReturn(EmailTemplate.compile("<p>Hello ${name}</p><a href=\"${activateCardUrl}\">Activate</a>"));
+
+        sender(true).sendHtmlEmail("Card successfully issued", "card/send-card", "jane@example.com", variables);
+
+        ArgumentCaptor<SendEmailRequest> captor = ArgumentCaptor.forClass(SendEmailRequest.class);
+        verify(ses).sendEmail(captor.capture());
+        SendEmailRequest request = captor.getValue();
+        assertEquals("no-reply@example.com", request.getSource());
+        assertEquals(Collections.singletonList("jane@example.com"), request.getDestination().getToAddresses());
+        assertEquals("Card successfully issued", request.getMessage().getSubject().getData());
+        assertEquals("<p>Hello &lt;b&gt;Jane&lt;/b&gt; &amp; Co</p>" +
+                        "<a href=\"https://member.example.com/activate?card=1&amp;step=2\">Activate</a>",
+                request.getMessage().getBody().getHtml().getData());
+        verifyNoInteractions(emailService);
+    }
+
+    @Test
+    void test_sendHtmlEmail_uncachedTemplateFallsBackToCore() {
+        when(templateCache.get("card/send-card")).thenThrow(new IllegalStateException("Store unreachable"));
+
+        sender(true).sendHtmlEmail("Card successfully issued", "card/send-card", "jane@example.com", variables);
+
+        verify(emailService).sendHtmlEmail("Card successfully issued", "card/send-card", "jane@example.com", variables);
+        verifyNoInteractions(ses);
+    }
+
+    @Test
+    void test_sendHtmlEmail_disabledSendsNothing() {
+        when(templateCache.get("card/send-card")).thenReturn(EmailTemplate.compile("<p>Hello ${name}</p>"));
+
+        sender(false).sendHtmlEmail("Card successfully issued", "card/send-card", "jane@example.com", variables);
+
+        verifyNoInteractions(ses, emailService);
+    }
+
+    private TemplateEmailSender sender(boolean enabled) {
+        StaticListableBeanFactory beans = new StaticListableBeanFactory();
+        beans.addBean("emailTemplateCache", templateCache);
+        beans.addBean("cardEmailSes", ses);
+        return new TemplateEmailSender(emailService,
+                beans.getBeanProvider(EmailTemplateCache.class),
+                beans.getBeanProvider(AmazonSimpleEmailService.class),
+                "no-reply@example.com", enabled);
+    }
+
+}
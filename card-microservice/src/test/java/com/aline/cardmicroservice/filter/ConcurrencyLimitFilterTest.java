@@ -0,0 +1,83 @@
+package com.aline.cardmicroservice.filter;
+
+import com.aline.cardmicroservice.config.ConcurrencyLimitProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.FilterChain;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class ConcurrencyLimitFilterTest {
+
+    ConcurrencyLimitProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        properties = new ConcurrencyLimitProperties();
+        properties.getActivationRateLimit().setCapacity(2);
+        properties.getActivationRateLimit().setRefillPerSecond(0.001);
+    }
+
+    @Test
+    void test_resolveGroup() {
+        assertEquals(ConcurrencyLimitFilter.ISSUANCE, ConcurrencyLimitFilter.resolveGroup(new MockHttpServletRequest("POST", "/cards/debit")));
+        assertEquals(ConcurrencyLimitFilter.ISSUANCE, ConcurrencyLimitFilter.resolveGroup(new MockHttpServletRequest("POST", "/cards/debit/batch")));
+        assertEquals(ConcurrencyLimitFilter.ACTIVATION, ConcurrencyLimitFilter.resolveGroup(new MockHttpServletRequest("POST", "/cards/activation")));
+        assertEquals(ConcurrencyLimitFilter.READ, ConcurrencyLimitFilter.resolveGroup(new MockHttpServletRequest("GET", "/cards/1")));
+        assertTrue(ConcurrencyLimitFilter.isExport(new MockHttpServletRequest("GET", "/cards/export")));
+        assertFalse(ConcurrencyLimitFilter.isExport(new MockHttpServletRequest("GET", "/cards/1")));
+    }
+
+    @Test
+    void test_doFilter_rateLimitsActivationPerSource() throws Exception {
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(properties, new SimpleMeterRegistry());
+
+        assertEquals(200, activate(filter, "10.0.0.1").getStatus());
+        assertEquals(200, activate(filter, "10.0.0.1").getStatus());
+        MockHttpServletResponse rejected = activate(filter, "10.0.0.1");
+        assertEquals(429, rejected.getStatus());
+        assertEquals(200, activate(filter, "10.0.0.2").getStatus());
+        assertEquals(1, filter.getRateRejectedCount());
+    }
+
+    @Test
+    void test_doFilter_rejectsAboveConcurrencyLimit() throws Exception {
+        ConcurrencyLimitProperties.Limit limit = new ConcurrencyLimitProperties.Limit();
+        limit.setInitialLimit(1);
+        limit.setMinLimit(1);
+        properties.getGroups().put(ConcurrencyLimitFilter.ISSUANCE, limit);
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(properties, new SimpleMeterRegistry());
+
+        // Hold the only permit as if a request were in flight
+        filter.getLimiters().get(ConcurrencyLimitFilter.ISSUANCE).tryAcquire();
+
+        FilterChain chain = mock(FilterChain.class);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("POST", "/cards/debit"), response, chain);
+
+        assertEquals(503, response.getStatus());
+        assertEquals("1", response.getHeader("Retry-After"));
+        verify(chain, never()).doFilter(any(), any());
+        assertEquals(1, filter.getRejectedCount(ConcurrencyLimitFilter.ISSUANCE));
+    }
+
+    private MockHttpServletResponse activate(ConcurrencyLimitFilter filter, String source) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/cards/activation");
+        request.setRemoteAddr(source);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+
+}
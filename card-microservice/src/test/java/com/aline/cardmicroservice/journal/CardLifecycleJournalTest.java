@@ -0,0 +1,118 @@
+package com.aline.cardmicroservice.journal;
+
+import com.aline.cardmicroservice.config.JournalProperties;
+import com.aline.cardmicroservice.event.CardLifecycleEvent;
+import com.aline.cardmicroservice.event.CardLifecycleEventType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CardLifecycleJournalTest {
+
+    @TempDir
+    Path directory;
+    JournalProperties properties;
+    CardLifecycleJournal journal;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        properties = new JournalProperties();
+        properties.setDirectory(directory.toString());
+        properties.setSegmentSize(10 * JournalSegment.RECORD_SIZE);
+        journal = open();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        journal.stop();
+    }
+
+    @Test
+    void test_read_tailsCommittedEventsWithCursor() throws Exception {
+        journal.append(CardLifecycleEvent.of(CardLifecycleEventType.CLOSED_FOR_REPLACEMENT, 4L, 2L, 3L));
+        journal.append(CardLifecycleEvent.of(CardLifecycleEventType.CREATED, 1L, 2L, 3L));
+        journal.append(CardLifecycleEvent.of(CardLifecycleEventType.ACTIVATED, 1L, 2L, 3L));
+        awaitSequence(3);
+
+        List<CardLifecycleRecord> first = journal.read(0, 2);
+        assertEquals(2, first.size());
+        assertEquals(CardLifecycleEventType.CLOSED_FOR_REPLACEMENT, first.get(0).getType());
+        assertEquals(4L, first.get(0).getCardId());
+        assertEquals(1L, first.get(1).getCardId());
+
+        List<CardLifecycleRecord> rest = journal.read(first.get(1).getSequence(), 10);
+        assertEquals(1, rest.size());
+        assertEquals(CardLifecycleEventType.ACTIVATED, rest.get(0).getType());
+        assertTrue(journal.read(3, 10).isEmpty());
+    }
+
+    @Test
+    void test_rollsSegmentsAndRecoversOnRestart() throws Exception {
+        appendCreated(25);
+        awaitSequence(25);
+        assertEquals(3, segmentCount());
+        String journalId = journal.getJournalId();
+
+        journal.stop();
+        journal = open();
+        assertEquals(25, journal.getCommittedSequence());
+        assertEquals(journalId, journal.getJournalId());
+        assertEquals(journalId, journal.readPage(0, 1).getJournalId());
+
+        appendCreated(1);
+        awaitSequence(26);
+        List<CardLifecycleRecord> records = journal.read(0, 100);
+        assertEquals(26, records.size());
+        for (int i = 0; i < records.size(); i++)
+            assertEquals(i + 1, records.get(i).getSequence());
+    }
+
+    @Test
+    void test_retention_readerContinuesAtOldestKeptRecord() throws Exception {
+        journal.stop();
+        properties.setRetention(Duration.ZERO);
+        journal = open();
+
+        appendCreated(25);
+        awaitSequence(25);
+
+        assertEquals(1, segmentCount());
+        assertEquals(21, journal.read(0, 100).get(0).getSequence());
+    }
+
+    private CardLifecycleJournal open() throws Exception {
+        CardLifecycleJournal opened = new CardLifecycleJournal(properties, new SimpleMeterRegistry());
+        opened.start();
+        return opened;
+    }
+
+    private void appendCreated(int count) {
+        for (long i = 1; i <= count; i++)
+            journal.append(CardLifecycleEvent.of(CardLifecycleEventType.CREATED, i, 2L, 3L));
+    }
+
+    private void awaitSequence(long sequence) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (journal.getCommittedSequence() < sequence && System.currentTimeMillis() < deadline)
+            Thread.sleep(10);
+        assertEquals(sequence, journal.getCommittedSequence());
+    }
+
+    private long segmentCount() throws Exception {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(JournalSegment::isSegment).count();
+        }
+    }
+
+}
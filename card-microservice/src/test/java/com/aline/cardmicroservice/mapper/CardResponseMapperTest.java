@@ -0,0 +1,95 @@
+package com.aline.cardmicroservice.mapper;
+
+import com.aline.cardmicroservice.dto.CardActivationCheck;
+import com.aline.core.dto.response.CardResponse;
+import com.aline.core.dto.response.CreateDebitCardResponse;
+import com.aline.core.model.Applicant;
+import com.aline.core.model.Member;
+import com.aline.core.model.account.CheckingAccount;
+import com.aline.core.model.card.Card;
+import com.aline.core.model.card.CardIssuer;
+import com.aline.core.model.card.CardStatus;
+import com.aline.core.model.card.CardType;
+import com.aline.core.util.CardUtility;
+import com.aline.core.util.RandomNumberGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CardResponseMapperTest {
+
+    CardResponseMapper mapper;
+    Card card;
+
+    @BeforeEach
+    void setUp() {
+        mapper = new CardResponseMapper();
+
+        Applicant applicant = new Applicant();
+        applicant.setFirstName("Jane");
+        applicant.setLastName("Member");
+        Member member = new Member();
+        member.setId(1L);
+        member.setMembershipId("000000001");
+        member.setApplicant(applicant);
+        CheckingAccount account = new CheckingAccount();
+        account.setId(2L);
+        account.setAccountNumber("0011223344");
+        CardIssuer issuer = new CardIssuer();
+        issuer.setIssuerName("VISA");
+
+        card = new Card();
+        card.setId(3L);
+        card.setCardNumber("4123450000000001");
+        card.setSecurityCode("123");
+        card.setExpirationDate(LocalDate.of(2029, 10, 1));
+        card.setCardStatus(CardStatus.INACTIVE);
+        card.setCardType(CardType.DEBIT);
+        card.setCardHolder(member);
+        card.setAccount(account);
+        card.setCardIssuer(issuer);
+    }
+
+    @Test
+    void test_toCardResponse_sameFieldsAsCardUtilityMapping() {
+        ObjectMapper json = new ObjectMapper().findAndRegisterModules();
+        CardResponse reflective = new CardUtility(new RandomNumberGenerator()).mapToResponse(card);
+
+        assertEquals(json.valueToTree(reflective), json.valueToTree(mapper.toCardResponse(card)));
+    }
+
+    @Test
+    void test_toActivatedCardResponse_sameAsActiveCardResponse() {
+        CardActivationCheck check = new CardActivationCheck(3L, 1L, 2L, CardType.DEBIT,
+                "4123450000000001", "123", LocalDate.of(2029, 10, 1), "Jane", "Member", "0011223344",
+                CardActivationCheck.ACTIVATABLE);
+        card.setCardStatus(CardStatus.ACTIVE);
+
+        assertEquals(mapper.toCardResponse(card), mapper.toActivatedCardResponse(check));
+    }
+
+    @Test
+    void test_toCreateDebitCardResponse_copiesCardAndOwner() {
+        CreateDebitCardResponse response = mapper.toCreateDebitCardResponse(card);
+
+        assertEquals("4123450000000001", response.getCardNumber());
+        assertEquals("123", response.getSecurityCode());
+        assertEquals(LocalDate.of(2029, 10, 1), response.getExpirationDate());
+        assertEquals("Jane Member", response.getCardHolder());
+        assertEquals("000000001", response.getCardHolderId());
+        assertEquals("0011223344", response.getAccountNumber());
+    }
+
+    @Test
+    void test_cardHolderName_matchesCardUtilityMapping() {
+        CardResponse reflective = new CardUtility(new RandomNumberGenerator()).mapToResponse(card);
+
+        assertEquals(reflective.getCardHolder(), mapper.cardHolderName(card.getCardHolder()));
+        assertEquals(reflective.getCardHolder(), mapper.toCreateDebitCardResponse(card).getCardHolder());
+    }
+
+}
@@ -0,0 +1,125 @@
+package com.aline.cardmicroservice.service;
+
+import com.aline.cardmicroservice.metrics.CardRejection;
+import com.aline.cardmicroservice.repository.CardRepository;
+import com.aline.cardmicroservice.repository.CardVersionRepository;
+import com.aline.cardmicroservice.testsupport.CardIntegrationTest;
+import com.aline.core.dto.request.ActivateCardRequest;
+import com.aline.core.dto.request.CreateDebitCardRequest;
+import com.aline.core.dto.response.CardResponse;
+import com.aline.core.exception.BadRequestException;
+import com.aline.core.model.card.Card;
+import com.aline.core.model.card.CardStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * Activation checks the request in one query and activates with one conditional update.
+ * The card version is incremented after commit on another thread. Statements are
+ * counted on the test thread.
+ */
+@TestPropertySource(properties = ThreadStatementCounter.PROPERTY)
+class CardActivationQueryCountTest extends CardIntegrationTest {
+
+    @Autowired
+    CardService cardService;
+    @Autowired
+    CardVersionService cardVersionService;
+    @Autowired
+    CardVersionRepository cardVersionRepository;
+    @Autowired
+    CardRepository cardRepository;
+
+    Card card;
+    String lastFourOfSSN;
+
+    @BeforeEach
+    void setUp() {
+        when(authService.canAccessByCreateDebitCardRequest(any())).thenReturn(true);
+
+        CreateDebitCardRequest request = testData.seedMemberAccounts(1).get(0);
+        card = cardService.createDebitCard(request);
+        lastFourOfSSN = request.getMembershipId().substring(request.getMembershipId().length() - 4);
+    }
+
+    @Test
+    void test_activation_twoStatements() {
+        ThreadStatementCounter.start();
+        CardResponse response = cardService.activateCard(activation(LocalDate.of(1990, 1, 1)));
+        assertEquals(2, ThreadStatementCounter.stop());
+
+        assertEquals(CardStatus.ACTIVE, response.getCardStatus());
+        assertEquals(CardStatus.ACTIVE, cardRepository.findById(card.getId()).map(Card::getCardStatus).orElse(null));
+        assertEquals(2, cardVersionService.currentVersion(card.getId()));
+    }
+
+    @Test
+    void test_activation_incrementsStoredVersionAfterCommit() throws InterruptedException {
+        cardService.activateCard(activation(LocalDate.of(1990, 1, 1)));
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (cardVersionRepository.findVersionByCardId(card.getId()).orElse(0L) < 2 && System.currentTimeMillis() < deadline)
+            Thread.sleep(10);
+        assertEquals(2L, cardVersionRepository.findVersionByCardId(card.getId()).orElse(0L));
+    }
+
+    @Test
+    void test_activation_respondsLikeCardLookup() {
+        CardResponse response = cardService.activateCard(activation(LocalDate.of(1990, 1, 1)));
+
+        CardResponse lookedUp = transactionTemplate.execute(status ->
+                cardService.mapToResponse(cardRepository.findById(card.getId()).orElseThrow(IllegalStateException::new)));
+        assertEquals(lookedUp, response);
+    }
+
+    @Test
+    void test_cardHolderMismatch_rejectedWithoutUpdate() {
+        ThreadStatementCounter.start();
+        BadRequestException e = assertThrows(BadRequestException.class,
+                () -> cardService.activateCard(activation(LocalDate.of(1991, 1, 1))));
+        assertEquals(1, ThreadStatementCounter.stop());
+
+        assertEquals(CardRejection.CARD_HOLDER_MISMATCH.getMessage(), e.getReason());
+    }
+
+    @Test
+    void test_missingHolderDetails_rejectedWithoutQuery() {
+        ThreadStatementCounter.start();
+        BadRequestException e = assertThrows(BadRequestException.class,
+                () -> cardService.activateCard(activation(null)));
+        assertEquals(0, ThreadStatementCounter.stop());
+
+        assertEquals(CardRejection.CARD_HOLDER_MISMATCH.getMessage(), e.getReason());
+        assertEquals(CardStatus.INACTIVE, cardRepository.findById(card.getId()).map(Card::getCardStatus).orElse(null));
+    }
+
+    @Test
+    void test_secondActivation_rejectedAsAlreadyActive() {
+        cardService.activateCard(activation(LocalDate.of(1990, 1, 1)));
+
+        BadRequestException e = assertThrows(BadRequestException.class,
+                () -> cardService.activateCard(activation(LocalDate.of(1990, 1, 1))));
+
+        assertEquals(CardRejection.CARD_ALREADY_ACTIVE.getMessage(), e.getReason());
+    }
+
+    private ActivateCardRequest activation(LocalDate dateOfBirth) {
+        return ActivateCardRequest.builder()
+                .cardNumber(card.getCardNumber())
+                .securityCode(card.getSecurityCode())
+                .expirationDate(card.getExpirationDate())
+                .dateOfBirth(dateOfBirth)
+                .lastFourOfSSN(lastFourOfSSN)
+                .build();
+    }
+
+}
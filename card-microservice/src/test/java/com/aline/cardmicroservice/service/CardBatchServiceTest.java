@@ -0,0 +1,68 @@
+package com.aline.cardmicroservice.service;
+
+import com.aline.cardmicroservice.dto.CreateDebitCardBatchResponse;
+import com.aline.cardmicroservice.testsupport.CardIntegrationTest;
+import com.aline.core.dto.request.CreateDebitCardRequest;
+import com.aline.core.model.card.Card;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.when;
+
+class CardBatchServiceTest extends CardIntegrationTest {
+
+    @Autowired
+    CardBatchService cardBatchService;
+
+    @BeforeEach
+    void setUp() {
+        when(authService.canIssueInBulk()).thenReturn(true);
+    }
+
+    @Test
+    void test_createDebitCards_batchInsertedCardsAreStoredWithTheirIds() {
+        List<CreateDebitCardRequest> requests = testData.seedMemberAccounts(5);
+
+        CreateDebitCardBatchResponse response = cardBatchService.createDebitCards(requests);
+
+        assertEquals(5, response.getCreated());
+        List<String> membershipIds = requests.stream()
+                .map(CreateDebitCardRequest::getMembershipId)
+                .collect(Collectors.toList());
+        Map<String, Card> stored = entityManager.createQuery(
+                        "SELECT c FROM Card c WHERE c.cardHolder.membershipId IN :membershipIds", Card.class)
+                .setParameter("membershipIds", membershipIds)
+                .getResultStream()
+                .collect(Collectors.toMap(Card::getCardNumber, Function.identity()));
+        for (CreateDebitCardBatchResponse.Item item : response.getResults()) {
+            Card card = stored.get(item.getCard().getCardNumber());
+            assertEquals(item.getMembershipId(), card.getCardHolder().getMembershipId());
+            assertEquals(item.getAccountNumber(), card.getAccount().getAccountNumber());
+            assertEquals(item.getCard().getSecurityCode(), card.getSecurityCode());
+        }
+    }
+
+    @Test
+    void test_createDebitCards_replacementClosesExistingCards() {
+        List<CreateDebitCardRequest> requests = testData.seedMemberAccounts(2);
+        cardBatchService.createDebitCards(requests);
+        requests.forEach(request -> request.setReplacement(true));
+
+        CreateDebitCardBatchResponse response = cardBatchService.createDebitCards(requests);
+
+        assertEquals(2, response.getCreated());
+        Long open = entityManager.createQuery("SELECT COUNT(c) FROM Card c WHERE c.cardHolder.membershipId = :membershipId " +
+                        "AND c.cardStatus <> com.aline.core.model.card.CardStatus.CLOSED", Long.class)
+                .setParameter("membershipId", requests.get(0).getMembershipId())
+                .getSingleResult();
+        assertEquals(1L, open);
+    }
+
+}
@@ -0,0 +1,75 @@
+package com.aline.cardmicroservice.service;
+
+import com.aline.cardmicroservice.config.CardEmailOutboxProperties;
+import com.aline.cardmicroservice.repository.CardEmailOutboxRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CardEmailDispatcherTest {
+
+    @Mock
+    CardEmailOutboxRepository outboxRepository;
+    @Mock
+    CardEmailService cardEmailService;
+    @Mock
+    TaskExecutor executor;
+
+    @Test
+    void test_dispatch_rejectedSubmissionReleasesClaim() {
+        CardEmailDispatcher dispatcher = new CardEmailDispatcher(outboxRepository, cardEmailService,
+                new CardEmailOutboxProperties(), executor);
+        when(outboxRepository.findDueIds(any(), any())).thenReturn(Arrays.asList(1L, 2L));
+        when(outboxRepository.claim(eq(1L), any())).thenReturn(1);
+        doThrow(new TaskRejectedException("full")).when(executor).execute(any());
+
+        dispatcher.dispatch();
+
+        verify(outboxRepository).release(1L);
+        // The rest of the batch is left PENDING for the next poll
+        verify(outboxRepository, never()).claim(eq(2L), any());
+    }
+
+    @Test
+    void test_dispatch_returnsWithoutWaitingAndClaimsOnlyFreeSlots() {
+        CardEmailOutboxProperties properties = new CardEmailOutboxProperties();
+        properties.setBatchSize(2);
+        List<Runnable> running = new ArrayList<>();
+        CardEmailDispatcher dispatcher = new CardEmailDispatcher(outboxRepository, cardEmailService,
+                properties, running::add);
+        when(outboxRepository.findDueIds(any(), any())).thenReturn(Arrays.asList(1L, 2L));
+        when(outboxRepository.claim(any(), any())).thenReturn(1);
+
+        // Both deliveries are still running when the poll returns
+        dispatcher.dispatch();
+        assertEquals(2, running.size());
+
+        // No slot is free, so nothing is read or claimed
+        dispatcher.dispatch();
+        verify(outboxRepository, times(1)).findDueIds(any(), any());
+
+        running.get(0).run();
+        dispatcher.dispatch();
+        verify(outboxRepository).findDueIds(any(), eq(PageRequest.of(0, 1)));
+    }
+
+}
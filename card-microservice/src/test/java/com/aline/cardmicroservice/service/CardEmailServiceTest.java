@@ -0,0 +1,189 @@
+package com.aline.cardmicroservice.service;
+
+import com.aline.cardmicroservice.config.CardEmailOutboxProperties;
+import com.aline.cardmicroservice.email.TemplateEmailSender;
+import com.aline.cardmicroservice.mapper.CardResponseMapper;
+import com.aline.cardmicroservice.metrics.CardMetrics;
+import com.aline.cardmicroservice.model.CardEmailOutboxMessage;
+import com.aline.cardmicroservice.model.OutboxStatus;
+import com.aline.cardmicroservice.repository.CardEmailOutboxRepository;
+import com.aline.cardmicroservice.repository.CardRepository;
+import com.aline.core.config.AppConfig;
+import com.aline.core.model.card.Card;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class CardEmailServiceTest {
+
+    @Mock
+    TemplateEmailSender emailService;
+    @Mock
+    AppConfig appConfig;
+    @Mock
+    CardRepository cardRepository;
+    @Mock
+    CardEmailOutboxRepository outboxRepository;
+    @Mock
+    PlatformTransactionManager transactionManager;
+    CardEmailOutboxProperties properties;
+    CardEmailService cardEmailService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        properties = new CardEmailOutboxProperties();
+        properties.setMaxAttempts(3);
+        properties.setInitialBackoff(Duration.ofSeconds(10));
+        properties.setMaxBackoff(Duration.ofSeconds(30));
+        cardEmailService = spy(new CardEmailService(emailService, appConfig, new CardResponseMapper(), cardRepository, outboxRepository, properties, new CardMetrics(new SimpleMeterRegistry()),
+                new TransactionTemplate(transactionManager)));
+    }
+
+    @Test
+    void test_sendCard_writesOutboxWithoutSending() {
+        Card card = new Card();
+        card.setId(7L);
+
+        cardEmailService.sendCard(card, true);
+
+        ArgumentCaptor<CardEmailOutboxMessage> captor = ArgumentCaptor.forClass(CardEmailOutboxMessage.class);
+        verify(outboxRepository).save(captor.capture());
+        assertEquals(7L, captor.getValue().getCardId());
+        assertEquals(OutboxStatus.PENDING, captor.getValue().getStatus());
+        assertTrue(captor.getValue().isReplacement());
+        verifyNoInteractions(emailService);
+    }
+
+    @Test
+    void test_deliver_sendsAfterCommitThenMarksMessageSent() {
+        Card card = new Card();
+        CardEmailService.CardEmail email = mock(CardEmailService.CardEmail.class);
+        when(outboxRepository.findById(1L)).thenReturn(Optional.of(message(OutboxStatus.SENDING, 1)));
+        when(cardRepository.findById(7L)).thenReturn(Optional.of(card));
+        when(outboxRepository.markSent(eq(1L), any(LocalDateTime.class))).thenReturn(1);
+        doReturn(email).when(cardEmailService).render(card, false);
+        doNothing().when(cardEmailService).send(email);
+
+        cardEmailService.deliver(1L);
+
+        // The read transaction is committed before the provider is called
+        InOrder inOrder = inOrder(transactionManager, cardEmailService, outboxRepository);
+        inOrder.verify(transactionManager).commit(any());
+        inOrder.verify(cardEmailService).send(email);
+        inOrder.verify(outboxRepository).markSent(eq(1L), any(LocalDateTime.class));
+    }
+
+    @Test
+    void test_deliver_skipsUnclaimedMessage() {
+        when(outboxRepository.findById(1L)).thenReturn(Optional.of(message(OutboxStatus.SENT, 1)));
+
+        cardEmailService.deliver(1L);
+
+        verify(cardRepository, never()).findById(any());
+        verifyNoInteractions(emailService);
+    }
+
+    @Test
+    void test_deliver_wrapsProviderFailure() {
+        Card card = new Card();
+        when(outboxRepository.findById(1L)).thenReturn(Optional.of(message(OutboxStatus.SENDING, 1)));
+        when(cardRepository.findById(7L)).thenReturn(Optional.of(card));
+        CardEmailService.CardEmail email = mock(CardEmailService.CardEmail.class);
+        doReturn(email).when(cardEmailService).render(card, false);
+        doThrow(new IllegalStateException("SES unavailable")).when(cardEmailService).send(email);
+
+        assertThrows(CardEmailService.DeliveryFailedException.class, () -> cardEmailService.deliver(1L));
+        verify(outboxRepository, never()).markSent(any(), any());
+    }
+
+    @Test
+    void test_recordFailure_retriesWithBackoffThenDeadLetters() {
+        CardEmailOutboxMessage message = message(OutboxStatus.SENDING, 2);
+        when(outboxRepository.findById(1L)).thenReturn(Optional.of(message));
+
+        cardEmailService.recordFailure(1L, new CardEmailService.DeliveryFailedException(new IllegalStateException("timeout")));
+        assertEquals(OutboxStatus.PENDING, message.getStatus());
+        assertTrue(message.getNextAttemptAt().isAfter(LocalDateTime.now().plusSeconds(15)));
+
+        message.setStatus(OutboxStatus.SENDING);
+        message.setAttempts(3);
+        cardEmailService.recordFailure(1L, new CardEmailService.DeliveryFailedException(new IllegalStateException("timeout")));
+        assertEquals(OutboxStatus.DEAD, message.getStatus());
+    }
+
+    @Test
+    void test_recordFailure_unknownOutcomeIsNeverRetried() {
+        CardEmailOutboxMessage message = message(OutboxStatus.SENDING, 1);
+        when(outboxRepository.findById(1L)).thenReturn(Optional.of(message));
+
+        cardEmailService.recordFailure(1L, new IllegalStateException("Commit failed"));
+
+        assertEquals(OutboxStatus.DEAD, message.getStatus());
+    }
+
+    @Test
+    void test_backoff_isCapped() {
+        assertEquals(Duration.ofSeconds(10), cardEmailService.backoff(1));
+        assertEquals(Duration.ofSeconds(20), cardEmailService.backoff(2));
+        assertEquals(Duration.ofSeconds(30), cardEmailService.backoff(10));
+    }
+
+    @Test
+    void test_dispatch_onlyDeliversClaimedMessages() {
+        CardEmailDispatcher dispatcher = new CardEmailDispatcher(outboxRepository, cardEmailService, properties, new SyncTaskExecutor());
+        when(outboxRepository.findDueIds(any(LocalDateTime.class), any(Pageable.class))).thenReturn(Arrays.asList(1L, 2L));
+        when(outboxRepository.claim(eq(1L), any(LocalDateTime.class))).thenReturn(1);
+        when(outboxRepository.claim(eq(2L), any(LocalDateTime.class))).thenReturn(0);
+        doNothing().when(cardEmailService).deliver(any());
+
+        dispatcher.dispatch();
+
+        verify(cardEmailService).deliver(1L);
+        verify(cardEmailService, never()).deliver(2L);
+        verify(emailService, never()).sendHtmlEmail(anyString(), anyString(), anyString(), anyMap());
+    }
+
+    private CardEmailOutboxMessage message(OutboxStatus status, int attempts) {
+        CardEmailOutboxMessage message = new CardEmailOutboxMessage();
+        message.setId(1L);
+        message.setCardId(7L);
+        message.setStatus(status);
+        message.setAttempts(attempts);
+        message.setNextAttemptAt(LocalDateTime.now());
+        message.setCreatedAt(LocalDateTime.now());
+        return message;
+    }
+
+}
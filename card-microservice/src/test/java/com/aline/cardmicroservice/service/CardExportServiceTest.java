@@ -0,0 +1,86 @@
+package com.aline.cardmicroservice.service;
+
+import com.aline.cardmicroservice.testsupport.CardIntegrationTest;
+import com.aline.core.dto.request.CreateDebitCardRequest;
+import com.aline.core.model.card.Card;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+class CardExportServiceTest extends CardIntegrationTest {
+
+    @Autowired
+    CardExportService cardExportService;
+    @Autowired
+    CardService cardService;
+
+    List<Card> cards = new ArrayList<>();
+    Map<Long, String> membershipIds = new HashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        when(authService.canExportCards()).thenReturn(true);
+        when(authService.canAccessByCreateDebitCardRequest(any())).thenReturn(true);
+
+        for (CreateDebitCardRequest request : testData.seedMemberAccounts(3)) {
+            Card card = cardService.createDebitCard(request);
+            cards.add(card);
+            membershipIds.put(card.getId(), request.getMembershipId());
+        }
+    }
+
+    @Test
+    void test_export_ndjsonWritesOneLinePerCardWithoutCardNumbers() throws IOException {
+        String body = export(CardExportService.Format.NDJSON);
+
+        for (Card card : cards) {
+            assertTrue(body.contains("\"id\":" + card.getId() + ","));
+            assertTrue(body.contains(card.getAccount().getAccountNumber()));
+            assertTrue(body.contains("\"membershipId\":\"" + membershipIds.get(card.getId()) + "\""));
+            assertFalse(body.contains(card.getCardNumber()));
+        }
+        for (String line : body.split("\n"))
+            assertTrue(line.startsWith("{") && line.endsWith("}"));
+    }
+
+    @Test
+    void test_export_csvWritesHeaderAndRows() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long count = cardExportService.export(CardExportService.Format.CSV, () -> out);
+        String[] lines = new String(out.toByteArray(), StandardCharsets.UTF_8).split("\r?\n");
+
+        assertEquals(count + 1, lines.length);
+        assertTrue(lines[0].startsWith("id,"));
+        int membershipIdColumn = Arrays.asList(lines[0].split(",")).indexOf("membership_id");
+        for (Card card : cards) {
+            assertFalse(String.join("\n", lines).contains(card.getCardNumber()));
+            String row = Arrays.stream(lines)
+                    .filter(line -> line.startsWith(card.getId() + ","))
+                    .findFirst()
+                    .orElseThrow(IllegalStateException::new);
+            assertEquals(membershipIds.get(card.getId()), row.split(",")[membershipIdColumn]);
+        }
+    }
+
+    private String export(CardExportService.Format format) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        cardExportService.export(format, () -> out);
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+}
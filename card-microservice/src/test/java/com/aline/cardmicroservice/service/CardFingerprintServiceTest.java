@@ -0,0 +1,170 @@
+package com.aline.cardmicroservice.service;
+
+import com.aline.cardmicroservice.config.CardFingerprintProperties;
+import com.aline.cardmicroservice.model.CardFingerprint;
+import com.aline.cardmicroservice.repository.CardFingerprintRepository;
+import com.aline.core.model.card.Card;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CardFingerprintServiceTest {
+
+    @Mock
+    CardFingerprintRepository repository;
+
+    CardFingerprintProperties properties;
+    CardFingerprintService service;
+
+    @BeforeEach
+    void setUp() {
+        properties = new CardFingerprintProperties();
+        properties.setSecretKey("ThisIsAGreatFingerprintKey!!!");
+        properties.setExpectedCards(1000);
+        service = new CardFingerprintService(repository, properties);
+        service.init();
+    }
+
+    @Test
+    void test_fingerprint_deterministicPerKey() {
+        String fingerprint = service.fingerprint("4123450000000001");
+
+        assertEquals(fingerprint, service.fingerprint("4123450000000001"));
+        assertNotEquals(fingerprint, service.fingerprint("4123450000000002"));
+        assertEquals(43, fingerprint.length());
+
+        properties.setSecretKey("AnotherFingerprintKey!!!");
+        CardFingerprintService otherKey = new CardFingerprintService(repository, properties);
+        otherKey.init();
+        assertNotEquals(fingerprint, otherKey.fingerprint("4123450000000001"));
+    }
+
+    @Test
+    void test_mightExist_passesThroughUntilFilterIsBuilt() {
+        assertTrue(service.mightExist(service.hash("4123450000000001")));
+    }
+
+    @Test
+    void test_rebuild_filterHoldsStoredFingerprints() {
+        when(repository.findCardsWithoutFingerprint(anyLong(), any())).thenReturn(Collections.emptyList());
+        when(repository.findFingerprintsAfter(anyLong(), any())).thenReturn(Collections.singletonList(
+                new Object[]{1L, service.fingerprint("4123450000000001")}));
+
+        service.rebuild();
+
+        assertTrue(service.mightExist(service.hash("4123450000000001")));
+        assertFalse(service.mightExist(service.hash("4123450000000002")));
+    }
+
+    @Test
+    void test_rebuild_backfillSkipsRowsInsertedByAnotherInstance() {
+        List<Object[]> unfingerprinted = new ArrayList<>();
+        unfingerprinted.add(new Object[]{1L, "4123450000000001"});
+        unfingerprinted.add(new Object[]{2L, "4123450000000002"});
+        when(repository.findCardsWithoutFingerprint(anyLong(), any())).thenReturn(unfingerprinted);
+        when(repository.findFingerprintsAfter(anyLong(), any())).thenReturn(Collections.emptyList());
+        when(repository.saveAll(any())).thenThrow(new DataIntegrityViolationException("duplicate"));
+        when(repository.save(any())).thenAnswer(invocation -> {
+            CardFingerprint fingerprint = invocation.getArgument(0);
+            if (fingerprint.getCardId() == 1L)
+                throw new DataIntegrityViolationException("duplicate");
+            return fingerprint;
+        });
+
+        service.rebuild();
+
+        ArgumentCaptor<CardFingerprint> saved = ArgumentCaptor.forClass(CardFingerprint.class);
+        verify(repository, times(2)).save(saved.capture());
+        assertEquals(Arrays.asList(1L, 2L), Arrays.asList(saved.getAllValues().get(0).getCardId(), saved.getAllValues().get(1).getCardId()));
+        assertEquals(service.fingerprint("4123450000000002"), saved.getAllValues().get(1).getFingerprint());
+    }
+
+    @Test
+    void test_sync_mergesCardsIssuedOnAnotherInstance() {
+        TreeMap<Long, String> stored = storeFingerprintsIn(repository);
+        CardFingerprintService other = new CardFingerprintService(repository, properties);
+        other.init();
+        service.rebuild();
+        other.rebuild();
+
+        other.registerAll(Collections.singletonList(card(1L, "4123450000000001")));
+        byte[] hash = service.hash("4123450000000001");
+        LocalDate issuedLastYear = CardService.expirationDateFor(LocalDate.now().minusYears(1));
+        LocalDate issuedToday = CardService.expirationDateFor(LocalDate.now());
+
+        assertEquals(1, stored.size());
+        assertFalse(service.mightExist(hash, issuedLastYear));
+        // Not synced yet, a recently issued card is looked up in the database
+        assertTrue(service.mightExist(hash, issuedToday));
+
+        service.sync();
+        assertTrue(service.mightExist(hash, issuedLastYear));
+    }
+
+    @Test
+    void test_sync_mergesCardCommittedAfterHigherId() {
+        TreeMap<Long, String> stored = storeFingerprintsIn(repository);
+        service.rebuild();
+
+        stored.put(3L, service.fingerprint("4123450000000003"));
+        service.sync();
+        // Card 2 was inserted before card 3 but committed after the sync
+        stored.put(2L, service.fingerprint("4123450000000002"));
+        service.sync();
+
+        assertTrue(service.mightExist(service.hash("4123450000000002")));
+        assertTrue(service.mightExist(service.hash("4123450000000003")));
+    }
+
+    /**
+     * Keep fingerprints saved through the mocked repository, so several services share them.
+     */
+    private static TreeMap<Long, String> storeFingerprintsIn(CardFingerprintRepository repository) {
+        TreeMap<Long, String> stored = new TreeMap<>();
+        when(repository.findCardsWithoutFingerprint(anyLong(), any())).thenReturn(Collections.emptyList());
+        when(repository.findFingerprintsAfter(anyLong(), any())).thenAnswer(invocation -> {
+            Long after = invocation.getArgument(0);
+            return stored.tailMap(after, false).entrySet().stream()
+                    .map(entry -> new Object[]{entry.getKey(), entry.getValue()})
+                    .collect(Collectors.toList());
+        });
+        lenient().when(repository.saveAll(any())).thenAnswer(invocation -> {
+            Iterable<CardFingerprint> fingerprints = invocation.getArgument(0);
+            fingerprints.forEach(fingerprint -> stored.put(fingerprint.getCardId(), fingerprint.getFingerprint()));
+            return fingerprints;
+        });
+        return stored;
+    }
+
+    private static Card card(Long id, String cardNumber) {
+        Card card = new Card();
+        card.setId(id);
+        card.setCardNumber(cardNumber);
+        return card;
+    }
+
+}
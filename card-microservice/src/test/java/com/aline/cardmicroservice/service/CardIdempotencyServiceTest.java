@@ -0,0 +1,163 @@
+package com.aline.cardmicroservice.service;
+
+import com.aline.cardmicroservice.config.IdempotencyProperties;
+import com.aline.cardmicroservice.exception.IdempotencyKeyMismatchException;
+import com.aline.cardmicroservice.model.CardIdempotencyKey;
+import com.aline.cardmicroservice.repository.CardIdempotencyKeyRepository;
+import com.aline.cardmicroservice.repository.CardRepository;
+import com.aline.core.dto.request.CreateDebitCardRequest;
+import com.aline.core.dto.response.CreateDebitCardResponse;
+import com.aline.core.exception.BadRequestException;
+import com.aline.core.model.card.Card;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.invocation.InvocationOnMock;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CardIdempotencyServiceTest {
+
+    @Mock
+    CardIdempotencyKeyRepository repository;
+    @Mock
+    CardService cardService;
+    @Mock
+    CardRepository cardRepository;
+    CardIdempotencyService idempotencyService;
+
+    CreateDebitCardRequest request;
+    Card card;
+    CreateDebitCardResponse response;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        idempotencyService = new CardIdempotencyService(repository, cardService, cardRepository, new IdempotencyProperties(),
+                new TransactionTemplate(mock(PlatformTransactionManager.class)), new SimpleMeterRegistry());
+
+        request = new CreateDebitCardRequest();
+        request.setAccountNumber("0011223344");
+        request.setMembershipId("000000001");
+        request.setReplacement(true);
+        card = new Card();
+        card.setId(7L);
+        response = CreateDebitCardResponse.builder().cardNumber("4123450000000001").build();
+        when(cardService.mapToCreateDebitCardResponse(card)).thenReturn(response);
+        when(repository.complete(anyString(), anyInt(), anyLong())).thenReturn(1);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void test_createDebitCard_repeatedKeyReplaysResponse() {
+        when(cardService.createDebitCard(eq(request), any(Consumer.class))).thenAnswer(this::issueCard);
+
+        assertSame(response, idempotencyService.createDebitCard("key-1", request));
+        assertSame(response, idempotencyService.createDebitCard("key-1", request));
+
+        verify(cardService, times(1)).createDebitCard(eq(request), any(Consumer.class));
+        verify(repository).complete(anyString(), eq(1), eq(7L));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void test_createDebitCard_keyReusedForDifferentRequestIsRejected() {
+        when(cardService.createDebitCard(eq(request), any(Consumer.class))).thenAnswer(this::issueCard);
+        idempotencyService.createDebitCard("key-1", request);
+
+        CreateDebitCardRequest other = new CreateDebitCardRequest();
+        other.setAccountNumber("0011223355");
+        other.setMembershipId("000000001");
+
+        assertThrows(IdempotencyKeyMismatchException.class, () -> idempotencyService.createDebitCard("key-1", other));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void test_createDebitCard_keyCompletedByAnotherInstanceIsReplayed() {
+        when(repository.saveAndFlush(any(CardIdempotencyKey.class))).thenThrow(new DataIntegrityViolationException("duplicate"));
+        CardIdempotencyKey existing = new CardIdempotencyKey("key", CardIdempotencyService.hash("0011223344", "000000001", "true"),
+                LocalDateTime.now(), LocalDateTime.now().plusHours(1));
+        existing.setCardId(7L);
+        when(repository.findById(anyString())).thenReturn(Optional.of(existing));
+        when(cardRepository.findById(7L)).thenReturn(Optional.of(card));
+
+        assertSame(response, idempotencyService.createDebitCard("key-1", request));
+        verify(cardService, never()).createDebitCard(any(), any(Consumer.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void test_createDebitCard_concurrentDuplicateWaitsForFirstRequest() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(cardService.createDebitCard(eq(request), any(Consumer.class))).thenAnswer(invocation -> {
+            started.countDown();
+            assertTrue(release.await(5, TimeUnit.SECONDS));
+            return issueCard(invocation);
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<CreateDebitCardResponse> first = executor.submit(() -> idempotencyService.createDebitCard("key-1", request));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            Future<CreateDebitCardResponse> second = executor.submit(() -> idempotencyService.createDebitCard("key-1", request));
+            Thread.sleep(100);
+            release.countDown();
+
+            assertSame(response, first.get(5, TimeUnit.SECONDS));
+            assertSame(response, second.get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+        verify(cardService, times(1)).createDebitCard(eq(request), any(Consumer.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void test_createDebitCard_failureReleasesKey() {
+        when(cardService.createDebitCard(eq(request), any(Consumer.class))).thenThrow(new BadRequestException("Account not found."));
+
+        assertThrows(BadRequestException.class, () -> idempotencyService.createDebitCard("key-1", request));
+
+        verify(repository).release(anyString(), eq(1));
+    }
+
+    @Test
+    void test_createDebitCard_rejectsBlankKey() {
+        assertThrows(BadRequestException.class, () -> idempotencyService.createDebitCard(" ", request));
+    }
+
+    private Card issueCard(InvocationOnMock invocation) {
+        Consumer<Card> onIssued = invocation.getArgument(1);
+        onIssued.accept(card);
+        return card;
+    }
+
+}
@@ -0,0 +1,166 @@
+package com.aline.cardmicroservice.service;
+
+import com.aline.cardmicroservice.config.CardIssuanceProperties;
+import com.aline.cardmicroservice.exception.CardIssuanceQueueFullException;
+import com.aline.cardmicroservice.metrics.CardMetrics;
+import com.aline.cardmicroservice.model.CardIssuanceRequest;
+import com.aline.cardmicroservice.model.IssuanceStatus;
+import com.aline.cardmicroservice.repository.AccountLookupRepository;
+import com.aline.cardmicroservice.repository.CardIssuanceRequestRepository;
+import com.aline.cardmicroservice.repository.CardRepository;
+import com.aline.core.dto.request.CreateDebitCardRequest;
+import com.aline.core.exception.BadRequestException;
+import com.aline.core.model.Member;
+import com.aline.core.model.account.Account;
+import com.aline.core.model.card.Card;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CardIssuanceServiceTest {
+
+    @Mock
+    CardService cardService;
+    @Mock
+    CardIssuanceRequestRepository repository;
+    @Mock
+    AccountLookupRepository accountLookupRepository;
+    @Mock
+    CardRepository cardRepository;
+    CardIssuanceProperties properties;
+    CardIssuanceService cardIssuanceService;
+
+    CreateDebitCardRequest request;
+    Account account;
+    Member member;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        properties = new CardIssuanceProperties();
+        properties.setMaxQueueDepth(10);
+        properties.setMaxAttempts(2);
+        cardIssuanceService = new CardIssuanceService(cardService, repository, accountLookupRepository, cardRepository,
+                properties, new TransactionTemplate(mock(PlatformTransactionManager.class)),
+                new CardMetrics(new SimpleMeterRegistry()), new CardIssuanceLock(properties), new SimpleMeterRegistry());
+
+        request = new CreateDebitCardRequest();
+        request.setAccountNumber("0011223344");
+        request.setMembershipId("000000001");
+        account = new Account();
+        member = new Member();
+        when(accountLookupRepository.findAllWithMembersByAccountNumberIn(Collections.singleton("0011223344")))
+                .thenReturn(Collections.singletonList(account));
+        when(cardService.findAccountMember(account, "000000001")).thenReturn(member);
+    }
+
+    @Test
+    void test_submit_queuesRequest() {
+        CardIssuanceRequest issuance = cardIssuanceService.submit(request);
+
+        ArgumentCaptor<CardIssuanceRequest> captor = ArgumentCaptor.forClass(CardIssuanceRequest.class);
+        verify(repository).save(captor.capture());
+        assertEquals(issuance.getId(), captor.getValue().getId());
+        assertEquals(IssuanceStatus.QUEUED, captor.getValue().getStatus());
+        assertEquals("0011223344", captor.getValue().getAccountNumber());
+    }
+
+    @Test
+    void test_submit_rejectsExistingCardWithoutReplacement() {
+        when(cardRepository.existsCardByCardHolderAndAccount(member, account)).thenReturn(true);
+
+        assertThrows(BadRequestException.class, () -> cardIssuanceService.submit(request));
+        verify(repository, never()).save(any());
+    }
+
+    @Test
+    void test_submit_rejectsWhenQueueIsFull() {
+        when(repository.countByStatus(IssuanceStatus.QUEUED)).thenReturn(10L);
+
+        assertThrows(CardIssuanceQueueFullException.class, () -> cardIssuanceService.submit(request));
+        verify(repository, never()).save(any());
+    }
+
+    @Test
+    void test_process_completesClaimedAttempt() {
+        when(repository.findById("id")).thenReturn(Optional.of(claimed(1)));
+        Card card = new Card();
+        card.setId(9L);
+        when(cardService.issueDebitCard(any())).thenReturn(card);
+        when(repository.complete(eq("id"), eq(1), eq(9L), any())).thenReturn(1);
+
+        cardIssuanceService.process("id");
+
+        verify(repository, never()).release(anyString(), any(Integer.class), any(), any(), any());
+    }
+
+    @Test
+    void test_process_failsRejectedRequest() {
+        when(repository.findById("id")).thenReturn(Optional.of(claimed(1)));
+        when(cardService.issueDebitCard(any())).thenThrow(new BadRequestException("Cannot create a debit card on a closed account."));
+
+        cardIssuanceService.process("id");
+
+        verify(repository).release(eq("id"), eq(1), eq(IssuanceStatus.FAILED),
+                eq("Cannot create a debit card on a closed account."), any(LocalDateTime.class));
+    }
+
+    @Test
+    void test_process_requeuesUnexpectedFailureUntilOutOfAttempts() {
+        when(cardService.issueDebitCard(any())).thenThrow(new IllegalStateException("Connection reset"));
+
+        when(repository.findById("id")).thenReturn(Optional.of(claimed(1)));
+        cardIssuanceService.process("id");
+        verify(repository).release(eq("id"), eq(1), eq(IssuanceStatus.QUEUED), isNull(), isNull());
+
+        when(repository.findById("id")).thenReturn(Optional.of(claimed(2)));
+        cardIssuanceService.process("id");
+        verify(repository).release(eq("id"), eq(2), eq(IssuanceStatus.FAILED), anyString(), any(LocalDateTime.class));
+    }
+
+    @Test
+    void test_process_rollsBackWhenClaimWasLost() {
+        when(repository.findById("id")).thenReturn(Optional.of(claimed(1)));
+        Card card = new Card();
+        card.setId(9L);
+        when(cardService.issueDebitCard(any())).thenReturn(card);
+        when(repository.complete(eq("id"), eq(1), eq(9L), any())).thenReturn(0);
+
+        cardIssuanceService.process("id");
+
+        // The completion update did not match, so the transaction was rolled back and retried
+        verify(repository).release(eq("id"), eq(1), eq(IssuanceStatus.QUEUED), isNull(), isNull());
+    }
+
+    private CardIssuanceRequest claimed(int attempts) {
+        CardIssuanceRequest issuance = new CardIssuanceRequest();
+        issuance.setId("id");
+        issuance.setAccountNumber("0011223344");
+        issuance.setMembershipId("000000001");
+        issuance.setStatus(IssuanceStatus.PROCESSING);
+        issuance.setAttempts(attempts);
+        issuance.setCreatedAt(LocalDateTime.now());
+        return issuance;
+    }
+
+}
@@ -0,0 +1,90 @@
+package com.aline.cardmicroservice.service;
+
+import com.aline.cardmicroservice.repository.CardIssuerRepository;
+import com.aline.cardmicroservice.repository.IssuerIdentificationNumberRepository;
+import com.aline.core.config.AppConfig;
+import com.aline.core.exception.notfound.CardIssuerNotFound;
+import com.aline.core.model.card.CardIssuer;
+import com.aline.core.model.card.IssuerIdentificationNumber;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.Collections;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CardIssuerServiceTest {
+
+    @Mock
+    AppConfig appConfig;
+    @Mock
+    CardIssuerRepository cardIssuerRepository;
+    @Mock
+    IssuerIdentificationNumberRepository iinRepository;
+    CardIssuerService cardIssuerService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        CardIssuer visa = new CardIssuer();
+        visa.setIssuerName("VISA");
+        visa.setCardNumberLength(16);
+        IssuerIdentificationNumber iin = new IssuerIdentificationNumber();
+        iin.setIin("412345");
+        iin.setCardIssuer(visa);
+
+        when(appConfig.getDefaultCardIssuer()).thenReturn("VISA");
+        when(cardIssuerRepository.findAll()).thenReturn(Collections.singletonList(visa));
+        when(iinRepository.findAllWithCardIssuer()).thenReturn(Collections.singletonList(iin));
+
+        cardIssuerService = new CardIssuerService(appConfig, cardIssuerRepository, iinRepository, new SimpleMeterRegistry());
+        cardIssuerService.init();
+    }
+
+    @Test
+    void test_getDefaultCardIssuer_servedFromCache() {
+        assertEquals("VISA", cardIssuerService.getDefaultCardIssuer().getIssuerName());
+        assertEquals("412345", cardIssuerService.getDefaultIin().getIin());
+        assertEquals(2, cardIssuerService.getCacheHits());
+        assertEquals(0, cardIssuerService.getCacheMisses());
+        verify(cardIssuerRepository, never()).findByIssuerName(anyString());
+        verify(iinRepository, never()).findIssuerIdentificationNumberByCardIssuerIssuerName(anyString());
+    }
+
+    @Test
+    void test_getCardIssuerByName_missFallsBackToRepository() {
+        CardIssuer mastercard = new CardIssuer();
+        mastercard.setIssuerName("MASTERCARD");
+        when(cardIssuerRepository.findByIssuerName("MASTERCARD")).thenReturn(Optional.of(mastercard));
+
+        assertEquals(mastercard, cardIssuerService.getCardIssuerByName("MASTERCARD"));
+        assertEquals(mastercard, cardIssuerService.getCardIssuerByName("MASTERCARD"));
+        assertEquals(1, cardIssuerService.getCacheMisses());
+        assertEquals(1, cardIssuerService.getCacheHits());
+        verify(cardIssuerRepository, times(1)).findByIssuerName("MASTERCARD");
+    }
+
+    @Test
+    void test_getCardIssuerByName_unknownIssuer() {
+        when(cardIssuerRepository.findByIssuerName("UNKNOWN")).thenReturn(Optional.empty());
+        assertThrows(CardIssuerNotFound.class, () -> cardIssuerService.getCardIssuerByName("UNKNOWN"));
+    }
+
+    @Test
+    void test_invalidate_reloadsSnapshot() {
+        cardIssuerService.invalidate();
+        verify(cardIssuerRepository, times(2)).findAll();
+        verify(iinRepository, times(2)).findAllWithCardIssuer();
+    }
+
+}
@@ -0,0 +1,113 @@
+package com.aline.cardmicroservice.service;
+
+import com.aline.cardmicroservice.testsupport.CardIntegrationTest;
+import com.aline.core.dto.request.CardRequest;
+import com.aline.core.dto.request.CreateDebitCardRequest;
+import com.aline.core.exception.notfound.CardNotFoundException;
+import com.aline.core.model.card.Card;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * Card lookups decide access inside a single query for both MEMBER and management callers.
+ * Statements are counted on the test thread, scheduled jobs run in the same context.
+ */
+@TestPropertySource(properties = ThreadStatementCounter.PROPERTY)
+class CardLookupQueryCountTest extends CardIntegrationTest {
+
+    @Autowired
+    CardService cardService;
+
+    Card ownCard;
+    Card otherCard;
+
+    @BeforeEach
+    void setUp() {
+        when(authService.canLookUpCards()).thenReturn(true);
+        when(authService.canAccessByCreateDebitCardRequest(any())).thenReturn(true);
+
+        List<CreateDebitCardRequest> requests = testData.seedMemberAccounts(2);
+        ownCard = cardService.createDebitCard(requests.get(0));
+        otherCard = cardService.createDebitCard(requests.get(1));
+    }
+
+    @Test
+    void test_memberLookupOfOwnCard_singleQuery() {
+        when(authService.getCardOwnerRestriction()).thenReturn(ownCard.getCardHolder().getId());
+
+        ThreadStatementCounter.start();
+        Card card = cardService.getCardById(ownCard.getId());
+        assertEquals(1, ThreadStatementCounter.stop());
+        assertEquals(ownCard.getId(), card.getId());
+    }
+
+    @Test
+    void test_memberLookupOfOtherCard_singleQueryNothingLoaded() {
+        when(authService.getCardOwnerRestriction()).thenReturn(ownCard.getCardHolder().getId());
+
+        ThreadStatementCounter.start();
+        assertThrows(CardNotFoundException.class, () -> cardService.getCardById(otherCard.getId()));
+        assertEquals(1, ThreadStatementCounter.stop());
+    }
+
+    @Test
+    void test_managementLookup_singleQuery() {
+        when(authService.getCardOwnerRestriction()).thenReturn(null);
+
+        ThreadStatementCounter.start();
+        Card card = cardService.getCardById(otherCard.getId());
+        assertEquals(1, ThreadStatementCounter.stop());
+        assertEquals(otherCard.getId(), card.getId());
+    }
+
+    @Test
+    void test_memberLookupByCardRequest_singleQuery() {
+        when(authService.getCardOwnerRestriction()).thenReturn(ownCard.getCardHolder().getId());
+
+        ThreadStatementCounter.start();
+        Card card = cardService.getCardByCardRequest(cardRequest(ownCard));
+        assertEquals(1, ThreadStatementCounter.stop());
+        assertEquals(ownCard.getId(), card.getId());
+    }
+
+    @Test
+    void test_memberLookupByCardRequestOfOtherCard_notFound() {
+        when(authService.getCardOwnerRestriction()).thenReturn(ownCard.getCardHolder().getId());
+
+        ThreadStatementCounter.start();
+        assertThrows(CardNotFoundException.class, () -> cardService.getCardByCardRequest(cardRequest(otherCard)));
+        assertEquals(1, ThreadStatementCounter.stop());
+    }
+
+    @Test
+    void test_lookupByCardRequestOfUnissuedNumber_noQuery() {
+        when(authService.getCardOwnerRestriction()).thenReturn(null);
+        CardRequest request = CardRequest.builder()
+                .cardNumber("4123459999999999")
+                .securityCode(ownCard.getSecurityCode())
+                .expirationDate(ownCard.getExpirationDate())
+                .build();
+
+        ThreadStatementCounter.start();
+        assertThrows(CardNotFoundException.class, () -> cardService.getCardByCardRequest(request));
+        assertEquals(0, ThreadStatementCounter.stop());
+    }
+
+    private static CardRequest cardRequest(Card card) {
+        return CardRequest.builder()
+                .cardNumber(card.getCardNumber())
+                .securityCode(card.getSecurityCode())
+                .expirationDate(card.getExpirationDate())
+                .build();
+    }
+
+}
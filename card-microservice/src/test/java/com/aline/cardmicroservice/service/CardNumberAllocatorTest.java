@@ -0,0 +1,174 @@
+package com.aline.cardmicroservice.service;
+
+import com.aline.cardmicroservice.config.CardNumberAllocatorProperties;
+import com.aline.core.util.CardUtility;
+import com.aline.core.util.RandomNumberGenerator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CardNumberAllocatorTest {
+
+    @Mock
+    CardNumberBlockService blockService;
+    @Mock
+    RandomNumberGenerator randomNumberGenerator;
+    CardNumberAllocatorProperties properties;
+    CardUtility cardUtility;
+    AtomicLong highWaterMark;
+    ExecutorService prefetcher;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        prefetcher = Executors.newCachedThreadPool();
+        cardUtility = new CardUtility(randomNumberGenerator);
+        properties = new CardNumberAllocatorProperties();
+        properties.setBlockSize(1000);
+        properties.setPermutationKey(42L);
+        highWaterMark = new AtomicLong();
+        // Same semantics as the database row: move the mark forward, fail once the space is used up
+        when(blockService.reserve(anyString(), anyInt(), anyLong(), anyLong())).thenAnswer(invocation -> {
+            long blockSize = invocation.getArgument(2);
+            long limit = invocation.getArgument(3);
+            long start = highWaterMark.getAndUpdate(mark -> Math.min(mark + blockSize, limit));
+            if (start >= limit)
+                throw new IllegalStateException("Card number space is exhausted.");
+            return start;
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        prefetcher.shutdownNow();
+    }
+
+    @Test
+    void test_allocate_validCardNumbers() {
+        CardNumberAllocator allocator = new CardNumberAllocator(blockService, properties, prefetcher);
+        String previous = null;
+        for (int i = 0; i < 100; i++) {
+            String cardNumber = allocator.allocate("412345", 16);
+            assertEquals(16, cardNumber.length());
+            assertTrue(cardNumber.startsWith("412345"));
+            assertTrue(cardUtility.validateCardNumber(cardNumber));
+            if (previous != null) {
+                long delta = Long.parseLong(cardNumber.substring(6, 15)) - Long.parseLong(previous.substring(6, 15));
+                assertNotEquals(1, delta);
+            }
+            previous = cardNumber;
+        }
+    }
+
+    @Test
+    void test_allocate_millionsWithoutDuplicatesAcrossInstances() throws Exception {
+        // 8 digit IIN + 7 digit account identifier + check digit
+        String iin = "41234567";
+        int instances = 4;
+        int threadsPerInstance = 4;
+        int perThread = 250_000;
+        BitSet seen = new BitSet(10_000_000);
+
+        ExecutorService executor = Executors.newFixedThreadPool(instances * threadsPerInstance);
+        List<Future<long[]>> results = new ArrayList<>();
+        for (int i = 0; i < instances; i++) {
+            CardNumberAllocator allocator = new CardNumberAllocator(blockService, properties, prefetcher);
+            for (int t = 0; t < threadsPerInstance; t++) {
+                results.add(executor.submit(() -> {
+                    long[] issued = new long[perThread];
+                    for (int n = 0; n < perThread; n++) {
+                        String cardNumber = allocator.allocate(iin, 16);
+                        issued[n] = Long.parseLong(cardNumber.substring(8, 15));
+                    }
+                    return issued;
+                }));
+            }
+        }
+
+        int total = 0;
+        for (Future<long[]> result : results) {
+            for (long accountIdentifier : result.get()) {
+                assertFalse(seen.get((int) accountIdentifier), "Duplicate card number issued");
+                seen.set((int) accountIdentifier);
+                total++;
+            }
+        }
+        executor.shutdown();
+
+        assertEquals(4_000_000, total);
+        assertEquals(4_000_000, seen.cardinality());
+    }
+
+    @Test
+    void test_allocate_exhaustsSpaceWithoutDuplicates() {
+        properties.setBlockSize(64);
+        CardNumberAllocator allocator = new CardNumberAllocator(blockService, properties, prefetcher);
+        BitSet seen = new BitSet(1000);
+        for (int i = 0; i < 1000; i++) {
+            String cardNumber = allocator.allocate("412345", 10);
+            int accountIdentifier = Integer.parseInt(cardNumber.substring(6, 9));
+            assertFalse(seen.get(accountIdentifier));
+            seen.set(accountIdentifier);
+        }
+        assertThrows(IllegalStateException.class, () -> allocator.allocate("412345", 10));
+    }
+
+    @Test
+    void test_allocate_reservesNextBlockOffTheCallingThread() {
+        Set<Thread> reservingThreads = ConcurrentHashMap.newKeySet();
+        when(blockService.reserve(anyString(), anyInt(), anyLong(), anyLong())).thenAnswer(invocation -> {
+            reservingThreads.add(Thread.currentThread());
+            return highWaterMark.getAndAdd(invocation.<Long>getArgument(2));
+        });
+        CardNumberAllocator allocator = new CardNumberAllocator(blockService, properties, prefetcher);
+
+        for (int i = 0; i < 2500; i++)
+            allocator.allocate("412345", 16);
+
+        assertFalse(reservingThreads.contains(Thread.currentThread()));
+        verify(blockService, atLeast(3)).reserve(anyString(), anyInt(), anyLong(), anyLong());
+    }
+
+    @Test
+    void test_allocate_blocksAreKeptPerCardNumberLength() {
+        CardNumberAllocator allocator = new CardNumberAllocator(blockService, properties, prefetcher);
+
+        allocator.allocate("412345", 16);
+        allocator.allocate("412345", 19);
+
+        verify(blockService).reserve(eq("412345"), eq(16), anyLong(), anyLong());
+        verify(blockService).reserve(eq("412345"), eq(19), anyLong(), anyLong());
+    }
+
+    @Test
+    void test_luhnCheckDigit() {
+        assertEquals(7, CardNumberAllocator.luhnCheckDigit("453934357628133"));
+        assertEquals(4, CardNumberAllocator.luhnCheckDigit("1234567"));
+    }
+
+}
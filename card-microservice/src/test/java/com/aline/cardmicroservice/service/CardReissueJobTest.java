@@ -0,0 +1,186 @@
+package com.aline.cardmicroservice.service;
+
+import com.aline.cardmicroservice.config.CardReissueProperties;
+import com.aline.cardmicroservice.model.CardReissuePartition;
+import com.aline.cardmicroservice.repository.CardReissuePartitionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.same;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CardReissueJobTest {
+
+    static final LocalDate RUN_DATE = LocalDate.of(2026, 10, 17);
+
+    @Mock
+    CardReissuePartitionRepository partitionRepository;
+    @Mock
+    CardReissueService reissueService;
+    @Mock
+    ThreadPoolTaskExecutor executor;
+    CardReissueProperties properties;
+    CardReissueJob job;
+
+    CardReissuePartition partition;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        properties = new CardReissueProperties();
+        properties.setPartitions(2);
+        job = new CardReissueJob(partitionRepository, reissueService, properties, executor);
+        partition = new CardReissuePartition(RUN_DATE, 0, 2);
+
+        when(executor.getMaxPoolSize()).thenReturn(2);
+        // Run partitions on the polling thread
+        doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(0).run();
+            return null;
+        }).when(executor).execute(any(Runnable.class));
+    }
+
+    @Test
+    void test_startRun_createsMissingPartitionsAndToleratesOtherInstances() {
+        when(partitionRepository.findByRunDateOrderByPartitionNo(RUN_DATE))
+                .thenReturn(Collections.emptyList())
+                .thenReturn(Arrays.asList(partition, new CardReissuePartition(RUN_DATE, 1, 2)));
+        when(partitionRepository.saveAndFlush(any(CardReissuePartition.class)))
+                .thenThrow(new DataIntegrityViolationException("duplicate"))
+                .thenReturn(partition);
+
+        List<CardReissuePartition> partitions = job.startRun(RUN_DATE);
+
+        assertEquals(2, partitions.size());
+        verify(partitionRepository, times(2)).saveAndFlush(any(CardReissuePartition.class));
+    }
+
+    @Test
+    void test_startRun_completesPartlyCreatedRun() {
+        CardReissuePartition second = new CardReissuePartition(RUN_DATE, 1, 2);
+        when(partitionRepository.findByRunDateOrderByPartitionNo(RUN_DATE))
+                .thenReturn(Collections.singletonList(second))
+                .thenReturn(Arrays.asList(partition, second));
+
+        List<CardReissuePartition> partitions = job.startRun(RUN_DATE);
+
+        assertEquals(2, partitions.size());
+        verify(partitionRepository).saveAndFlush(argThat(created -> created.getPartitionNo() == 0));
+        verify(partitionRepository, times(1)).saveAndFlush(any(CardReissuePartition.class));
+        verify(partitionRepository, never()).deleteRunsBefore(any());
+    }
+
+    @Test
+    void test_startRun_keepsCreatedRunAsIs() {
+        List<CardReissuePartition> existing = Arrays.asList(partition, new CardReissuePartition(RUN_DATE, 1, 2));
+        when(partitionRepository.findByRunDateOrderByPartitionNo(RUN_DATE)).thenReturn(existing);
+
+        assertEquals(existing, job.startRun(RUN_DATE));
+        verify(partitionRepository, never()).saveAndFlush(any(CardReissuePartition.class));
+    }
+
+    @Test
+    void test_process_completesPartitionWhenNoCardsAreLeft() {
+        when(reissueService.reissueNextChunk(partition, "owner")).thenReturn(true, true, false);
+        when(partitionRepository.complete(eq(partition.getId()), eq("owner"), any())).thenReturn(1);
+
+        job.process(partition, "owner");
+
+        verify(reissueService, times(3)).reissueNextChunk(partition, "owner");
+        verify(partitionRepository).complete(eq(partition.getId()), eq("owner"), any());
+        verify(partitionRepository, never()).release(anyString(), anyString());
+    }
+
+    @Test
+    void test_process_failureReleasesPartitionForResume() {
+        when(reissueService.reissueNextChunk(partition, "owner"))
+                .thenReturn(true)
+                .thenThrow(new IllegalStateException("Lost the lease"));
+
+        job.process(partition, "owner");
+
+        verify(partitionRepository).release(partition.getId(), "owner");
+        verify(partitionRepository, never()).complete(anyString(), anyString(), any());
+    }
+
+    @Test
+    void test_process_stopReleasesPartitionAfterCurrentChunk() {
+        when(reissueService.reissueNextChunk(partition, "owner")).thenAnswer(invocation -> {
+            job.stop();
+            return true;
+        });
+
+        job.process(partition, "owner");
+
+        verify(reissueService, times(1)).reissueNextChunk(partition, "owner");
+        verify(partitionRepository).release(partition.getId(), "owner");
+    }
+
+    @Test
+    void test_poll_onlyProcessesLeasedPartitions() {
+        CardReissuePartition other = new CardReissuePartition(LocalDate.now(), 1, 2);
+        CardReissuePartition own = new CardReissuePartition(LocalDate.now(), 0, 2);
+        when(partitionRepository.findByRunDateOrderByPartitionNo(any())).thenReturn(Arrays.asList(own, other));
+        when(partitionRepository.acquire(eq(own.getId()), anyString(), any(), any())).thenReturn(1);
+        when(partitionRepository.acquire(eq(other.getId()), anyString(), any(), any())).thenReturn(0);
+        when(partitionRepository.findById(own.getId())).thenReturn(Optional.of(own));
+        when(partitionRepository.complete(eq(own.getId()), anyString(), any())).thenReturn(1);
+
+        job.poll();
+
+        verify(reissueService).reissueNextChunk(eq(own), anyString());
+        verify(reissueService, never()).reissueNextChunk(eq(other), anyString());
+    }
+
+    @Test
+    void test_poll_resumesFromCheckpointReadAfterLease() {
+        CardReissuePartition listed = new CardReissuePartition(LocalDate.now(), 0, 1);
+        CardReissuePartition current = new CardReissuePartition(LocalDate.now(), 0, 1);
+        current.setLastCardId(42);
+        when(partitionRepository.findByRunDateOrderByPartitionNo(any())).thenReturn(Collections.singletonList(listed));
+        when(partitionRepository.acquire(eq(listed.getId()), anyString(), any(), any())).thenReturn(1);
+        when(partitionRepository.findById(listed.getId())).thenReturn(Optional.of(current));
+        when(partitionRepository.complete(eq(listed.getId()), anyString(), any())).thenReturn(1);
+
+        job.poll();
+
+        verify(reissueService).reissueNextChunk(same(current), anyString());
+        verify(reissueService, never()).reissueNextChunk(same(listed), anyString());
+    }
+
+    @Test
+    void test_poll_releasesPartitionCompletedBeforeLease() {
+        CardReissuePartition listed = new CardReissuePartition(LocalDate.now(), 0, 1);
+        CardReissuePartition completed = new CardReissuePartition(LocalDate.now(), 0, 1);
+        completed.setCompletedAt(LocalDateTime.now());
+        when(partitionRepository.findByRunDateOrderByPartitionNo(any())).thenReturn(Collections.singletonList(listed));
+        when(partitionRepository.acquire(eq(listed.getId()), anyString(), any(), any())).thenReturn(1);
+        when(partitionRepository.findById(listed.getId())).thenReturn(Optional.of(completed));
+
+        job.poll();
+
+        verify(partitionRepository).release(eq(listed.getId()), anyString());
+        verify(reissueService, never()).reissueNextChunk(any(), anyString());
+    }
+
+}
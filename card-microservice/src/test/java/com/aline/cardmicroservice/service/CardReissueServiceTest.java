@@ -0,0 +1,134 @@
+package com.aline.cardmicroservice.service;
+
+import com.aline.cardmicroservice.model.CardReissuePartition;
+import com.aline.cardmicroservice.repository.CardReissuePartitionRepository;
+import com.aline.cardmicroservice.repository.CardRepository;
+import com.aline.cardmicroservice.testsupport.CardIntegrationTest;
+import com.aline.core.dto.request.CreateDebitCardRequest;
+import com.aline.core.model.card.Card;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * Each test reissues cards moved into its own window in the past. Cards of other
+ * tests and the reissued cards expire years from now, outside every window.
+ * Runs have a single partition and two cards per chunk, and the scheduled job is disabled.
+ */
+@TestPropertySource(properties = {
+        "app.card.reissue.enabled=false",
+        "app.card.reissue.chunk-size=2"
+})
+class CardReissueServiceTest extends CardIntegrationTest {
+
+    @Autowired
+    CardReissueService reissueService;
+    @Autowired
+    CardService cardService;
+    @Autowired
+    CardRepository cardRepository;
+    @Autowired
+    CardReissuePartitionRepository partitionRepository;
+
+    @BeforeEach
+    void setUp() {
+        when(authService.canAccessByCreateDebitCardRequest(any())).thenReturn(true);
+    }
+
+    @Test
+    void test_reissueNextChunk_pagesThroughPartitionAndSkipsOnRerun() {
+        LocalDate runDate = LocalDate.of(2000, 1, 1);
+        List<Card> expiring = seedExpiringCards(runDate, 3);
+        Set<Long> accountIds = accountIdsOf(expiring);
+        CardReissuePartition partition = leasePartition(runDate, "owner");
+
+        assertTrue(reissueService.reissueNextChunk(partition, "owner"));
+        assertFalse(reissueService.reissueNextChunk(partition, "owner"));
+
+        assertEquals(3, partition.getReissued());
+        assertEquals(0, partition.getSkipped());
+        assertEquals(expiring.get(2).getId(), partition.getLastCardId());
+        assertEquals(6, cardRepository.findCardsByAccountIdIn(accountIds).size());
+        CardReissuePartition stored = partitionRepository.findById(partition.getId()).orElseThrow(IllegalStateException::new);
+        assertEquals(3, stored.getReissued());
+        assertEquals(partition.getLastCardId(), stored.getLastCardId());
+
+        // Start over as if the checkpoint was lost, every member already has a renewed card
+        partition.setLastExpirationDate(runDate.minusDays(1));
+        partition.setLastCardId(0);
+        assertTrue(reissueService.reissueNextChunk(partition, "owner"));
+        assertFalse(reissueService.reissueNextChunk(partition, "owner"));
+
+        assertEquals(3, partition.getReissued());
+        assertEquals(3, partition.getSkipped());
+        assertEquals(6, cardRepository.findCardsByAccountIdIn(accountIds).size());
+    }
+
+    @Test
+    void test_reissueNextChunk_lostLeaseRollsBackChunk() {
+        LocalDate runDate = LocalDate.of(2000, 3, 1);
+        List<Card> expiring = seedExpiringCards(runDate, 2);
+        Set<Long> accountIds = accountIdsOf(expiring);
+        CardReissuePartition partition = leasePartition(runDate, "owner");
+
+        // Another instance takes the partition over, as after an expired lease
+        partitionRepository.release(partition.getId(), "owner");
+        LocalDateTime now = LocalDateTime.now();
+        assertEquals(1, partitionRepository.acquire(partition.getId(), "other", now, now.plusMinutes(5)));
+
+        assertThrows(IllegalStateException.class, () -> reissueService.reissueNextChunk(partition, "owner"));
+
+        assertEquals(2, cardRepository.findCardsByAccountIdIn(accountIds).size());
+        CardReissuePartition stored = partitionRepository.findById(partition.getId()).orElseThrow(IllegalStateException::new);
+        assertEquals(0, stored.getReissued());
+        assertEquals(0, stored.getLastCardId());
+        assertEquals(0, partition.getReissued());
+        assertEquals(0, partition.getLastCardId());
+    }
+
+    /**
+     * Issue cards and move their expiration into the window of the given run, oldest card first.
+     */
+    private List<Card> seedExpiringCards(LocalDate runDate, int count) {
+        List<Card> cards = new ArrayList<>();
+        for (CreateDebitCardRequest request : testData.seedMemberAccounts(count))
+            cards.add(cardService.createDebitCard(request));
+
+        List<Long> ids = cards.stream().map(Card::getId).collect(Collectors.toList());
+        transactionTemplate.execute(status -> entityManager
+                .createQuery("UPDATE Card c SET c.expirationDate = :expirationDate WHERE c.id IN :ids")
+                .setParameter("expirationDate", runDate.plusDays(10))
+                .setParameter("ids", ids)
+                .executeUpdate());
+        return cards;
+    }
+
+    private CardReissuePartition leasePartition(LocalDate runDate, String owner) {
+        CardReissuePartition partition = partitionRepository.saveAndFlush(new CardReissuePartition(runDate, 0, 1));
+        LocalDateTime now = LocalDateTime.now();
+        assertEquals(1, partitionRepository.acquire(partition.getId(), owner, now, now.plusMinutes(5)));
+        return partition;
+    }
+
+    private static Set<Long> accountIdsOf(List<Card> cards) {
+        return cards.stream()
+                .map(card -> card.getAccount().getId())
+                .collect(Collectors.toSet());
+    }
+
+}
@@ -0,0 +1,81 @@
+package com.aline.cardmicroservice.service;
+
+import com.aline.cardmicroservice.repository.CardRepository;
+import com.aline.cardmicroservice.testsupport.CardIntegrationTest;
+import com.aline.core.dto.request.CreateDebitCardRequest;
+import com.aline.core.model.card.Card;
+import com.aline.core.model.card.CardStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.concurrent.DelegatingSecurityContextExecutorService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * Concurrent replacements of the same card leave exactly one open card.
+ */
+class CardReplacementConcurrencyTest extends CardIntegrationTest {
+
+    private static final int REPLACEMENTS = 8;
+
+    @Autowired
+    CardService cardService;
+    @Autowired
+    CardRepository cardRepository;
+
+    ExecutorService executor;
+    CreateDebitCardRequest request;
+    Card original;
+
+    @BeforeEach
+    void setUp() {
+        when(authService.canAccessByCreateDebitCardRequest(any())).thenReturn(true);
+
+        request = testData.seedMemberAccounts(1).get(0);
+        original = cardService.createDebitCard(request);
+        request.setReplacement(true);
+
+        executor = new DelegatingSecurityContextExecutorService(Executors.newFixedThreadPool(REPLACEMENTS));
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void test_concurrentReplacements_leaveOneOpenCard() throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Card>> futures = new ArrayList<>();
+        for (int i = 0; i < REPLACEMENTS; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                return cardService.createDebitCard(request);
+            }));
+        }
+        start.countDown();
+        for (Future<Card> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+
+        List<Card> cards = cardRepository.getCardsByCardHolderId(original.getCardHolder().getId()).stream()
+                .filter(card -> card.getAccount().getId().equals(original.getAccount().getId()))
+                .collect(Collectors.toList());
+        assertEquals(REPLACEMENTS + 1, cards.size());
+        assertEquals(1, cards.stream().filter(card -> card.getCardStatus() != CardStatus.CLOSED).count());
+    }
+
+}
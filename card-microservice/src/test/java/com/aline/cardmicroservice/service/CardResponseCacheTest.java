@@ -0,0 +1,130 @@
+package com.aline.cardmicroservice.service;
+
+import com.aline.cardmicroservice.dto.VersionedCardResponse;
+import com.aline.cardmicroservice.testsupport.CardIntegrationTest;
+import com.aline.core.dto.request.ActivateCardRequest;
+import com.aline.core.dto.request.CreateDebitCardRequest;
+import com.aline.core.model.card.Card;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Statements are counted on the test thread, scheduled jobs run in the same context.
+ */
+@AutoConfigureMockMvc
+@TestPropertySource(properties = ThreadStatementCounter.PROPERTY)
+class CardResponseCacheTest extends CardIntegrationTest {
+
+    @Autowired
+    CardResponseCache cardResponseCache;
+    @Autowired
+    CardService cardService;
+    @Autowired
+    CardVersionService cardVersionService;
+    @Autowired
+    MockMvc mockMvc;
+
+    CreateDebitCardRequest request;
+    Card card;
+
+    @BeforeEach
+    void setUp() {
+        when(authService.canLookUpCards()).thenReturn(true);
+        when(authService.canAccessByCreateDebitCardRequest(any())).thenReturn(true);
+        when(authService.getCardOwnerRestriction()).thenReturn(null);
+
+        request = testData.seedMemberAccounts(1).get(0);
+        card = cardService.createDebitCard(request);
+    }
+
+    @Test
+    void test_repeatedRead_servedWithoutQueries() {
+        VersionedCardResponse first = cardResponseCache.getCardResponse(card.getId());
+
+        ThreadStatementCounter.start();
+        VersionedCardResponse second = cardResponseCache.getCardResponse(card.getId());
+        assertEquals(0, ThreadStatementCounter.stop());
+
+        assertSame(first, second);
+    }
+
+    @Test
+    void test_activation_changesETag() {
+        VersionedCardResponse before = cardResponseCache.getCardResponse(card.getId());
+
+        String membershipId = request.getMembershipId();
+        ActivateCardRequest activation = ActivateCardRequest.builder()
+                .cardNumber(card.getCardNumber())
+                .securityCode(card.getSecurityCode())
+                .expirationDate(card.getExpirationDate())
+                .dateOfBirth(LocalDate.of(1990, 1, 1))
+                .lastFourOfSSN(membershipId.substring(membershipId.length() - 4))
+                .build();
+        cardService.activateCard(activation);
+
+        VersionedCardResponse after = cardResponseCache.getCardResponse(card.getId());
+        assertEquals(before.getVersion() + 1, after.getVersion());
+        assertNotEquals(before.getETag(), after.getETag());
+        assertNotSame(before.getResponse(), after.getResponse());
+    }
+
+    @Test
+    void test_replacement_changesETagOfClosedCard() {
+        VersionedCardResponse before = cardResponseCache.getCardResponse(card.getId());
+
+        request.setReplacement(true);
+        cardService.createDebitCard(request);
+
+        assertNotEquals(before.getETag(), cardResponseCache.getCardResponse(card.getId()).getETag());
+    }
+
+    @Test
+    void test_conditionalGet_notModifiedWithoutLoadingCard() throws Exception {
+        String eTag = VersionedCardResponse.eTagOf(card.getId(), cardVersionService.currentVersion(card.getId()));
+
+        // Nothing is cached for the principal yet, so access is checked with one existence query
+        ThreadStatementCounter.start();
+        mockMvc.perform(get("/cards/{id}", card.getId()).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, eTag))
+                .andExpect(content().string(""));
+        assertEquals(1, ThreadStatementCounter.stop());
+
+        cardResponseCache.getCardResponse(card.getId());
+
+        ThreadStatementCounter.start();
+        mockMvc.perform(get("/cards/{id}", card.getId()).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+        assertEquals(0, ThreadStatementCounter.stop());
+    }
+
+    @Test
+    void test_conditionalGet_staleETagSendsCard() throws Exception {
+        String stale = VersionedCardResponse.eTagOf(card.getId(), cardVersionService.currentVersion(card.getId()) - 1);
+
+        mockMvc.perform(get("/cards/{id}", card.getId()).header(HttpHeaders.IF_NONE_MATCH, stale))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, VersionedCardResponse.eTagOf(card.getId(),
+                        cardVersionService.currentVersion(card.getId()))));
+    }
+
+}
@@ -1,17 +1,49 @@
 package com.aline.cardmicroservice.service;
 
+import com.aline.cardmicroservice.authorization.CardAuthorizer;
+import com.aline.cardmicroservice.config.CardIssuanceProperties;
+import com.aline.cardmicroservice.dto.CardSummary;
+import com.aline.cardmicroservice.dto.CardSummaryPage;
+import com.aline.cardmicroservice.mapper.CardResponseMapper;
+import com.aline.cardmicroservice.metrics.CardMetrics;
+import com.aline.cardmicroservice.repository.AccountLookupRepository;
 import com.aline.cardmicroservice.repository.CardRepository;
-import com.aline.core.repository.AccountRepository;
+import com.aline.cardmicroservice.util.SecureDigitGenerator;
+import com.aline.core.dto.request.CreateDebitCardRequest;
+import com.aline.core.exception.BadRequestException;
+import com.aline.core.exception.notfound.CardNotFoundException;
+import com.aline.core.model.account.AccountStatus;
+import com.aline.core.model.account.CheckingAccount;
+import com.aline.core.model.card.Card;
 import com.aline.core.util.CardUtility;
 import com.aline.core.util.RandomNumberGenerator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 class CardServiceTest {
@@ -19,25 +51,103 @@ class CardServiceTest {
     @Mock
     CardRepository repository;
     @Mock
-    AccountRepository accountRepository;
+    AccountLookupRepository accountLookupRepository;
     @Mock
     CardIssuerService cardIssuerService;
     @Mock
+    CardEmailService cardEmailService;
+    @Mock
+    CardFingerprintService cardFingerprintService;
+    @Mock
+    CardNumberAllocator cardNumberAllocator;
+    @Mock
+    ApplicationEventPublisher eventPublisher;
+    @Mock
+    CardAuthorizer authService;
+    @Mock
     RandomNumberGenerator randomNumberGenerator;
     CardUtility cardUtility;
+    SimpleMeterRegistry meterRegistry;
     CardService cardService;
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
         cardUtility = new CardUtility(randomNumberGenerator);
-        cardService = new CardService(repository, accountRepository, cardIssuerService, randomNumberGenerator, cardUtility);
+        meterRegistry = new SimpleMeterRegistry();
+        cardService = new CardService(repository, accountLookupRepository, cardIssuerService, cardEmailService, cardFingerprintService, cardNumberAllocator, eventPublisher, authService, new SecureDigitGenerator(1, 64, 1024), cardUtility, new CardResponseMapper(), new CardMetrics(meterRegistry),
+                new CardIssuanceLock(new CardIssuanceProperties()), new TransactionTemplate(mock(PlatformTransactionManager.class)));
         when(randomNumberGenerator.generateRandomNumberString(11)).thenReturn("12345678912");
     }
 
     @Test
     void test_createDebitCard() {}
 
+    @Test
+    void test_getCardById_memberLookupIsScopedToOwner() {
+        Card card = new Card();
+        when(authService.getCardOwnerRestriction()).thenReturn(1L);
+        when(repository.findByIdAndCardHolderId(10L, 1L)).thenReturn(Optional.of(card));
+        when(repository.findByIdAndCardHolderId(11L, 1L)).thenReturn(Optional.empty());
+
+        assertEquals(card, cardService.getCardById(10L));
+        assertThrows(CardNotFoundException.class, () -> cardService.getCardById(11L));
+        verify(repository, never()).findById(anyLong());
+    }
+
+    @Test
+    void test_getCardById_managementLookupIsUnrestricted() {
+        Card card = new Card();
+        when(authService.getCardOwnerRestriction()).thenReturn(null);
+        when(repository.findById(10L)).thenReturn(Optional.of(card));
+
+        assertEquals(card, cardService.getCardById(10L));
+        verify(repository, never()).findByIdAndCardHolderId(anyLong(), anyLong());
+    }
+
+    @Test
+    void test_getCardSummariesByMemberId_returnsNextCursorWhenMoreRows() {
+        List<CardSummary> rows = Arrays.asList(
+                CardSummary.builder().id(3L).build(),
+                CardSummary.builder().id(5L).build(),
+                CardSummary.builder().id(8L).build());
+        when(repository.findCardSummariesByCardHolderId(eq(1L), anyCollection(), eq(0L), any(Pageable.class)))
+                .thenReturn(rows);
+
+        CardSummaryPage page = cardService.getCardSummariesByMemberId(1L, true, null, 2);
+
+        assertEquals(2, page.getContent().size());
+        assertEquals(5L, page.getNextCursor());
+    }
+
+    @Test
+    void test_getCardSummariesByMemberId_lastPageHasNoCursor() {
+        when(repository.findCardSummariesByCardHolderId(eq(1L), anyCollection(), eq(5L), any(Pageable.class)))
+                .thenReturn(Collections.singletonList(CardSummary.builder().id(8L).build()));
+
+        CardSummaryPage page = cardService.getCardSummariesByMemberId(1L, false, 5L, 2);
+
+        assertEquals(1, page.getContent().size());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void test_issueDebitCard_countsRejectionAndTimesPhases() {
+        CheckingAccount account = new CheckingAccount();
+        account.setStatus(AccountStatus.ARCHIVED);
+        when(accountLookupRepository.lockByAccountNumber("0011223344")).thenReturn(Optional.of(account));
+        CreateDebitCardRequest request = new CreateDebitCardRequest();
+        request.setAccountNumber("0011223344");
+        request.setMembershipId("000000001");
+
+        assertThrows(BadRequestException.class, () -> cardService.issueDebitCard(request));
+
+        assertEquals(1, meterRegistry.get("card.rejections").tag("reason", "account_closed").counter().count());
+        assertEquals(1, meterRegistry.get("card.operation")
+                .tags("operation", "create_debit_card", "phase", "account_lookup", "outcome", "rejected", "replacement", "false")
+                .timer().count());
+    }
+
     @Test
     void test_validateCardNumber() {
         assertTrue(cardService.validateCardNumber("4539343576281337"));
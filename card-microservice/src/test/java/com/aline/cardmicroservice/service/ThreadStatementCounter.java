@@ -0,0 +1,38 @@
+package com.aline.cardmicroservice.service;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Counts the SQL statements Hibernate prepares on the calling thread only, so
+ * scheduled jobs running in the same context do not change the count. Enable with
+ * {@code spring.jpa.properties.hibernate.session_factory.statement_inspector}.
+ */
+public class ThreadStatementCounter implements StatementInspector {
+
+    public static final String PROPERTY = "spring.jpa.properties.hibernate.session_factory.statement_inspector=" +
+            "com.aline.cardmicroservice.service.ThreadStatementCounter";
+
+    private static final ThreadLocal<int[]> COUNT = new ThreadLocal<>();
+
+    public static void start() {
+        COUNT.set(new int[1]);
+    }
+
+    /**
+     * @return Statements prepared on this thread since {@link #start()}.
+     */
+    public static int stop() {
+        int[] count = COUNT.get();
+        COUNT.remove();
+        return count == null ? 0 : count[0];
+    }
+
+    @Override
+    public String inspect(String sql) {
+        int[] count = COUNT.get();
+        if (count != null)
+            count[0]++;
+        return sql;
+    }
+
+}
@@ -0,0 +1,52 @@
+package com.aline.cardmicroservice.testsupport;
+
+import com.aline.cardmicroservice.authorization.CardAuthorizer;
+import com.aline.cardmicroservice.repository.CardIssuerRepository;
+import com.aline.cardmicroservice.repository.IssuerIdentificationNumberRepository;
+import com.aline.cardmicroservice.service.CardIssuerService;
+import com.aline.core.annotation.test.SpringBootIntegrationTest;
+import com.aline.core.aws.email.EmailService;
+import org.junit.jupiter.api.BeforeEach;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+
+/**
+ * Base of the integration tests that issue cards. Authorization and email are
+ * mocked, and the VISA issuer is seeded before each test. Subclasses stub
+ * {@link #authService} for the checks they go through and seed their members
+ * with {@link CardTestData#seedMemberAccounts(int)}.
+ */
+@SpringBootIntegrationTest
+@WithMockUser
+public abstract class CardIntegrationTest {
+
+    @MockBean(name = "authService")
+    protected CardAuthorizer authService;
+    @MockBean
+    protected EmailService emailService;
+
+    @Autowired
+    protected CardIssuerService cardIssuerService;
+    @Autowired
+    protected EntityManager entityManager;
+    @Autowired
+    protected TransactionTemplate transactionTemplate;
+    @Autowired
+    protected CardIssuerRepository cardIssuerRepository;
+    @Autowired
+    protected IssuerIdentificationNumberRepository iinRepository;
+
+    protected CardTestData testData;
+
+    @BeforeEach
+    void seedIssuer() {
+        testData = new CardTestData(entityManager, transactionTemplate, cardIssuerRepository, iinRepository);
+        testData.seedIssuer("VISA", "412345", 16);
+        cardIssuerService.invalidate();
+    }
+
+}
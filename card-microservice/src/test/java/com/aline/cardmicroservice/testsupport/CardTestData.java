@@ -0,0 +1,112 @@
+package com.aline.cardmicroservice.testsupport;
+
+import com.aline.cardmicroservice.repository.CardIssuerRepository;
+import com.aline.cardmicroservice.repository.IssuerIdentificationNumberRepository;
+import com.aline.core.dto.request.CreateDebitCardRequest;
+import com.aline.core.model.Applicant;
+import com.aline.core.model.Member;
+import com.aline.core.model.account.AccountStatus;
+import com.aline.core.model.account.CheckingAccount;
+import com.aline.core.model.card.CardIssuer;
+import com.aline.core.model.card.IssuerIdentificationNumber;
+import lombok.RequiredArgsConstructor;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Seeds issuers, members and checking accounts for integration tests, benchmarks and load tests.
+ */
+@RequiredArgsConstructor
+public class CardTestData {
+
+    private static final AtomicInteger PREFIXES = new AtomicInteger();
+
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final CardIssuerRepository cardIssuerRepository;
+    private final IssuerIdentificationNumberRepository iinRepository;
+
+    public void seedIssuer(String issuerName, String iin, int cardNumberLength) {
+        if (cardIssuerRepository.findByIssuerName(issuerName).isPresent())
+            return;
+        CardIssuer issuer = new CardIssuer();
+        issuer.setIssuerName(issuerName);
+        issuer.setCardNumberLength(cardNumberLength);
+        cardIssuerRepository.save(issuer);
+
+        IssuerIdentificationNumber issuerIin = new IssuerIdentificationNumber();
+        issuerIin.setIin(iin);
+        issuerIin.setCardIssuer(issuer);
+        iinRepository.save(issuerIin);
+    }
+
+    /**
+     * A membership id prefix no other caller in this JVM gets. Test contexts share
+     * the in-memory database, so members seeded by other tests never collide.
+     */
+    public static String uniquePrefix() {
+        return "M" + PREFIXES.incrementAndGet();
+    }
+
+    /**
+     * Seed members under a {@link #uniquePrefix() unique prefix}.
+     */
+    public List<CreateDebitCardRequest> seedMemberAccounts(int count) {
+        return seedMemberAccounts(uniquePrefix(), count);
+    }
+
+    /**
+     * Seed one member per checking account and return a create request for each.
+     */
+    public List<CreateDebitCardRequest> seedMemberAccounts(String prefix, int count) {
+        List<CreateDebitCardRequest> requests = new ArrayList<>(count);
+        int chunk = 500;
+        for (int from = 0; from < count; from += chunk) {
+            int start = from;
+            int end = Math.min(from + chunk, count);
+            transactionTemplate.executeWithoutResult(status -> {
+                for (int i = start; i < end; i++) {
+                    requests.add(seedMemberAccount(prefix, i));
+                }
+                entityManager.flush();
+                entityManager.clear();
+            });
+        }
+        return requests;
+    }
+
+    private CreateDebitCardRequest seedMemberAccount(String prefix, int i) {
+        String suffix = String.format("%08d", i);
+
+        Applicant applicant = new Applicant();
+        applicant.setFirstName("Bench");
+        applicant.setLastName("Member" + suffix);
+        applicant.setEmail(prefix.toLowerCase() + suffix + "@example.com");
+        applicant.setSocialSecurity("123-45-" + suffix.substring(4));
+        applicant.setDateOfBirth(LocalDate.of(1990, 1, 1));
+        entityManager.persist(applicant);
+
+        Member member = new Member();
+        member.setMembershipId(prefix + suffix);
+        member.setApplicant(applicant);
+        entityManager.persist(member);
+
+        CheckingAccount account = new CheckingAccount();
+        account.setAccountNumber(prefix + suffix);
+        account.setStatus(AccountStatus.ACTIVE);
+        account.setMembers(Collections.singleton(member));
+        entityManager.persist(account);
+
+        CreateDebitCardRequest request = new CreateDebitCardRequest();
+        request.setAccountNumber(account.getAccountNumber());
+        request.setMembershipId(member.getMembershipId());
+        return request;
+    }
+
+}
@@ -0,0 +1,80 @@
+package com.aline.cardmicroservice.testsupport.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.registry.StandardServiceRegistry;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.dialect.H2Dialect;
+import org.hibernate.tool.hbm2ddl.SchemaExport;
+import org.hibernate.tool.schema.TargetType;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.boot.orm.jpa.hibernate.SpringImplicitNamingStrategy;
+import org.springframework.boot.orm.jpa.hibernate.SpringPhysicalNamingStrategy;
+import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
+import org.springframework.core.type.filter.AnnotationTypeFilter;
+import org.springframework.util.ClassUtils;
+
+import javax.persistence.Embeddable;
+import javax.persistence.Entity;
+import javax.persistence.MappedSuperclass;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Statement;
+import java.util.EnumSet;
+
+/**
+ * Creates the tables of the core entities, which are migrated by the services
+ * that own them, so the card migrations run and are validated against a
+ * complete schema in tests. Only on the test profile's migration locations.
+ */
+public class V0_1__CreateCoreSchema extends BaseJavaMigration {
+
+    private static final String CORE_MODEL_PACKAGE = "com.aline.core.model";
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        StandardServiceRegistry registry = new StandardServiceRegistryBuilder()
+                .applySetting(AvailableSettings.DIALECT, H2Dialect.class.getName())
+                .applySetting(AvailableSettings.PHYSICAL_NAMING_STRATEGY, SpringPhysicalNamingStrategy.class.getName())
+                .applySetting(AvailableSettings.IMPLICIT_NAMING_STRATEGY, SpringImplicitNamingStrategy.class.getName())
+                // Generate the script without connecting
+                .applySetting("hibernate.temp.use_jdbc_metadata_defaults", false)
+                .build();
+        Path script = Files.createTempFile("core-schema", ".sql");
+        try {
+            MetadataSources sources = new MetadataSources(registry);
+            for (BeanDefinition candidate : coreModelScanner().findCandidateComponents(CORE_MODEL_PACKAGE))
+                sources.addAnnotatedClass(ClassUtils.forName(candidate.getBeanClassName(), getClass().getClassLoader()));
+            Metadata metadata = sources.buildMetadata();
+
+            new SchemaExport()
+                    .setFormat(false)
+                    .setDelimiter(";")
+                    .setOutputFile(script.toString())
+                    .createOnly(EnumSet.of(TargetType.SCRIPT), metadata);
+
+            try (Statement statement = context.getConnection().createStatement()) {
+                for (String line : Files.readAllLines(script, StandardCharsets.UTF_8)) {
+                    if (!line.trim().isEmpty())
+                        statement.execute(line.substring(0, line.lastIndexOf(';')));
+                }
+            }
+        } finally {
+            StandardServiceRegistryBuilder.destroy(registry);
+            Files.deleteIfExists(script);
+        }
+    }
+
+    private static ClassPathScanningCandidateComponentProvider coreModelScanner() {
+        ClassPathScanningCandidateComponentProvider scanner = new ClassPathScanningCandidateComponentProvider(false);
+        scanner.addIncludeFilter(new AnnotationTypeFilter(Entity.class));
+        scanner.addIncludeFilter(new AnnotationTypeFilter(MappedSuperclass.class));
+        scanner.addIncludeFilter(new AnnotationTypeFilter(Embeddable.class));
+        return scanner;
+    }
+
+}
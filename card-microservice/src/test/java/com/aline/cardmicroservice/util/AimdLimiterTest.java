@@ -0,0 +1,89 @@
+package com.aline.cardmicroservice.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AimdLimiterTest {
+
+    private static final long TARGET = 1_000_000L;
+
+    @Test
+    void test_tryAcquire_rejectsAboveLimit() {
+        AimdLimiter limiter = new AimdLimiter(2, 1, 10, TARGET, 0.5);
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+        assertEquals(2, limiter.getInFlight());
+    }
+
+    @Test
+    void test_release_increasesLimitWhenFastAndSaturated() {
+        AimdLimiter limiter = new AimdLimiter(2, 1, 10, TARGET, 0.5);
+        limiter.tryAcquire();
+        limiter.tryAcquire();
+        limiter.release(TARGET / 2, false);
+        assertEquals(3, limiter.getLimit());
+        assertEquals(1, limiter.getInFlight());
+    }
+
+    @Test
+    void test_release_doesNotIncreaseLimitWhenUnderused() {
+        AimdLimiter limiter = new AimdLimiter(10, 1, 20, TARGET, 0.5);
+        limiter.tryAcquire();
+        limiter.release(TARGET / 2, false);
+        assertEquals(10, limiter.getLimit());
+    }
+
+    @Test
+    void test_release_decreasesLimitWhenSlowOrFailed() {
+        AtomicLong clock = new AtomicLong();
+        AimdLimiter limiter = new AimdLimiter(8, 1, 10, TARGET, 0.5, clock::get);
+        limiter.tryAcquire();
+        limiter.release(TARGET * 2, false);
+        assertEquals(4, limiter.getLimit());
+        clock.addAndGet(TARGET);
+        limiter.tryAcquire();
+        limiter.release(0, true);
+        assertEquals(2, limiter.getLimit());
+        clock.addAndGet(TARGET);
+        limiter.tryAcquire();
+        limiter.release(0, true);
+        clock.addAndGet(TARGET);
+        limiter.tryAcquire();
+        limiter.release(0, true);
+        assertEquals(1, limiter.getLimit());
+    }
+
+    @Test
+    void test_release_burstOfSlowReleasesDecreasesOnce() {
+        AtomicLong clock = new AtomicLong();
+        AimdLimiter limiter = new AimdLimiter(8, 1, 10, TARGET, 0.5, clock::get);
+        for (int i = 0; i < 8; i++)
+            assertTrue(limiter.tryAcquire());
+
+        for (int i = 0; i < 8; i++) {
+            clock.addAndGet(TARGET / 10);
+            limiter.release(TARGET * 2, false);
+        }
+        assertEquals(4, limiter.getLimit());
+
+        // The next slow request after a full window backs off again
+        clock.addAndGet(TARGET);
+        limiter.tryAcquire();
+        limiter.release(TARGET * 2, false);
+        assertEquals(2, limiter.getLimit());
+    }
+
+    @Test
+    void test_constructor_rejectsInvalidLimits() {
+        assertThrows(IllegalArgumentException.class, () -> new AimdLimiter(5, 6, 10, TARGET, 0.5));
+        assertThrows(IllegalArgumentException.class, () -> new AimdLimiter(5, 1, 10, TARGET, 1));
+    }
+
+}
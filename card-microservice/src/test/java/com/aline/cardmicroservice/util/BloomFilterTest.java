@@ -0,0 +1,49 @@
+package com.aline.cardmicroservice.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BloomFilterTest {
+
+    @Test
+    void test_mightContain_noFalseNegatives() throws NoSuchAlgorithmException {
+        BloomFilter filter = new BloomFilter(10_000, 0.001);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put(hash(i));
+        }
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(filter.mightContain(hash(i)));
+        }
+    }
+
+    @Test
+    void test_mightContain_falsePositiveRateWithinBounds() throws NoSuchAlgorithmException {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put(hash(i));
+        }
+        int falsePositives = 0;
+        for (int i = 10_000; i < 110_000; i++) {
+            if (filter.mightContain(hash(i)))
+                falsePositives++;
+        }
+        assertTrue(falsePositives < 2_000, "Expected roughly 1% false positives but got " + falsePositives);
+    }
+
+    @Test
+    void test_put_rejectsShortHashes() {
+        BloomFilter filter = new BloomFilter(100, 0.01);
+        assertThrows(IllegalArgumentException.class, () -> filter.put(new byte[8]));
+    }
+
+    private static byte[] hash(int value) throws NoSuchAlgorithmException {
+        return MessageDigest.getInstance("SHA-256").digest(ByteBuffer.allocate(4).putInt(value).array());
+    }
+
+}
@@ -0,0 +1,158 @@
+package com.aline.cardmicroservice.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SecureDigitGeneratorTest {
+
+    /**
+     * Chi-square critical value for 9 degrees of freedom at p = 0.001.
+     */
+    static final double CRITICAL_9_DF = 27.877;
+
+    /**
+     * Chi-square critical value for 999 degrees of freedom at p = 0.001.
+     */
+    static final double CRITICAL_999_DF = 1143.917;
+
+    @Test
+    void test_nextDigits_rejectsBytesThatWouldBiasModulo() {
+        // Every byte value once: 0-249 map to each digit 25 times, 250-255 are dropped
+        SecureDigitGenerator generator = new SecureDigitGenerator(1, 256, Long.MAX_VALUE, CountingRandom::new, new SecureRandom());
+        char[] digits = new char[250];
+        generator.nextDigits(digits, 0, digits.length);
+
+        long[] counts = new long[10];
+        for (char digit : digits)
+            counts[digit - '0']++;
+        long[] expected = new long[10];
+        Arrays.fill(expected, 25);
+        assertArrayEquals(expected, counts);
+
+        // The next digit comes from the next buffer, after 250-255 were skipped
+        assertEquals('0', generator.nextDigits(1).charAt(0));
+    }
+
+    @Test
+    void test_nextDigits_singleDigitsAreUniform() {
+        SecureDigitGenerator generator = new SecureDigitGenerator(4, 4096, 64 * 1024);
+        long[] counts = new long[10];
+        char[] digits = new char[1000];
+        for (int round = 0; round < 1000; round++) {
+            generator.nextDigits(digits, 0, digits.length);
+            for (char digit : digits)
+                counts[digit - '0']++;
+        }
+
+        double chiSquare = chiSquare(counts);
+        assertTrue(chiSquare < CRITICAL_9_DF, "Digits are not uniform. Chi-square: " + chiSquare);
+    }
+
+    @Test
+    void test_nextDigits_securityCodesAreUniform() {
+        SecureDigitGenerator generator = new SecureDigitGenerator(4, 4096, 64 * 1024);
+        long[] counts = new long[1000];
+        char[] code = new char[3];
+        for (int i = 0; i < 500_000; i++) {
+            generator.nextDigits(code, 0, 3);
+            counts[(code[0] - '0') * 100 + (code[1] - '0') * 10 + (code[2] - '0')]++;
+        }
+
+        double chiSquare = chiSquare(counts);
+        assertTrue(chiSquare < CRITICAL_999_DF, "Security codes are not uniform. Chi-square: " + chiSquare);
+    }
+
+    @Test
+    void test_nextDigits_concurrentCallersStayUniform() throws Exception {
+        SecureDigitGenerator generator = new SecureDigitGenerator(2, 512, 4096);
+        AtomicLongArray counts = new AtomicLongArray(10);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(executor.submit(() -> {
+                    char[] digits = new char[16];
+                    for (int i = 0; i < 20_000; i++) {
+                        generator.nextDigits(digits, 0, digits.length);
+                        for (char digit : digits) {
+                            assertTrue(digit >= '0' && digit <= '9');
+                            counts.incrementAndGet(digit - '0');
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures)
+                future.get(30, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        long[] totals = new long[10];
+        for (int i = 0; i < 10; i++)
+            totals[i] = counts.get(i);
+        double chiSquare = chiSquare(totals);
+        assertTrue(chiSquare < CRITICAL_9_DF, "Digits are not uniform under concurrency. Chi-square: " + chiSquare);
+    }
+
+    @Test
+    void test_nextDigits_writesOnlyTheRequestedRange() {
+        SecureDigitGenerator generator = new SecureDigitGenerator(1, 64, 1024);
+        char[] buffer = "xxxxxxxx".toCharArray();
+        generator.nextDigits(buffer, 2, 3);
+
+        assertEquals("xx", new String(buffer, 0, 2));
+        assertTrue(new String(buffer, 2, 3).matches("\\d{3}"));
+        assertEquals("xxx", new String(buffer, 5, 3));
+        assertThrows(IndexOutOfBoundsException.class, () -> generator.nextDigits(buffer, 6, 3));
+    }
+
+    @Test
+    void test_constructor_roundsStripesToPowerOfTwo() {
+        assertEquals(8, new SecureDigitGenerator(5, 64, 1024).stripes());
+        assertThrows(IllegalArgumentException.class, () -> new SecureDigitGenerator(0, 64, 1024));
+    }
+
+    private static double chiSquare(long[] counts) {
+        long total = 0;
+        for (long count : counts)
+            total += count;
+        double expected = (double) total / counts.length;
+        double chiSquare = 0;
+        for (long count : counts)
+            chiSquare += (count - expected) * (count - expected) / expected;
+        return chiSquare;
+    }
+
+    /**
+     * Produces the byte values 0 to 255 in order, over and over.
+     */
+    static class CountingRandom extends SecureRandom {
+        private int next;
+
+        @Override
+        public synchronized void setSeed(byte[] seed) {
+            // Keep the sequence deterministic
+        }
+
+        @Override
+        public synchronized void nextBytes(byte[] bytes) {
+            for (int i = 0; i < bytes.length; i++)
+                bytes[i] = (byte) next++;
+        }
+    }
+
+}
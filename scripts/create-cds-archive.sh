@@ -0,0 +1,31 @@
+#!/bin/sh
+# Create an AppCDS archive for the card microservice.
+#
+# Starts the application once with the fast-startup profile, exits as soon as it
+# is ready and dumps the classes loaded on the way into an archive. Start the
+# service with the archive to skip most class loading and verification:
+#
+#   java -XX:SharedArchiveFile=card-microservice.jsa -jar card-microservice-0.1.0-exec.jar
+#
+# Requires JDK 13 or later (dynamic archiving). The training run needs the same
+# environment as a normal start, including a reachable database.
+#
+# Usage: scripts/create-cds-archive.sh [jar] [archive]
+
+set -e
+
+JAR=${1:-card-microservice/target/card-microservice-0.1.0-exec.jar}
+ARCHIVE=${2:-card-microservice.jsa}
+
+if [ ! -f "$JAR" ]; then
+    echo "Application jar $JAR not found. Build it with 'mvn -pl card-microservice -am package' first." >&2
+    exit 1
+fi
+
+java -XX:ArchiveClassesAtExit="$ARCHIVE" \
+    -Dspring.profiles.active=fast-startup \
+    -Dapp.card.startup.exit-on-ready=true \
+    $JAVA_OPTS \
+    -jar "$JAR"
+
+echo "Created CDS archive $ARCHIVE"